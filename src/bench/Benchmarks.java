@@ -0,0 +1,268 @@
+package bench;
+
+import core.MathEngine;
+import core.compiler.CompiledExpression;
+import core.compiler.ExpressionCache;
+import core.compiler.ExpressionCompiler;
+import core.compiler.ExpressionJit;
+import core.compiler.ExpressionParser;
+import core.dataset.ColumnView;
+import core.dataset.Dataset;
+import core.dataset.DoubleColumn;
+import core.evaluator.Evaluator;
+import core.lexer.Lexer;
+import core.optimizer.Optimizer;
+import core.parser.Parser;
+import core.token.Token;
+import core.token.TokenType;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+// Benchmarks each pipeline stage over three expression corpora, and the stat operations over
+// growing datasets. Progress goes to stderr, results to stdout (or --out) as CSV or JSON.
+//
+//   java -Xmx4g bench.Benchmarks [--filter REGEX] [--format csv|json] [--out FILE]
+//                                [--max-size N] [--warmup N] [--iterations N] [--millis N]
+public class Benchmarks {
+    private static final int[] DATASET_SIZES = { 10, 1_000, 100_000, 10_000_000 };
+    private static final TokenType[] STAT_OPS = {
+        TokenType.MEAN, TokenType.MEDIAN, TokenType.MODE,
+        TokenType.PVARIANCE, TokenType.SVARIANCE, TokenType.PSTD_DEV, TokenType.SSTD_DEV
+    };
+
+    private static final String USAGE = "Usage: java bench.Benchmarks [--filter REGEX] [--format csv|json] [--out FILE]"
+        + " [--max-size N] [--warmup N] [--iterations N] [--millis N]";
+
+    private final Harness harness;
+    private final Pattern filter;
+    private final int maxSize;
+
+    public Benchmarks(Harness harness, Pattern filter, int maxSize) {
+        this.harness = harness;
+        this.filter = filter;
+        this.maxSize = maxSize;
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        String filter = ".*";
+        String format = "csv";
+        String out = null;
+        int maxSize = Integer.MAX_VALUE;
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 500;
+        Pattern pattern = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--filter" -> filter = value(args, ++i);
+                    case "--format" -> {
+                        format = value(args, ++i);
+                        if (!format.equals("csv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("--format must be csv or json, got " + format);
+                        }
+                    }
+                    case "--out" -> out = value(args, ++i);
+                    case "--max-size" -> maxSize = intValue(args, ++i, 1);
+                    case "--warmup" -> warmup = intValue(args, ++i, 0);
+                    case "--iterations" -> iterations = intValue(args, ++i, 1);
+                    case "--millis" -> millis = intValue(args, ++i, 1);
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            // A PatternSyntaxException is an IllegalArgumentException, so a bad regex is reported too
+            pattern = Pattern.compile(filter);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Harness harness = new Harness(warmup, iterations, millis);
+        new Benchmarks(harness, pattern, maxSize).runAll();
+
+        PrintStream stream = out == null ? System.out : new PrintStream(out);
+        if (format.equals("json")) {
+            harness.writeJson(stream);
+        } else {
+            harness.writeCsv(stream);
+        }
+        stream.flush();
+        if (out != null) stream.close();
+    }
+
+    // The value following the option at i - 1
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        return args[i];
+    }
+
+    // The value following the option at i - 1, which must be an int of at least min
+    private static int intValue(String[] args, int i, int min) {
+        String value = value(args, i);
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed >= min) return parsed;
+        } catch (NumberFormatException ignored) {}
+        throw new IllegalArgumentException(args[i - 1] + " must be an integer of at least " + min + ", got " + value);
+    }
+
+    public void runAll() {
+        for (Map.Entry<String, List<String>> corpus : corpora().entrySet()) {
+            runCorpus(corpus.getKey(), corpus.getValue());
+        }
+        for (int size : DATASET_SIZES) {
+            if (size <= maxSize) runStats(size);
+        }
+    }
+
+    // Short expressions as typed on the calculator keypad
+    static List<String> keypadCorpus() {
+        return List.of(
+            "7+8*9", "12.5/4-3", "sin(30)*2", "sqrt(16)+2^2", "log(100)", "(3+4)^(-1)",
+            "5!", "logten(1000)/3", "abs(-4.5)*pi", "2e+3", "cos(pi/3)-tan(45)", "ans*2+1"
+        );
+    }
+
+    static List<String> nestedTrigCorpus() {
+        List<String> corpus = new ArrayList<>();
+        String[] functions = { "sin", "cos", "tan", "atan" };
+        for (int depth : new int[] { 4, 16, 64 }) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < depth; i++) sb.append(functions[i % functions.length]).append('(');
+            sb.append("x");
+            for (int i = 0; i < depth; i++) sb.append(')');
+            corpus.add(sb.toString());
+        }
+        return corpus;
+    }
+
+    static List<String> polynomialCorpus() {
+        List<String> corpus = new ArrayList<>();
+        Random random = new Random(42);
+        for (int degree : new int[] { 8, 64, 256 }) {
+            StringBuilder sb = new StringBuilder();
+            for (int power = degree; power >= 0; power--) {
+                if (power < degree) sb.append(random.nextBoolean() ? '+' : '-');
+                sb.append(random.nextInt(99) + 1);
+                if (power > 0) sb.append("*x^").append(power);
+            }
+            corpus.add(sb.toString());
+        }
+        return corpus;
+    }
+
+    static Map<String, List<String>> corpora() {
+        Map<String, List<String>> corpora = new LinkedHashMap<>();
+        corpora.put("keypad", keypadCorpus());
+        corpora.put("nestedTrig", nestedTrigCorpus());
+        corpora.put("polynomial", polynomialCorpus());
+        return corpora;
+    }
+
+    // Each corpus entry is its own measurement so the long expressions do not hide the short ones
+    private void runCorpus(String corpus, List<String> expressions) {
+        Map<String, Double> variables = Map.of("x", 0.7, "ans", 3.0);
+        ColumnView table = DoubleColumn.of(1.0, 2.0, 3.0);
+
+        for (int i = 0; i < expressions.size(); i++) {
+            String expression = expressions.get(i);
+            String param = corpus + "[" + i + "]";
+            List<Token> tokens = new Lexer(expression).tokenize();
+            List<Token> postfix = new Parser(tokens).infixToPostfix();
+            List<Token> optimized = new Optimizer(postfix).optimize();
+
+            bench("lexer.tokenize", param, () -> new Lexer(expression).tokenize().size());
+            bench("parser.infixToPostfix", param, () -> new Parser(tokens).infixToPostfix().size());
+            bench("optimizer.optimize", param, () -> new Optimizer(postfix).optimize().size());
+            bench("evaluator.evaluate", param, () -> Evaluator.evaluate(postfix, variables, table));
+            bench("compiler.compile", param, () -> new ExpressionCompiler(optimized).compile().getFrameSize());
+            bench("pipeline.compile", param, () -> new ExpressionCompiler(
+                new Optimizer(new Parser(new Lexer(expression).tokenize()).infixToPostfix()).optimize()).compile().getFrameSize());
+            bench("expressionParser.compile", param, () -> new ExpressionParser(expression).compile().getFrameSize());
+
+            MathEngine engine = MathEngine.newSession();
+            engine.setVariable("x", 0.7);
+            engine.setVariable("ans", 3.0);
+            bench("engine.calculate", param, () -> engine.calculate(expression));
+
+            // Fresh compiled forms so the interpreter is measured before any promotion
+            boolean jit = ExpressionJit.isEnabled();
+            ExpressionJit.setEnabled(false);
+            CompiledExpression interpreted = new MathEngine(new ExpressionCache()).compile(expression);
+            double[] frame = interpreted.newFrame();
+            interpreted.bind(frame, variables);
+            bench("compiled.interpret", param, () -> interpreted.evaluate(frame, table));
+            ExpressionJit.setEnabled(jit);
+
+            if (jit) {
+                CompiledExpression promoted = new MathEngine(new ExpressionCache()).compile(expression);
+                double[] promotedFrame = promoted.newFrame();
+                promoted.bind(promotedFrame, variables);
+                for (int n = 0; n <= ExpressionJit.getThreshold(); n++) promoted.evaluate(promotedFrame, table);
+                if (promoted.isPromoted()) {
+                    bench("compiled.jit", param, () -> promoted.evaluate(promotedFrame, table));
+                }
+            }
+        }
+    }
+
+    // Values repeat (one decimal place, bounded range) so Mode has real work to do. Each size is run
+    // three ways: the indexed Dataset the GUI uses, whose stats are O(1) or O(log n) reads; an
+    // unindexed Dataset, which keeps running moments but selects and sorts for median and mode; and
+    // a plain ColumnView slice, which takes every operation's full pass over the values
+    private void runStats(int size) {
+        String[] stores = { "indexed", "unindexed", "view" };
+        List<String> params = new ArrayList<>();
+        for (String store : stores) {
+            if (matchesAny("n=" + size + " store=" + store)) params.add(store);
+        }
+        if (params.isEmpty()) return;
+
+        Random random = new Random(size);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) values[i] = random.nextInt(10_000) / 10.0;
+
+        for (String store : params) {
+            ColumnView table = switch (store) {
+                case "indexed" -> dataset(new Dataset(), values);
+                case "unindexed" -> dataset(new Dataset(new DoubleColumn(), false), values);
+                default -> dataset(new Dataset(new DoubleColumn(), false), values).slice(0, size);
+            };
+            String param = "n=" + size + " store=" + store;
+            for (TokenType op : STAT_OPS) {
+                bench("stat." + op.name().toLowerCase(), param, () -> Evaluator.applyStatOp(op, table));
+            }
+        }
+    }
+
+    private static Dataset dataset(Dataset dataset, double[] values) {
+        dataset.addAll(values, 0, values.length);
+        return dataset;
+    }
+
+    private boolean matchesAny(String param) {
+        for (TokenType op : STAT_OPS) {
+            if (filter.matcher("stat." + op.name().toLowerCase() + " " + param).find()) return true;
+        }
+        return false;
+    }
+
+    private void bench(String benchmark, String param, DoubleSupplier op) {
+        if (filter.matcher(benchmark + " " + param).find()) {
+            harness.run(benchmark, param, op);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.DoubleSupplier;
+
+// Minimal JMH-style runner: timed warmup and measurement iterations, a sink that keeps results
+// alive so the JIT cannot drop the work, and CSV or JSON output for regression tracking.
+public class Harness {
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+
+    // A batch of calls runs at least this long between two clock reads, so the reads are noise
+    private static final long BATCH_NANOS = 20_000;
+
+    private volatile double sink;
+
+    public record Result(String benchmark, String param, long samples, double nsPerOp, double errorNs) {
+        double opsPerSecond() {
+            return nsPerOp == 0 ? 0 : 1e9 / nsPerOp;
+        }
+    }
+
+    public Harness(int warmupIterations, int measureIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public Result run(String benchmark, String param, DoubleSupplier op) {
+        // The batch only grows as the JIT speeds op up; the final size is used for every sample
+        long batch = calibrate(op, 1);
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(op, batch);
+            batch = calibrate(op, batch);
+        }
+
+        double[] samples = new double[measureIterations];
+        for (int i = 0; i < measureIterations; i++) {
+            samples[i] = iteration(op, batch);
+        }
+
+        double mean = 0;
+        for (double s : samples) mean += s;
+        mean /= samples.length;
+
+        double m2 = 0;
+        for (double s : samples) m2 += (s - mean) * (s - mean);
+        double error = samples.length > 1 ? Math.sqrt(m2 / (samples.length - 1)) : 0;
+
+        Result result = new Result(benchmark, param, samples.length, mean, error);
+        results.add(result);
+        System.err.printf(Locale.ROOT, "%-32s %-24s %14.1f ns/op  ± %.1f%n", benchmark, param, mean, error);
+        return result;
+    }
+
+    // Doubles the batch until one batch of calls takes at least BATCH_NANOS
+    private long calibrate(DoubleSupplier op, long batch) {
+        double acc = 0;
+        while (batch < Integer.MAX_VALUE) {
+            long start = System.nanoTime();
+            for (long i = 0; i < batch; i++) acc += op.getAsDouble();
+            if (System.nanoTime() - start >= BATCH_NANOS) break;
+            batch *= 2;
+        }
+        sink = acc;
+        return batch;
+    }
+
+    // Runs whole batches of op until the iteration's time budget is spent and returns the mean ns
+    // per call; the clock is read once per batch, not once per call
+    private double iteration(DoubleSupplier op, long batch) {
+        long ops = 0;
+        double acc = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (long i = 0; i < batch; i++) acc += op.getAsDouble();
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        sink = acc;
+        return (double) elapsed / ops;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public void writeCsv(PrintStream out) {
+        out.println("benchmark,param,samples,ns_per_op,error_ns,ops_per_sec");
+        for (Result r : results) {
+            out.printf(Locale.ROOT, "%s,%s,%d,%.3f,%.3f,%.1f%n",
+                r.benchmark(), r.param(), r.samples(), r.nsPerOp(), r.errorNs(), r.opsPerSecond());
+        }
+    }
+
+    public void writeJson(PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            out.printf(Locale.ROOT,
+                "  {\"benchmark\": \"%s\", \"param\": \"%s\", \"samples\": %d, \"nsPerOp\": %.3f, \"errorNs\": %.3f, \"opsPerSec\": %.1f}%s%n",
+                r.benchmark(), r.param(), r.samples(), r.nsPerOp(), r.errorNs(), r.opsPerSecond(),
+                i + 1 < results.size() ? "," : "");
+        }
+        out.println("]");
+    }
+}
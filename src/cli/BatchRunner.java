@@ -0,0 +1,185 @@
+package cli;
+
+import core.MathEngine;
+import core.text.DoubleFormatter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+// Headless entry point: evaluates one expression per input line and prints one result per line,
+// in input order. Lines are independent of each other, so "ans" always starts at 0.
+//
+//   java cli.BatchRunner [--threads N] [--batch N] [file | -]
+public class BatchRunner {
+    private static final int DEFAULT_BATCH = 1024;
+    private static final int OUTPUT_BUFFER = 1 << 16;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String USAGE = "Usage: java cli.BatchRunner [--threads N] [--batch N] [file | -]";
+
+    private final int threads;
+    private final int batchSize;
+
+    public BatchRunner(int threads, int batchSize) {
+        if (threads < 1) throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        if (batchSize < 1) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = DEFAULT_BATCH;
+        String source = "-";
+
+        try {
+            boolean sourceGiven = false;
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = positiveValue(args, ++i);
+                    case "--batch" -> batch = positiveValue(args, ++i);
+                    case "-h", "--help" -> {
+                        System.out.println(USAGE);
+                        return;
+                    }
+                    default -> {
+                        if (args[i].startsWith("--")) throw new IllegalArgumentException("Unknown option " + args[i]);
+                        if (sourceGiven) throw new IllegalArgumentException("Only one input can be given");
+                        source = args[i];
+                        sourceGiven = true;
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        Reader in = source.equals("-")
+            ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+            : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+
+        new BatchRunner(threads, batch).run(in, out);
+    }
+
+    // The value following the option at i - 1, which must be a positive int
+    private static int positiveValue(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        try {
+            int value = Integer.parseInt(args[i]);
+            if (value > 0) return value;
+        } catch (NumberFormatException ignored) {}
+        throw new IllegalArgumentException(args[i - 1] + " must be a positive integer, got " + args[i]);
+    }
+
+    public void run(Reader input, Writer output) throws IOException {
+        // Batches in flight are capped, so a fast reader cannot run ahead of the writer
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(threads * 2);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+
+        Thread reader = new Thread(() -> readBatches(input, pending, workers), "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        try (BufferedWriter out = new BufferedWriter(output, OUTPUT_BUFFER)) {
+            while (true) {
+                String results = pending.take().get();
+                if (results == null) break;
+                out.write(results);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // On a failed write the reader may still be waiting for room in pending, or about to
+            // submit to the stopped pool; either way it has to stop and give up the input
+            reader.interrupt();
+            workers.shutdownNow();
+            closeQuietly(input);
+        }
+    }
+
+    private void readBatches(Reader input, BlockingQueue<Future<String>> pending, ExecutorService workers) {
+        try (BufferedReader in = new BufferedReader(input, OUTPUT_BUFFER)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = in.readLine()) != null) {
+                batch.add(line);
+                if (batch.size() == batchSize) {
+                    submit(batch, pending, workers);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) submit(batch, pending, workers);
+
+            // A null batch tells the writer the input is exhausted
+            pending.put(CompletableFuture.completedFuture(null));
+        } catch (IOException e) {
+            putQuietly(pending, CompletableFuture.failedFuture(new UncheckedIOException(e)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException ignored) {
+            // The writer failed and stopped the pool, so nothing is left to take the rest
+        }
+    }
+
+    private void submit(List<String> batch, BlockingQueue<Future<String>> pending, ExecutorService workers)
+            throws InterruptedException {
+        pending.put(workers.submit(() -> evaluate(batch)));
+    }
+
+    // A whole batch is formatted into one block, so there is no String per result line
+    private static String evaluate(List<String> lines) {
+        MathEngine session = MathEngine.newSession();
+        DoubleFormatter format = DoubleFormatter.shortest();
+        StringBuilder results = new StringBuilder(lines.size() * 24);
+
+        for (String expression : lines) {
+            if (!expression.isBlank()) {
+                try {
+                    session.setVariable("ans", 0.0);
+                    format.appendTo(results, session.calculate(expression.toLowerCase()));
+                } catch (Exception e) {
+                    results.append("Error");
+                }
+            }
+            results.append(NEWLINE);
+        }
+        return results.toString();
+    }
+
+    private static void closeQuietly(Reader input) {
+        try {
+            input.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static void putQuietly(BlockingQueue<Future<String>> pending, Future<String> item) {
+        try {
+            pending.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,29 +1,99 @@
 package core;
 
+import core.compiler.ColumnEvaluator;
+import core.compiler.CompiledExpression;
+import core.compiler.ExpressionCache;
+import core.compiler.ExpressionParser;
+import core.compiler.ExpressionSet;
+import core.compiler.ExpressionSetCompiler;
+import core.compiler.ParameterSweep;
+import core.dataset.Dataset;
 import core.lexer.Lexer;
+import core.optimizer.Optimizer;
 import core.parser.Parser;
-import core.evaluator.Evaluator;
 import core.token.Token;
-import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MathEngine {
-    private final Map<String, Double> variables = new HashMap<>();
-    private final List<Double> table = new ArrayList<>();
+    // One engine is one session: variables, ans and the dataset are private to it, while the
+    // compiled-expression cache and the operator tables are shared and never locked on a hit
+    private final Map<String, Double> variables = new ConcurrentHashMap<>();
+    private final Dataset table;
+    private final ExpressionCache cache;
 
+    private static final ExpressionCache SHARED_CACHE = new ExpressionCache();
     private static final MathEngine INSTANCE = new MathEngine();
 
     public MathEngine() {
+        this(SHARED_CACHE);
+    }
+
+    public MathEngine(ExpressionCache cache) {
+        this(cache, new Dataset());
+    }
+
+    // A session over a caller-chosen store, e.g. Dataset.offHeap(); the caller closes it
+    public MathEngine(ExpressionCache cache, Dataset table) {
+        this.cache = cache;
+        this.table = table;
         variables.put("ans", 0.0);
     }
 
+    // The session the GUI works in
     public static MathEngine getInstance() {
         return INSTANCE;
     }
 
+    public static MathEngine newSession() {
+        return new MathEngine();
+    }
+
     public double calculate(String expression) {
+        // Step 1: Lexing and parsing, skipped when the expression is already cached
+        CompiledExpression compiled = cache.get(expression, MathEngine::compileUncached);
+
+        // Step 2: Evaluating
+        double[] frame = compiled.newFrame();
+        compiled.bind(frame, variables);
+        double ans = compiled.evaluate(frame, table);
+        variables.put("ans", ans);
+
+        return ans;
+    }
+
+    public CompiledExpression compile(String expression) {
+        return cache.get(expression, MathEngine::compileUncached);
+    }
+
+    public void evaluateColumn(CompiledExpression compiled, Map<String, double[]> columns, double[] out) {
+        ColumnEvaluator.evaluate(compiled, columns, variables, table, out);
+    }
+
+    public ParameterSweep sweep(String expression) {
+        return new ParameterSweep(compile(expression)).variables(variables).table(table);
+    }
+
+    public ExpressionSet compileAll(List<String> expressions) {
+        List<List<Token>> postfixes = new ArrayList<>();
+        for (String expression : expressions) {
+            postfixes.add(parse(expression));
+        }
+        return new ExpressionSetCompiler(postfixes).compile();
+    }
+
+    public ExpressionCache getCache() {
+        return cache;
+    }
+
+    // The fused single-pass parser builds the same program as parse() + ExpressionCompiler
+    private static CompiledExpression compileUncached(String expression) {
+        return new ExpressionParser(expression).compile();
+    }
+
+    private static List<Token> parse(String expression) {
         // Step 1: Lexing
         Lexer lexer = new Lexer(expression);
         List<Token> tokens = lexer.tokenize();
@@ -32,11 +102,8 @@ public class MathEngine {
         Parser parser = new Parser(tokens);
         List<Token> postfix = parser.infixToPostfix();
 
-        // Step 3: Evaluating
-        double ans = Evaluator.evaluate(postfix, variables, table);
-        variables.put("ans", ans);
-
-        return ans;
+        // Step 3: Folding constants and identities
+        return new Optimizer(postfix).optimize();
     }
 
     public void setVariable(String name, double value) {
@@ -59,7 +126,7 @@ public class MathEngine {
         table.removeLast();
     }
 
-    public List<Double> getTable() {
+    public Dataset getTable() {
         return table;
     }
 
@@ -0,0 +1,132 @@
+package core.compiler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import core.dataset.ColumnView;
+import core.evaluator.Evaluator;
+import core.token.TokenType;
+
+// Runs a CompiledExpression over whole columns one operator at a time. Each instruction sweeps a
+// chunk of rows in a plain array loop, which HotSpot unrolls and vectorizes.
+public final class ColumnEvaluator {
+    static final int CHUNK = 1024;
+
+    private ColumnEvaluator() {}
+
+    public static void evaluate(CompiledExpression expr, Map<String, double[]> columns, double[] out) {
+        evaluate(expr, columns, Map.of(), null, out);
+    }
+
+    // Slots without a column fall back to a scalar from variables, broadcast to every row
+    public static void evaluate(CompiledExpression expr, Map<String, double[]> columns,
+                                Map<String, Double> variables, ColumnView table, double[] out) {
+        String[] slotNames = expr.getSlotNames();
+        double[][] slotColumns = new double[slotNames.length][];
+        double[] slotScalars = new double[slotNames.length];
+
+        for (int s = 0; s < slotNames.length; s++) {
+            double[] column = lookup(columns, slotNames[s]);
+            if (column != null && column.length < out.length) {
+                throw new IllegalArgumentException("Column '" + slotNames[s] + "' has " + column.length
+                    + " rows, expected at least " + out.length);
+            }
+            slotColumns[s] = column;
+            slotScalars[s] = variables.getOrDefault(slotNames[s], 0.0);
+        }
+
+        // Stat tokens do not depend on the row, so each one is computed once per call
+        TokenType[] statOps = expr.getStatOps();
+        double[] statValues = new double[statOps.length];
+        for (int i = 0; i < statOps.length; i++) {
+            statValues[i] = Evaluator.applyStatOp(statOps[i], table);
+        }
+
+        double[][] stack = new double[expr.getMaxStack()][CHUNK];
+        for (int from = 0; from < out.length; from += CHUNK) {
+            int n = Math.min(CHUNK, out.length - from);
+            runChunk(expr, slotColumns, slotScalars, statValues, stack, from, n);
+
+            if (expr.hasResult()) {
+                System.arraycopy(stack[0], 0, out, from, n);
+            } else {
+                Arrays.fill(out, from, from + n, 0.0);
+            }
+        }
+    }
+
+    private static void runChunk(CompiledExpression expr, double[][] slotColumns, double[] slotScalars,
+                                 double[] statValues, double[][] stack, int from, int n) {
+        double[] constants = expr.getConstants();
+        TokenType[] unaryTypes = expr.getUnaryTypes();
+        DoubleUnaryOperator[] unaryOps = expr.getUnaryOps();
+        DoubleBinaryOperator[] binaryOps = expr.getBinaryOps();
+        int sp = 0;
+
+        for (int ins : expr.getCode()) {
+            int arg = ins >>> CompiledExpression.OPCODE_BITS;
+            switch (ins & CompiledExpression.OPCODE_MASK) {
+                case CompiledExpression.CONST -> Arrays.fill(stack[sp++], 0, n, constants[arg]);
+                case CompiledExpression.LOAD -> {
+                    if (slotColumns[arg] != null) {
+                        System.arraycopy(slotColumns[arg], from, stack[sp++], 0, n);
+                    } else {
+                        Arrays.fill(stack[sp++], 0, n, slotScalars[arg]);
+                    }
+                }
+                case CompiledExpression.STAT -> Arrays.fill(stack[sp++], 0, n, statValues[arg]);
+                case CompiledExpression.NEG -> {
+                    double[] a = stack[sp - 1];
+                    for (int i = 0; i < n; i++) a[i] = -a[i];
+                }
+                case CompiledExpression.ADD -> {
+                    double[] b = stack[--sp], a = stack[sp - 1];
+                    for (int i = 0; i < n; i++) a[i] = a[i] + b[i];
+                }
+                case CompiledExpression.SUB -> {
+                    double[] b = stack[--sp], a = stack[sp - 1];
+                    for (int i = 0; i < n; i++) a[i] = a[i] - b[i];
+                }
+                case CompiledExpression.MUL -> {
+                    double[] b = stack[--sp], a = stack[sp - 1];
+                    for (int i = 0; i < n; i++) a[i] = a[i] * b[i];
+                }
+                case CompiledExpression.UNARY -> {
+                    double[] a = stack[sp - 1];
+                    if (unaryTypes[arg] == TokenType.SQUARE) {
+                        for (int i = 0; i < n; i++) a[i] = a[i] * a[i];
+                    } else if (unaryTypes[arg] == TokenType.RECIPROCAL) {
+                        for (int i = 0; i < n; i++) a[i] = 1 / a[i];
+                    } else {
+                        // Domain-checked operators run element-wise so their NaN rules stay in one place
+                        DoubleUnaryOperator op = unaryOps[arg];
+                        for (int i = 0; i < n; i++) a[i] = op.applyAsDouble(a[i]);
+                    }
+                }
+                case CompiledExpression.BINARY -> {
+                    double[] b = stack[--sp], a = stack[sp - 1];
+                    DoubleBinaryOperator op = binaryOps[arg];
+                    for (int i = 0; i < n; i++) a[i] = op.applyAsDouble(a[i], b[i]);
+                }
+                case CompiledExpression.SWAP -> {
+                    double[] top = stack[sp - 1];
+                    stack[sp - 1] = stack[sp - 2];
+                    stack[sp - 2] = top;
+                }
+                default -> throw new IllegalStateException("Unknown opcode: " + (ins & CompiledExpression.OPCODE_MASK));
+            }
+        }
+    }
+
+    private static double[] lookup(Map<String, double[]> columns, String slot) {
+        double[] column = columns.get(slot);
+        if (column != null) return column;
+
+        // Slot names are lower-cased by the compiler, column names may not be
+        for (Map.Entry<String, double[]> entry : columns.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(slot)) return entry.getValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,168 @@
+package core.compiler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import core.dataset.ColumnView;
+import core.evaluator.Evaluator;
+import core.token.TokenType;
+
+public final class CompiledExpression implements ExpressionKernel {
+    // Every instruction packs its opcode in the low byte and its operand in the rest
+    static final int CONST = 0;
+    static final int LOAD = 1;
+    static final int NEG = 2;
+    static final int ADD = 3;
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int UNARY = 6;
+    static final int BINARY = 7;
+    static final int STAT = 8;
+    static final int SWAP = 9;
+
+    static final int OPCODE_BITS = 8;
+    static final int OPCODE_MASK = 0xFF;
+
+    private final int[] code;
+    private final double[] constants;
+    private final String[] slotNames;
+    private final TokenType[] unaryTypes;
+    private final TokenType[] binaryTypes;
+    private final TokenType[] statOps;
+    private final DoubleUnaryOperator[] unaryOps;
+    private final DoubleBinaryOperator[] binaryOps;
+    private final int maxStack;
+    private final boolean hasResult;
+
+    // Second tier, installed by ExpressionJit once the expression gets hot
+    private volatile ExpressionKernel kernel;
+    private boolean promotionFailed = false;
+    // Racy on purpose: an approximate count is enough to decide when to promote
+    private int invocations = 0;
+
+    CompiledExpression(int[] code, double[] constants, String[] slotNames,
+                       TokenType[] unaryTypes, TokenType[] binaryTypes,
+                       TokenType[] statOps, int maxStack, boolean hasResult) {
+        this.code = code;
+        this.constants = constants;
+        this.slotNames = slotNames;
+        this.unaryTypes = unaryTypes;
+        this.binaryTypes = binaryTypes;
+        this.statOps = statOps;
+        this.maxStack = maxStack;
+        this.hasResult = hasResult;
+
+        this.unaryOps = new DoubleUnaryOperator[unaryTypes.length];
+        for (int i = 0; i < unaryTypes.length; i++) unaryOps[i] = Evaluator.getUnaryOp(unaryTypes[i]);
+        this.binaryOps = new DoubleBinaryOperator[binaryTypes.length];
+        for (int i = 0; i < binaryTypes.length; i++) binaryOps[i] = Evaluator.getBinaryOp(binaryTypes[i]);
+    }
+
+    public int getSlotCount() {
+        return slotNames.length;
+    }
+
+    public String[] getSlotNames() {
+        return slotNames.clone();
+    }
+
+    public int getSlot(String name) {
+        String key = name.toLowerCase();
+        for (int i = 0; i < slotNames.length; i++) {
+            if (slotNames[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // Variable slots come first, the rest of the frame is the operand stack
+    public int getFrameSize() {
+        return slotNames.length + maxStack;
+    }
+
+    public double[] newFrame() {
+        return new double[getFrameSize()];
+    }
+
+    public void bind(double[] slots, Map<String, Double> variables) {
+        for (int i = 0; i < slotNames.length; i++) {
+            slots[i] = variables.getOrDefault(slotNames[i], 0.0);
+        }
+    }
+
+    public boolean isPromoted() {
+        return kernel != null;
+    }
+
+    public double evaluate(double[] slots) {
+        return evaluate(slots, null);
+    }
+
+    @Override
+    public double evaluate(double[] slots, ColumnView table) {
+        if (slots.length < getFrameSize()) {
+            throw new IllegalArgumentException("Frame too small: " + slots.length + " < " + getFrameSize());
+        }
+
+        ExpressionKernel promoted = kernel;
+        if (promoted != null) return promoted.evaluate(slots, table);
+
+        if (!promotionFailed && ExpressionJit.isEnabled() && ++invocations >= ExpressionJit.getThreshold()) {
+            promote();
+        }
+        return interpret(slots, table);
+    }
+
+    double interpret(double[] slots, ColumnView table) {
+        int sp = slotNames.length;
+        for (int ins : code) {
+            int arg = ins >>> OPCODE_BITS;
+            switch (ins & OPCODE_MASK) {
+                case CONST -> slots[sp++] = constants[arg];
+                case LOAD -> slots[sp++] = slots[arg];
+                case NEG -> slots[sp - 1] = -slots[sp - 1];
+                case ADD -> { sp--; slots[sp - 1] = slots[sp - 1] + slots[sp]; }
+                case SUB -> { sp--; slots[sp - 1] = slots[sp - 1] - slots[sp]; }
+                case MUL -> { sp--; slots[sp - 1] = slots[sp - 1] * slots[sp]; }
+                case UNARY -> slots[sp - 1] = unaryOps[arg].applyAsDouble(slots[sp - 1]);
+                case BINARY -> { sp--; slots[sp - 1] = binaryOps[arg].applyAsDouble(slots[sp - 1], slots[sp]); }
+                case STAT -> slots[sp++] = Evaluator.applyStatOp(statOps[arg], table);
+                case SWAP -> {
+                    double top = slots[sp - 1];
+                    slots[sp - 1] = slots[sp - 2];
+                    slots[sp - 2] = top;
+                }
+                default -> throw new IllegalStateException("Unknown opcode: " + (ins & OPCODE_MASK));
+            }
+        }
+
+        // Like Evaluator, the answer is the bottom of the stack
+        return hasResult ? slots[slotNames.length] : 0.0;
+    }
+
+    private synchronized void promote() {
+        if (kernel != null || promotionFailed) return;
+        try {
+            kernel = ExpressionJit.compile(this);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            // Expressions the generator cannot handle (e.g. too large for one method) stay interpreted
+            promotionFailed = true;
+        }
+    }
+
+    int[] getCode() { return code; }
+    double[] getConstants() { return constants; }
+    TokenType[] getUnaryTypes() { return unaryTypes; }
+    TokenType[] getBinaryTypes() { return binaryTypes; }
+    TokenType[] getStatOps() { return statOps; }
+    DoubleUnaryOperator[] getUnaryOps() { return unaryOps; }
+    DoubleBinaryOperator[] getBinaryOps() { return binaryOps; }
+    int getMaxStack() { return maxStack; }
+    boolean hasResult() { return hasResult; }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression[slots=" + Arrays.toString(slotNames) + ", ops=" + code.length
+            + (isPromoted() ? ", jit" : "") + "]";
+    }
+}
@@ -0,0 +1,136 @@
+package core.compiler;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Shared by every engine session, so hits must not take a lock. Eviction uses the CLOCK
+// approximation of LRU: a hit only sets a flag on its entry, and the eviction hand (which
+// runs on misses, under a lock) gives flagged entries a second chance before dropping them.
+public class ExpressionCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private final Object evictionLock = new Object();
+    private volatile int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Entry {
+        final String key;
+        final CompiledExpression compiled;
+        volatile boolean referenced = false;
+
+        Entry(String key, CompiledExpression compiled) {
+            this.key = key;
+            this.compiled = compiled;
+        }
+    }
+
+    public ExpressionCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ExpressionCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        this.capacity = capacity;
+    }
+
+    public CompiledExpression get(String expression, Function<String, CompiledExpression> compiler) {
+        String key = normalize(expression);
+
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            // Skip the write when the flag is already set so hot entries do not bounce between cores
+            if (!cached.referenced) cached.referenced = true;
+            hits.increment();
+            return cached.compiled;
+        }
+        misses.increment();
+
+        // Compile outside the lock so a slow miss does not stall other threads
+        Entry created = new Entry(key, compiler.apply(key));
+
+        synchronized (evictionLock) {
+            Entry raced = entries.putIfAbsent(key, created);
+            if (raced != null) return raced.compiled;
+
+            clock.addLast(created);
+            evictDownTo(capacity);
+        }
+        return created.compiled;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        synchronized (evictionLock) {
+            this.capacity = capacity;
+            evictDownTo(capacity);
+        }
+    }
+
+    private void evictDownTo(int limit) {
+        while (clock.size() > limit) {
+            Entry candidate = clock.pollFirst();
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                clock.addLast(candidate);
+            } else {
+                entries.remove(candidate.key, candidate);
+                evictions.increment();
+            }
+        }
+    }
+
+    public int getCapacity() { return capacity; }
+    public int size() { return entries.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    public void clear() {
+        synchronized (evictionLock) {
+            entries.clear();
+            clock.clear();
+        }
+    }
+
+    // Whitespace only matters to the Lexer when it separates two word or number characters ("2 3", "x y")
+    public static String normalize(String expression) {
+        String trimmed = expression.strip();
+        StringBuilder sb = null;
+
+        for (int i = 0; i < trimmed.length(); i++) {
+            char ch = trimmed.charAt(i);
+            if (!Character.isWhitespace(ch)) {
+                if (sb != null) sb.append(ch);
+                continue;
+            }
+
+            if (sb == null) sb = new StringBuilder(trimmed.length()).append(trimmed, 0, i);
+
+            int next = i;
+            while (next < trimmed.length() && Character.isWhitespace(trimmed.charAt(next))) next++;
+            if (isWordChar(trimmed.charAt(i - 1)) && isWordChar(trimmed.charAt(next))) {
+                sb.append(' ');
+            }
+            i = next - 1;
+        }
+
+        return sb == null ? trimmed : sb.toString();
+    }
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '.';
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionCache[size=" + size() + "/" + capacity
+            + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+    }
+}
@@ -0,0 +1,104 @@
+package core.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import core.evaluator.Evaluator;
+import core.token.Token;
+import core.token.TokenType;
+
+public class ExpressionCompiler {
+    private final List<Token> postfix;
+
+    private int[] code = new int[16];
+    private int size = 0;
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    private final List<Double> constants = new ArrayList<>();
+    private final List<String> slots = new ArrayList<>();
+    private final List<TokenType> unaryOps = new ArrayList<>();
+    private final List<TokenType> binaryOps = new ArrayList<>();
+    private final List<TokenType> statOps = new ArrayList<>();
+
+    public ExpressionCompiler(List<Token> postfix) {
+        this.postfix = postfix;
+    }
+
+    public CompiledExpression compile() {
+        for (Token token : postfix) {
+            TokenType type = token.getType();
+
+            if (type == TokenType.NUMBER) {
+                emit(CompiledExpression.CONST, indexOf(constants, token.getNumber()), 1);
+            }
+            else if (type == TokenType.IDENTIFIER) {
+                emit(CompiledExpression.LOAD, indexOf(slots, token.getValue().toLowerCase()), 1);
+            }
+            else if (Evaluator.getUnaryOp(type) != null) {
+                reserveOperands(1);
+                if (type == TokenType.UNARY_MINUS) {
+                    emit(CompiledExpression.NEG, 0, 0);
+                } else {
+                    emit(CompiledExpression.UNARY, indexOf(unaryOps, type), 0);
+                }
+            }
+            else if (Evaluator.getBinaryOp(type) != null) {
+                reserveOperands(2);
+                switch (type) {
+                    case PLUS -> emit(CompiledExpression.ADD, 0, -1);
+                    case MINUS -> emit(CompiledExpression.SUB, 0, -1);
+                    case MULTIPLY -> emit(CompiledExpression.MUL, 0, -1);
+                    default -> emit(CompiledExpression.BINARY, indexOf(binaryOps, type), -1);
+                }
+            }
+            else if (Evaluator.isStatOp(type)) {
+                emit(CompiledExpression.STAT, indexOf(statOps, type), 1);
+            }
+        }
+
+        double[] constantPool = new double[constants.size()];
+        for (int i = 0; i < constantPool.length; i++) constantPool[i] = constants.get(i);
+
+        return new CompiledExpression(
+            Arrays.copyOf(code, size),
+            constantPool,
+            slots.toArray(new String[0]),
+            unaryOps.toArray(new TokenType[0]),
+            binaryOps.toArray(new TokenType[0]),
+            statOps.toArray(new TokenType[0]),
+            maxDepth,
+            depth > 0);
+    }
+
+    // Evaluator pops 0.0 from an empty stack; resolve those operands here instead of at run time
+    private void reserveOperands(int arity) {
+        int missing = arity - depth;
+        if (missing <= 0) return;
+
+        int zero = indexOf(constants, 0.0);
+        for (int i = 0; i < missing; i++) {
+            emit(CompiledExpression.CONST, zero, 1);
+        }
+        // The zero has to sit below the operand that is already on the stack
+        if (missing < arity) {
+            emit(CompiledExpression.SWAP, 0, 0);
+        }
+    }
+
+    private void emit(int opcode, int operand, int stackEffect) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = (operand << CompiledExpression.OPCODE_BITS) | opcode;
+        depth += stackEffect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private static <T> int indexOf(List<T> pool, T value) {
+        int idx = pool.indexOf(value);
+        if (idx >= 0) return idx;
+        pool.add(value);
+        return pool.size() - 1;
+    }
+}
@@ -0,0 +1,439 @@
+package core.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import core.token.TokenType;
+
+// Translates a CompiledExpression into a hidden class whose evaluate method is straight-line double
+// arithmetic, so HotSpot can inline the whole expression into its caller.
+public final class ExpressionJit {
+    private static volatile boolean enabled = !Boolean.getBoolean("core.jit.disabled");
+    private static volatile int threshold = Integer.getInteger("core.jit.threshold", 10_000);
+
+    // Operators that Evaluator maps straight onto java.lang.Math are called directly
+    private static final Map<TokenType, String> MATH_CALLS = new EnumMap<>(TokenType.class);
+
+    static {
+        MATH_CALLS.put(TokenType.SIN, "sin");
+        MATH_CALLS.put(TokenType.COS, "cos");
+        MATH_CALLS.put(TokenType.ATAN, "atan");
+        MATH_CALLS.put(TokenType.ABS, "abs");
+        MATH_CALLS.put(TokenType.SINH, "sinh");
+        MATH_CALLS.put(TokenType.COSH, "cosh");
+        MATH_CALLS.put(TokenType.TANH, "tanh");
+        MATH_CALLS.put(TokenType.EXP, "exp");
+    }
+
+    private static final String CLASS_NAME = "core/compiler/GeneratedKernel";
+    private static final String KERNEL = "core/compiler/ExpressionKernel";
+    private static final String UNARY = "java/util/function/DoubleUnaryOperator";
+    private static final String BINARY = "java/util/function/DoubleBinaryOperator";
+    private static final String TOKEN_TYPE = "core/token/TokenType";
+    private static final String UNARY_DESC = "[L" + UNARY + ";";
+    private static final String BINARY_DESC = "[L" + BINARY + ";";
+    private static final String STAT_DESC = "[L" + TOKEN_TYPE + ";";
+    private static final String COLUMN_DESC = "Lcore/dataset/ColumnView;";
+
+    // Locals of the generated evaluate method: this, slots, table, then two double temporaries
+    private static final int LOCAL_A = 3;
+    private static final int LOCAL_B = 5;
+
+    private ExpressionJit() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean value) {
+        enabled = value;
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    public static void setThreshold(int invocations) {
+        if (invocations < 1) throw new IllegalArgumentException("JIT threshold must be positive: " + invocations);
+        threshold = invocations;
+    }
+
+    public static ExpressionKernel compile(CompiledExpression expr) throws ReflectiveOperationException {
+        byte[] bytes = generate(expr);
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+        try {
+            return (ExpressionKernel) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, DoubleUnaryOperator[].class,
+                        DoubleBinaryOperator[].class, TokenType[].class))
+                .invoke(expr.getUnaryOps(), expr.getBinaryOps(), expr.getStatOps());
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static byte[] generate(CompiledExpression expr) {
+        try {
+            return new ClassBuilder(expr).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class ClassBuilder {
+        private final CompiledExpression expr;
+        private final ConstantPool pool = new ConstantPool();
+
+        ClassBuilder(CompiledExpression expr) {
+            this.expr = expr;
+        }
+
+        byte[] build() throws IOException {
+            byte[] init = constructorCode();
+            byte[] body = evaluateCode();
+            if (body.length > 0xFFFF) throw new IllegalStateException("Expression too large to compile: " + body.length + " bytes");
+
+            int thisClass = pool.classRef(CLASS_NAME);
+            int superClass = pool.classRef("java/lang/Object");
+            int iface = pool.classRef(KERNEL);
+            int codeAttr = pool.utf8("Code");
+
+            // Everything after the constant pool is laid out first so that it can still add pool entries
+            ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bodyBytes);
+            out.writeShort(0x0031); // public final super
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(iface);
+
+            out.writeShort(3);
+            writeField(out, "u", UNARY_DESC);
+            writeField(out, "b", BINARY_DESC);
+            writeField(out, "s", STAT_DESC);
+
+            out.writeShort(2);
+            writeMethod(out, codeAttr, "<init>", "(" + UNARY_DESC + BINARY_DESC + STAT_DESC + ")V", init, 2, 4);
+            writeMethod(out, codeAttr, "evaluate", "([D" + COLUMN_DESC + ")D", body, 2 * expr.getMaxStack() + 4, 7);
+
+            out.writeShort(0);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream file = new DataOutputStream(bytes);
+            file.writeInt(0xCAFEBABE);
+            file.writeShort(0);
+            file.writeShort(61);
+            pool.writeTo(file);
+            bodyBytes.writeTo(file);
+            file.flush();
+            return bytes.toByteArray();
+        }
+
+        private void writeField(DataOutputStream out, String name, String desc) throws IOException {
+            out.writeShort(0x0012); // private final
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(desc));
+            out.writeShort(0);
+        }
+
+        private void writeMethod(DataOutputStream out, int codeAttr, String name, String desc,
+                                 byte[] code, int maxStack, int maxLocals) throws IOException {
+            out.writeShort(0x0001); // public
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(desc));
+            out.writeShort(1);
+            out.writeShort(codeAttr);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private byte[] constructorCode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+
+            code.writeByte(Op.ALOAD_0);
+            code.writeByte(Op.INVOKESPECIAL);
+            code.writeShort(pool.methodRef("java/lang/Object", "<init>", "()V"));
+
+            String[][] fields = {{"u", UNARY_DESC}, {"b", BINARY_DESC}, {"s", STAT_DESC}};
+            for (int i = 0; i < fields.length; i++) {
+                code.writeByte(Op.ALOAD_0);
+                code.writeByte(Op.ALOAD_1 + i);
+                code.writeByte(Op.PUTFIELD);
+                code.writeShort(pool.fieldRef(CLASS_NAME, fields[i][0], fields[i][1]));
+            }
+            code.writeByte(Op.RETURN);
+            return bytes.toByteArray();
+        }
+
+        private byte[] evaluateCode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream code = new DataOutputStream(bytes);
+            double[] constants = expr.getConstants();
+            TokenType[] unaryTypes = expr.getUnaryTypes();
+            int depth = 0;
+
+            for (int ins : expr.getCode()) {
+                int arg = ins >>> CompiledExpression.OPCODE_BITS;
+                switch (ins & CompiledExpression.OPCODE_MASK) {
+                    case CompiledExpression.CONST -> {
+                        pushDouble(code, constants[arg]);
+                        depth++;
+                    }
+                    case CompiledExpression.LOAD -> {
+                        code.writeByte(Op.ALOAD_1);
+                        pushInt(code, arg);
+                        code.writeByte(Op.DALOAD);
+                        depth++;
+                    }
+                    case CompiledExpression.NEG -> code.writeByte(Op.DNEG);
+                    case CompiledExpression.ADD -> { code.writeByte(Op.DADD); depth--; }
+                    case CompiledExpression.SUB -> { code.writeByte(Op.DSUB); depth--; }
+                    case CompiledExpression.MUL -> { code.writeByte(Op.DMUL); depth--; }
+                    case CompiledExpression.UNARY -> {
+                        String method = MATH_CALLS.get(unaryTypes[arg]);
+                        if (unaryTypes[arg] == TokenType.SQUARE) {
+                            code.writeByte(Op.DUP2);
+                            code.writeByte(Op.DMUL);
+                        } else if (unaryTypes[arg] == TokenType.RECIPROCAL) {
+                            code.writeByte(Op.DSTORE);
+                            code.writeByte(LOCAL_A);
+                            code.writeByte(Op.DCONST_1);
+                            code.writeByte(Op.DLOAD);
+                            code.writeByte(LOCAL_A);
+                            code.writeByte(Op.DDIV);
+                        } else if (method != null) {
+                            code.writeByte(Op.INVOKESTATIC);
+                            code.writeShort(pool.methodRef("java/lang/Math", method, "(D)D"));
+                        } else {
+                            code.writeByte(Op.DSTORE);
+                            code.writeByte(LOCAL_A);
+                            loadElement(code, "u", UNARY_DESC, arg);
+                            code.writeByte(Op.DLOAD);
+                            code.writeByte(LOCAL_A);
+                            code.writeByte(Op.INVOKEINTERFACE);
+                            code.writeShort(pool.interfaceMethodRef(UNARY, "applyAsDouble", "(D)D"));
+                            code.writeByte(3);
+                            code.writeByte(0);
+                        }
+                    }
+                    case CompiledExpression.BINARY -> {
+                        code.writeByte(Op.DSTORE);
+                        code.writeByte(LOCAL_B);
+                        code.writeByte(Op.DSTORE);
+                        code.writeByte(LOCAL_A);
+                        loadElement(code, "b", BINARY_DESC, arg);
+                        code.writeByte(Op.DLOAD);
+                        code.writeByte(LOCAL_A);
+                        code.writeByte(Op.DLOAD);
+                        code.writeByte(LOCAL_B);
+                        code.writeByte(Op.INVOKEINTERFACE);
+                        code.writeShort(pool.interfaceMethodRef(BINARY, "applyAsDouble", "(DD)D"));
+                        code.writeByte(5);
+                        code.writeByte(0);
+                        depth--;
+                    }
+                    case CompiledExpression.STAT -> {
+                        loadElement(code, "s", STAT_DESC, arg);
+                        code.writeByte(Op.ALOAD_2);
+                        code.writeByte(Op.INVOKESTATIC);
+                        code.writeShort(pool.methodRef("core/evaluator/Evaluator", "applyStatOp",
+                            "(L" + TOKEN_TYPE + ";" + COLUMN_DESC + ")D"));
+                        depth++;
+                    }
+                    case CompiledExpression.SWAP -> {
+                        code.writeByte(Op.DUP2_X2);
+                        code.writeByte(Op.POP2);
+                    }
+                    default -> throw new IllegalStateException("Unknown opcode: " + (ins & CompiledExpression.OPCODE_MASK));
+                }
+            }
+
+            // The answer is the bottom of the stack, so drop everything above it
+            if (depth == 0) {
+                code.writeByte(Op.DCONST_0);
+            }
+            for (int i = 1; i < depth; i++) {
+                code.writeByte(Op.POP2);
+            }
+            code.writeByte(Op.DRETURN);
+            return bytes.toByteArray();
+        }
+
+        private void loadElement(DataOutputStream code, String field, String desc, int index) throws IOException {
+            code.writeByte(Op.ALOAD_0);
+            code.writeByte(Op.GETFIELD);
+            code.writeShort(pool.fieldRef(CLASS_NAME, field, desc));
+            pushInt(code, index);
+            code.writeByte(Op.AALOAD);
+        }
+
+        private void pushInt(DataOutputStream code, int value) throws IOException {
+            if (value <= 5) {
+                code.writeByte(Op.ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                code.writeByte(Op.BIPUSH);
+                code.writeByte(value);
+            } else if (value <= Short.MAX_VALUE) {
+                code.writeByte(Op.SIPUSH);
+                code.writeShort(value);
+            } else {
+                code.writeByte(Op.LDC_W);
+                code.writeShort(pool.integer(value));
+            }
+        }
+
+        private void pushDouble(DataOutputStream code, double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            if (bits == Double.doubleToRawLongBits(0.0)) {
+                code.writeByte(Op.DCONST_0);
+            } else if (bits == Double.doubleToRawLongBits(1.0)) {
+                code.writeByte(Op.DCONST_1);
+            } else {
+                code.writeByte(Op.LDC2_W);
+                code.writeShort(pool.doubleConst(value));
+            }
+        }
+    }
+
+    private static final class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> index = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) throws IOException {
+            Integer idx = index.get("U" + value);
+            if (idx != null) return idx;
+            out.writeByte(1);
+            out.writeUTF(value);
+            return register("U" + value, 1);
+        }
+
+        int integer(int value) throws IOException {
+            Integer idx = index.get("I" + value);
+            if (idx != null) return idx;
+            out.writeByte(3);
+            out.writeInt(value);
+            return register("I" + value, 1);
+        }
+
+        int doubleConst(double value) throws IOException {
+            long bits = Double.doubleToRawLongBits(value);
+            Integer idx = index.get("D" + bits);
+            if (idx != null) return idx;
+            out.writeByte(6);
+            out.writeLong(bits);
+            // Long and double entries take up two constant pool slots
+            return register("D" + bits, 2);
+        }
+
+        int classRef(String name) throws IOException {
+            Integer idx = index.get("C" + name);
+            if (idx != null) return idx;
+            int nameIdx = utf8(name);
+            out.writeByte(7);
+            out.writeShort(nameIdx);
+            return register("C" + name, 1);
+        }
+
+        int fieldRef(String owner, String name, String desc) throws IOException {
+            return memberRef(9, owner, name, desc);
+        }
+
+        int methodRef(String owner, String name, String desc) throws IOException {
+            return memberRef(10, owner, name, desc);
+        }
+
+        int interfaceMethodRef(String owner, String name, String desc) throws IOException {
+            return memberRef(11, owner, name, desc);
+        }
+
+        private int memberRef(int tag, String owner, String name, String desc) throws IOException {
+            String key = "M" + tag + owner + "." + name + desc;
+            Integer idx = index.get(key);
+            if (idx != null) return idx;
+
+            int ownerIdx = classRef(owner);
+            int natIdx = nameAndType(name, desc);
+            out.writeByte(tag);
+            out.writeShort(ownerIdx);
+            out.writeShort(natIdx);
+            return register(key, 1);
+        }
+
+        private int nameAndType(String name, String desc) throws IOException {
+            String key = "N" + name + desc;
+            Integer idx = index.get(key);
+            if (idx != null) return idx;
+
+            int nameIdx = utf8(name);
+            int descIdx = utf8(desc);
+            out.writeByte(12);
+            out.writeShort(nameIdx);
+            out.writeShort(descIdx);
+            return register(key, 1);
+        }
+
+        private int register(String key, int width) {
+            int idx = count;
+            count += width;
+            if (count > 0xFFFF) throw new IllegalStateException("Constant pool overflow");
+            index.put(key, idx);
+            return idx;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            out.flush();
+            bytes.writeTo(target);
+        }
+    }
+
+    private static final class Op {
+        static final int ICONST_0 = 0x03;
+        static final int DCONST_0 = 0x0e;
+        static final int DCONST_1 = 0x0f;
+        static final int BIPUSH = 0x10;
+        static final int SIPUSH = 0x11;
+        static final int LDC_W = 0x13;
+        static final int LDC2_W = 0x14;
+        static final int DLOAD = 0x18;
+        static final int ALOAD_0 = 0x2a;
+        static final int ALOAD_1 = 0x2b;
+        static final int ALOAD_2 = 0x2c;
+        static final int DALOAD = 0x31;
+        static final int AALOAD = 0x32;
+        static final int DSTORE = 0x39;
+        static final int POP2 = 0x58;
+        static final int DUP2 = 0x5c;
+        static final int DUP2_X2 = 0x5e;
+        static final int DADD = 0x63;
+        static final int DSUB = 0x67;
+        static final int DMUL = 0x6b;
+        static final int DDIV = 0x6f;
+        static final int DNEG = 0x77;
+        static final int DRETURN = 0xaf;
+        static final int RETURN = 0xb1;
+        static final int GETFIELD = 0xb4;
+        static final int PUTFIELD = 0xb5;
+        static final int INVOKESPECIAL = 0xb7;
+        static final int INVOKESTATIC = 0xb8;
+        static final int INVOKEINTERFACE = 0xb9;
+    }
+}
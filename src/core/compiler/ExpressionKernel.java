@@ -0,0 +1,8 @@
+package core.compiler;
+
+import core.dataset.ColumnView;
+
+@FunctionalInterface
+public interface ExpressionKernel {
+    double evaluate(double[] slots, ColumnView table);
+}
@@ -0,0 +1,490 @@
+package core.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import core.evaluator.Evaluator;
+import core.lexer.Lexer;
+import core.text.FastDoubleParser;
+import core.token.TokenType;
+
+// Lexer, Parser, Optimizer and ExpressionCompiler fused into a single pass over the characters.
+// No Token objects are created: the scanner hands the shunting-yard a type plus offsets, and each
+// operator is folded or simplified the moment it is emitted. The program is the same one the
+// four stages produce, so either path gives bit-for-bit identical results.
+public class ExpressionParser {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final Set<TokenType> FUNCTIONS = EnumSet.noneOf(TokenType.class);
+    private static final Set<TokenType> STAT_OPS = EnumSet.noneOf(TokenType.class);
+
+    // Keywords and constants live in a perfect hash table: one probe, one comparison
+    private static final Keyword[] KEYWORD_TABLE;
+    private static final int KEYWORD_SEED;
+    private static final int KEYWORD_SHIFT;
+
+    private record Keyword(String word, TokenType type, double value) {}
+
+    static {
+        FUNCTIONS.addAll(Lexer.KEYWORDS.values());
+        STAT_OPS.addAll(Lexer.STAT_KEYWORDS.values());
+
+        List<Keyword> keywords = new ArrayList<>();
+        for (Map.Entry<String, TokenType> entry : Lexer.KEYWORDS.entrySet()) {
+            keywords.add(new Keyword(entry.getKey(), entry.getValue(), 0));
+        }
+        for (Map.Entry<String, TokenType> entry : Lexer.STAT_KEYWORDS.entrySet()) {
+            keywords.add(new Keyword(entry.getKey(), entry.getValue(), 0));
+        }
+        for (Map.Entry<String, Double> entry : Lexer.CONSTANTS.entrySet()) {
+            keywords.add(new Keyword(entry.getKey(), TokenType.NUMBER, entry.getValue()));
+        }
+
+        // Search for a multiplier that spreads the String hashes without collisions
+        Keyword[] table = null;
+        int seed = 0;
+        int bits = 32 - Integer.numberOfLeadingZeros(keywords.size());
+        while (table == null) {
+            bits++;
+            for (int attempt = 0; attempt < 1 << 16 && table == null; attempt++) {
+                seed = (attempt * 0x9E3779B9) | 1;
+                table = place(keywords, seed, 32 - bits);
+            }
+        }
+        KEYWORD_TABLE = table;
+        KEYWORD_SEED = seed;
+        KEYWORD_SHIFT = 32 - bits;
+    }
+
+    private static Keyword[] place(List<Keyword> keywords, int seed, int shift) {
+        Keyword[] table = new Keyword[1 << (32 - shift)];
+        for (Keyword keyword : keywords) {
+            int slot = (keyword.word().hashCode() * seed) >>> shift;
+            if (table[slot] != null) return null;
+            table[slot] = keyword;
+        }
+        return table;
+    }
+
+    private final CharSequence input;
+    private int pos = 0;
+
+    // The token just scanned
+    private TokenType type;
+    private double number;
+    private int start;
+    private int end;
+
+    private TokenType[] ops = new TokenType[8];
+    private int opCount = 0;
+
+    // Code is emitted with raw operands (literal, name index or TokenType ordinal) and pooled at the end
+    private int[] code = new int[16];
+    private double[] literals = new double[16];
+    private int size = 0;
+    private final List<String> names = new ArrayList<>();
+
+    // Where the code of each value on the operand stack begins
+    private int[] operands = new int[8];
+    private int depth = 0;
+
+    public ExpressionParser(CharSequence input) {
+        this.input = input;
+    }
+
+    public CompiledExpression compile() {
+        TokenType last = null;
+
+        while (nextToken(last)) {
+            if (last != null && isImplicitMultNeeded(last, type)) {
+                handleOperator(TokenType.MULTIPLY);
+            }
+
+            if (type == TokenType.NUMBER) {
+                constant(number);
+            }
+            else if (type == TokenType.IDENTIFIER) {
+                push(size);
+                append(CompiledExpression.LOAD, nameIndex(), 0);
+            }
+            else if (type == TokenType.POSTFIX) {
+                // Parser treats '!' as an operand, so it applies to whatever is on top right now
+                emitOperator(TokenType.POSTFIX);
+            }
+            else if (STAT_OPS.contains(type)) {
+                push(size);
+                append(CompiledExpression.STAT, type.ordinal(), 0);
+            }
+            else if (FUNCTIONS.contains(type) || type == TokenType.LPAREN) {
+                pushOperator(type);
+            }
+            else if (type == TokenType.RPAREN) {
+                handleParentheses();
+            }
+            else {
+                handleOperator(type);
+            }
+
+            last = type;
+        }
+
+        while (opCount > 0) {
+            emitOperator(ops[--opCount]);
+        }
+
+        // Evaluator answers with the bottom of the stack; anything above it has no effect
+        if (depth > 1) size = operands[1];
+
+        return link();
+    }
+
+    // ---- Scanning ----
+
+    private boolean nextToken(TokenType last) {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) pos++;
+        if (pos >= input.length()) return false;
+
+        char ch = input.charAt(pos);
+        if (Character.isDigit(ch) || ch == '.') {
+            readNumber();
+        } else if (Character.isLetter(ch)) {
+            readIdentifier();
+        } else {
+            pos++;
+            type = switch (ch) {
+                case '+' -> TokenType.PLUS;
+                case '-' -> (last == null || isPreviousOperator(last)) ? TokenType.UNARY_MINUS : TokenType.MINUS;
+                case '*' -> TokenType.MULTIPLY;
+                case '/' -> TokenType.DIVIDE;
+                case '^' -> TokenType.POWER;
+                case '!' -> TokenType.POSTFIX;
+                case '%' -> TokenType.MODULO;
+                case '(' -> TokenType.LPAREN;
+                case ')' -> TokenType.RPAREN;
+                default -> throw new IllegalArgumentException("Unknown character: " + ch + " at position " + (pos - 1));
+            };
+        }
+        return true;
+    }
+
+    private void readNumber() {
+        start = pos;
+        while (pos < input.length() && Character.isDigit(input.charAt(pos))) pos++;
+        if (pos < input.length() && input.charAt(pos) == '.') {
+            pos++;
+            while (pos < input.length() && Character.isDigit(input.charAt(pos))) pos++;
+        }
+        end = pos;
+        type = TokenType.NUMBER;
+        number = FastDoubleParser.parseDouble(input, start, end);
+    }
+
+    private void readIdentifier() {
+        start = pos;
+        int hash = 0;
+        while (pos < input.length() && Character.isLetter(input.charAt(pos))) {
+            hash = 31 * hash + input.charAt(pos++);
+        }
+        end = pos;
+
+        Keyword keyword = KEYWORD_TABLE[(hash * KEYWORD_SEED) >>> KEYWORD_SHIFT];
+        if (keyword != null && matches(keyword.word())) {
+            type = keyword.type();
+            number = keyword.value();
+        } else {
+            type = TokenType.IDENTIFIER;
+        }
+    }
+
+    private boolean matches(String word) {
+        if (word.length() != end - start) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) != input.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    // Slot names are lowercased like ExpressionCompiler does; the String is only built on first sight
+    private int nameIndex() {
+        for (int i = 0; i < names.size(); i++) {
+            if (matches(names.get(i))) return i;
+        }
+        String name = input.subSequence(start, end).toString().toLowerCase();
+        int idx = names.indexOf(name);
+        if (idx >= 0) return idx;
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    // ---- Shunting-yard, as in Parser ----
+
+    private void handleOperator(TokenType current) {
+        while (opCount > 0 && shouldPop(current, ops[opCount - 1])) {
+            emitOperator(ops[--opCount]);
+        }
+        pushOperator(current);
+    }
+
+    private void handleParentheses() {
+        while (opCount > 0 && ops[opCount - 1] != TokenType.LPAREN) {
+            emitOperator(ops[--opCount]);
+        }
+
+        if (opCount > 0) {
+            opCount--;
+        }
+
+        if (opCount > 0 && FUNCTIONS.contains(ops[opCount - 1])) {
+            emitOperator(ops[--opCount]);
+        }
+    }
+
+    private void pushOperator(TokenType op) {
+        if (opCount == ops.length) ops = Arrays.copyOf(ops, opCount * 2);
+        ops[opCount++] = op;
+    }
+
+    private static boolean isImplicitMultNeeded(TokenType l, TokenType c) {
+        if ((l == TokenType.NUMBER || l == TokenType.IDENTIFIER || l == TokenType.POSTFIX) &&
+            (c == TokenType.LPAREN || FUNCTIONS.contains(c) || c == TokenType.IDENTIFIER || c == TokenType.NUMBER)) {
+            return true;
+        }
+
+        return l == TokenType.RPAREN &&
+            (c == TokenType.LPAREN || c == TokenType.NUMBER || c == TokenType.IDENTIFIER || FUNCTIONS.contains(c));
+    }
+
+    private static boolean isPreviousOperator(TokenType last) {
+        return last == TokenType.PLUS || last == TokenType.MINUS ||
+               last == TokenType.MULTIPLY || last == TokenType.DIVIDE ||
+               last == TokenType.POWER || last == TokenType.LPAREN ||
+               last == TokenType.UNARY_MINUS;
+    }
+
+    private static boolean shouldPop(TokenType current, TokenType top) {
+        if (top == TokenType.LPAREN || current == TokenType.UNARY_MINUS) return false;
+
+        int p1 = getPrecedence(current);
+        int p2 = getPrecedence(top);
+
+        if (current == TokenType.POWER) {
+            return p1 < p2;
+        }
+        return p1 <= p2;
+    }
+
+    private static int getPrecedence(TokenType type) {
+        return switch (type) {
+            case POSTFIX -> 6;
+            case POWER -> 5;
+            case UNARY_MINUS -> 4;
+            case MULTIPLY, DIVIDE, MODULO -> 3;
+            case PLUS, MINUS -> 1;
+            default -> 0;
+        };
+    }
+
+    // ---- Emission, with the Optimizer's folds applied on the fly ----
+
+    private void emitOperator(TokenType op) {
+        if (Evaluator.getUnaryOp(op) != null) {
+            emitUnary(op);
+        } else if (Evaluator.getBinaryOp(op) != null) {
+            emitBinary(op);
+        }
+        // A '(' left open at the end is dropped, as Evaluator ignores it
+    }
+
+    private void emitUnary(TokenType op) {
+        reserveOperands(1);
+        int a = operands[depth - 1];
+
+        if (isConstant(a, size)) {
+            double value = Evaluator.getUnaryOp(op).applyAsDouble(literals[a]);
+            size = a;
+            depth--;
+            constant(value);
+        } else if (op == TokenType.UNARY_MINUS && opcode(size - 1) == CompiledExpression.NEG) {
+            // --x
+            size--;
+        } else if (op == TokenType.UNARY_MINUS) {
+            append(CompiledExpression.NEG, 0, 0);
+        } else {
+            append(CompiledExpression.UNARY, op.ordinal(), 0);
+        }
+    }
+
+    private void emitBinary(TokenType op) {
+        reserveOperands(2);
+        int a = operands[depth - 2];
+        int b = operands[depth - 1];
+        boolean constA = isConstant(a, b);
+        boolean constB = isConstant(b, size);
+
+        if (constA && constB) {
+            double value = Evaluator.getBinaryOp(op).applyAsDouble(literals[a], literals[b]);
+            size = a;
+            depth -= 2;
+            constant(value);
+            return;
+        }
+
+        // Same identities as Optimizer.simplifyBinary
+        switch (op) {
+            case PLUS -> {
+                if (constB && literals[b] == 0) { dropRight(b); return; }
+                if (constA && literals[a] == 0) { dropLeft(a, b); return; }
+            }
+            case MINUS -> {
+                if (constB && literals[b] == 0) { dropRight(b); return; }
+            }
+            case MULTIPLY -> {
+                if (constB && literals[b] == 1) { dropRight(b); return; }
+                if (constA && literals[a] == 1) { dropLeft(a, b); return; }
+            }
+            case DIVIDE -> {
+                if (constB && literals[b] == 1) { dropRight(b); return; }
+            }
+            case POWER -> {
+                if (constB && literals[b] == 1) { dropRight(b); return; }
+                if (constB && literals[b] == 2) {
+                    dropRight(b);
+                    append(CompiledExpression.UNARY, TokenType.SQUARE.ordinal(), 0);
+                    return;
+                }
+                if (constB && literals[b] == -1) {
+                    dropRight(b);
+                    append(CompiledExpression.UNARY, TokenType.RECIPROCAL.ordinal(), 0);
+                    return;
+                }
+            }
+            default -> {}
+        }
+
+        switch (op) {
+            case PLUS -> append(CompiledExpression.ADD, 0, -1);
+            case MINUS -> append(CompiledExpression.SUB, 0, -1);
+            case MULTIPLY -> append(CompiledExpression.MUL, 0, -1);
+            default -> append(CompiledExpression.BINARY, op.ordinal(), -1);
+        }
+    }
+
+    // Keeps the left operand, whose code runs up to b
+    private void dropRight(int b) {
+        size = b;
+        depth--;
+    }
+
+    // Keeps the right operand, sliding its code down over the left one
+    private void dropLeft(int a, int b) {
+        System.arraycopy(code, b, code, a, size - b);
+        System.arraycopy(literals, b, literals, a, size - b);
+        size -= b - a;
+        depth--;
+        operands[depth - 1] = a;
+    }
+
+    // Evaluator pops 0.0 from an empty stack, and Optimizer folds that zero like any constant
+    private void reserveOperands(int arity) {
+        while (depth < arity) {
+            int at = depth == 0 ? size : operands[0];
+            ensureCode(1);
+            System.arraycopy(code, at, code, at + 1, size - at);
+            System.arraycopy(literals, at, literals, at + 1, size - at);
+            code[at] = CompiledExpression.CONST;
+            literals[at] = 0.0;
+            size++;
+
+            push(0);
+            for (int i = depth - 1; i > 0; i--) operands[i] = operands[i - 1] + 1;
+            operands[0] = at;
+        }
+    }
+
+    private boolean isConstant(int from, int to) {
+        return to - from == 1 && opcode(from) == CompiledExpression.CONST;
+    }
+
+    private int opcode(int index) {
+        return code[index] & CompiledExpression.OPCODE_MASK;
+    }
+
+    private void constant(double value) {
+        push(size);
+        ensureCode(1);
+        literals[size] = value;
+        code[size++] = CompiledExpression.CONST;
+    }
+
+    private void push(int codeStart) {
+        if (depth == operands.length) operands = Arrays.copyOf(operands, depth * 2);
+        operands[depth++] = codeStart;
+    }
+
+    private void append(int opcode, int operand, int stackEffect) {
+        ensureCode(1);
+        code[size++] = (operand << CompiledExpression.OPCODE_BITS) | opcode;
+        depth += stackEffect;
+    }
+
+    private void ensureCode(int extra) {
+        if (size + extra > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + extra));
+            literals = Arrays.copyOf(literals, code.length);
+        }
+    }
+
+    // Pools constants, slots and operators in order of first use, as ExpressionCompiler does
+    private CompiledExpression link() {
+        // Long polynomials have hundreds of distinct literals, so constants are looked up by hash
+        Map<Double, Integer> constants = new HashMap<>();
+        List<String> slots = new ArrayList<>();
+        List<TokenType> unaryOps = new ArrayList<>();
+        List<TokenType> binaryOps = new ArrayList<>();
+        List<TokenType> statOps = new ArrayList<>();
+
+        int[] program = new int[size];
+        int stack = 0;
+        int maxStack = 0;
+
+        for (int i = 0; i < size; i++) {
+            int opcode = opcode(i);
+            int operand = code[i] >>> CompiledExpression.OPCODE_BITS;
+
+            switch (opcode) {
+                case CompiledExpression.CONST -> { operand = constants.computeIfAbsent(literals[i], k -> constants.size()); stack++; }
+                case CompiledExpression.LOAD -> { operand = indexOf(slots, names.get(operand)); stack++; }
+                case CompiledExpression.STAT -> { operand = indexOf(statOps, TYPES[operand]); stack++; }
+                case CompiledExpression.UNARY -> operand = indexOf(unaryOps, TYPES[operand]);
+                case CompiledExpression.BINARY -> { operand = indexOf(binaryOps, TYPES[operand]); stack--; }
+                case CompiledExpression.ADD, CompiledExpression.SUB, CompiledExpression.MUL -> stack--;
+                default -> {}
+            }
+            program[i] = (operand << CompiledExpression.OPCODE_BITS) | opcode;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        double[] constantPool = new double[constants.size()];
+        for (Map.Entry<Double, Integer> entry : constants.entrySet()) constantPool[entry.getValue()] = entry.getKey();
+
+        return new CompiledExpression(
+            program,
+            constantPool,
+            slots.toArray(new String[0]),
+            unaryOps.toArray(new TokenType[0]),
+            binaryOps.toArray(new TokenType[0]),
+            statOps.toArray(new TokenType[0]),
+            maxStack,
+            stack > 0);
+    }
+
+    private static <T> int indexOf(List<T> pool, T value) {
+        int idx = pool.indexOf(value);
+        if (idx >= 0) return idx;
+        pool.add(value);
+        return pool.size() - 1;
+    }
+}
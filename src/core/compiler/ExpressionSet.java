@@ -0,0 +1,128 @@
+package core.compiler;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import core.dataset.ColumnView;
+import core.evaluator.Evaluator;
+import core.token.TokenType;
+
+// A batch of expressions compiled into one shared DAG: every distinct sub-term is a register
+// that is computed once per evaluation, however many expressions refer to it.
+public final class ExpressionSet {
+    static final int CONST = 0;
+    static final int NEG = 1;
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int UNARY = 5;
+    static final int BINARY = 6;
+    static final int STAT = 7;
+
+    // Each node takes three ints: opcode | function << 8, then its two operand registers
+    static final int STRIDE = 3;
+
+    private final int[] code;
+    private final double[] constants;
+    private final String[] slotNames;
+    private final DoubleUnaryOperator[] unaryOps;
+    private final DoubleBinaryOperator[] binaryOps;
+    private final TokenType[] statOps;
+    private final int[] results;
+
+    ExpressionSet(int[] code, double[] constants, String[] slotNames, TokenType[] unaryTypes,
+                  TokenType[] binaryTypes, TokenType[] statOps, int[] results) {
+        this.code = code;
+        this.constants = constants;
+        this.slotNames = slotNames;
+        this.statOps = statOps;
+        this.results = results;
+
+        this.unaryOps = new DoubleUnaryOperator[unaryTypes.length];
+        for (int i = 0; i < unaryTypes.length; i++) unaryOps[i] = Evaluator.getUnaryOp(unaryTypes[i]);
+        this.binaryOps = new DoubleBinaryOperator[binaryTypes.length];
+        for (int i = 0; i < binaryTypes.length; i++) binaryOps[i] = Evaluator.getBinaryOp(binaryTypes[i]);
+    }
+
+    public int size() {
+        return results.length;
+    }
+
+    public int getNodeCount() {
+        return code.length / STRIDE;
+    }
+
+    public int getSlotCount() {
+        return slotNames.length;
+    }
+
+    public String[] getSlotNames() {
+        return slotNames.clone();
+    }
+
+    public int getSlot(String name) {
+        String key = name.toLowerCase();
+        for (int i = 0; i < slotNames.length; i++) {
+            if (slotNames[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // Variable slots come first, followed by one register per shared node
+    public int getFrameSize() {
+        return slotNames.length + getNodeCount();
+    }
+
+    public double[] newFrame() {
+        return new double[getFrameSize()];
+    }
+
+    public void bind(double[] slots, Map<String, Double> variables) {
+        for (int i = 0; i < slotNames.length; i++) {
+            slots[i] = variables.getOrDefault(slotNames[i], 0.0);
+        }
+    }
+
+    public double[] evaluate(double[] slots, ColumnView table) {
+        double[] out = new double[results.length];
+        evaluate(slots, table, out);
+        return out;
+    }
+
+    public void evaluate(double[] slots, ColumnView table, double[] out) {
+        if (slots.length < getFrameSize()) {
+            throw new IllegalArgumentException("Frame too small: " + slots.length + " < " + getFrameSize());
+        }
+
+        int reg = slotNames.length;
+        for (int pc = 0; pc < code.length; pc += STRIDE, reg++) {
+            int ins = code[pc];
+            int fn = ins >>> CompiledExpression.OPCODE_BITS;
+            int a = code[pc + 1];
+            int b = code[pc + 2];
+
+            slots[reg] = switch (ins & CompiledExpression.OPCODE_MASK) {
+                case CONST -> constants[fn];
+                case NEG -> -slots[a];
+                case ADD -> slots[a] + slots[b];
+                case SUB -> slots[a] - slots[b];
+                case MUL -> slots[a] * slots[b];
+                case UNARY -> unaryOps[fn].applyAsDouble(slots[a]);
+                case BINARY -> binaryOps[fn].applyAsDouble(slots[a], slots[b]);
+                case STAT -> Evaluator.applyStatOp(statOps[fn], table);
+                default -> throw new IllegalStateException("Unknown opcode: " + (ins & CompiledExpression.OPCODE_MASK));
+            };
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            out[i] = results[i] < 0 ? 0.0 : slots[results[i]];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExpressionSet[expressions=" + results.length + ", nodes=" + getNodeCount()
+            + ", slots=" + Arrays.toString(slotNames) + "]";
+    }
+}
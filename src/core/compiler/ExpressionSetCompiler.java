@@ -0,0 +1,158 @@
+package core.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import core.evaluator.Evaluator;
+import core.token.Token;
+import core.token.TokenType;
+
+public class ExpressionSetCompiler {
+    private final List<List<Token>> postfixes;
+
+    // Nodes are hash-consed, so structurally identical sub-terms across all expressions share one id.
+    // Operand references are node ids, or -(slot + 1) for a variable.
+    private final Map<NodeKey, Integer> interned = new HashMap<>();
+    private final List<NodeKey> nodes = new ArrayList<>();
+
+    private final List<Double> constants = new ArrayList<>();
+    private final List<String> slots = new ArrayList<>();
+    private final List<TokenType> unaryOps = new ArrayList<>();
+    private final List<TokenType> binaryOps = new ArrayList<>();
+    private final List<TokenType> statOps = new ArrayList<>();
+
+    private record NodeKey(int ins, int a, int b) {}
+
+    public ExpressionSetCompiler(List<List<Token>> postfixes) {
+        this.postfixes = postfixes;
+    }
+
+    public ExpressionSet compile() {
+        int[] roots = new int[postfixes.size()];
+        boolean[] empty = new boolean[roots.length];
+
+        for (int i = 0; i < roots.length; i++) {
+            List<Integer> stack = new ArrayList<>();
+            for (Token token : postfixes.get(i)) {
+                push(token, stack);
+            }
+            // Like Evaluator, the answer is the bottom of the stack
+            empty[i] = stack.isEmpty();
+            roots[i] = empty[i] ? 0 : stack.get(0);
+        }
+
+        // Keep only the nodes some answer depends on; children always precede their parents
+        boolean[] live = new boolean[nodes.size()];
+        for (int i = 0; i < roots.length; i++) {
+            if (!empty[i] && roots[i] >= 0) live[roots[i]] = true;
+        }
+        for (int id = nodes.size() - 1; id >= 0; id--) {
+            if (!live[id]) continue;
+            NodeKey node = nodes.get(id);
+            if (operandCount(node.ins()) >= 1 && node.a() >= 0) live[node.a()] = true;
+            if (operandCount(node.ins()) == 2 && node.b() >= 0) live[node.b()] = true;
+        }
+
+        int slotCount = slots.size();
+        int[] register = new int[nodes.size()];
+        List<Integer> code = new ArrayList<>();
+        for (int id = 0; id < nodes.size(); id++) {
+            if (!live[id]) continue;
+            NodeKey node = nodes.get(id);
+            register[id] = slotCount + code.size() / ExpressionSet.STRIDE;
+            code.add(node.ins());
+            code.add(operandCount(node.ins()) >= 1 ? resolve(node.a(), register) : 0);
+            code.add(operandCount(node.ins()) == 2 ? resolve(node.b(), register) : 0);
+        }
+
+        int[] results = new int[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            results[i] = empty[i] ? -1 : resolve(roots[i], register);
+        }
+
+        double[] constantPool = new double[constants.size()];
+        for (int i = 0; i < constantPool.length; i++) constantPool[i] = constants.get(i);
+
+        return new ExpressionSet(
+            code.stream().mapToInt(Integer::intValue).toArray(),
+            constantPool,
+            slots.toArray(new String[0]),
+            unaryOps.toArray(new TokenType[0]),
+            binaryOps.toArray(new TokenType[0]),
+            statOps.toArray(new TokenType[0]),
+            results);
+    }
+
+    private void push(Token token, List<Integer> stack) {
+        TokenType type = token.getType();
+
+        if (type == TokenType.NUMBER) {
+            stack.add(constant(token.getNumber()));
+        }
+        else if (type == TokenType.IDENTIFIER) {
+            stack.add(-(indexOf(slots, token.getValue().toLowerCase()) + 1));
+        }
+        else if (Evaluator.getUnaryOp(type) != null) {
+            int a = pop(stack);
+            if (type == TokenType.UNARY_MINUS) {
+                stack.add(intern(ExpressionSet.NEG, 0, a, 0));
+            } else {
+                stack.add(intern(ExpressionSet.UNARY, indexOf(unaryOps, type), a, 0));
+            }
+        }
+        else if (Evaluator.getBinaryOp(type) != null) {
+            int b = pop(stack);
+            int a = pop(stack);
+            switch (type) {
+                // Addition and multiplication commute exactly, so a canonical operand order finds more sharing
+                case PLUS -> stack.add(intern(ExpressionSet.ADD, 0, Math.min(a, b), Math.max(a, b)));
+                case MULTIPLY -> stack.add(intern(ExpressionSet.MUL, 0, Math.min(a, b), Math.max(a, b)));
+                case MINUS -> stack.add(intern(ExpressionSet.SUB, 0, a, b));
+                default -> stack.add(intern(ExpressionSet.BINARY, indexOf(binaryOps, type), a, b));
+            }
+        }
+        else if (Evaluator.isStatOp(type)) {
+            stack.add(intern(ExpressionSet.STAT, indexOf(statOps, type), 0, 0));
+        }
+    }
+
+    private int pop(List<Integer> stack) {
+        // Evaluator reads a missing operand as 0.0
+        if (stack.isEmpty()) return constant(0.0);
+        return stack.remove(stack.size() - 1);
+    }
+
+    private int constant(double value) {
+        return intern(ExpressionSet.CONST, indexOf(constants, value), 0, 0);
+    }
+
+    private int intern(int opcode, int fn, int a, int b) {
+        NodeKey key = new NodeKey((fn << CompiledExpression.OPCODE_BITS) | opcode, a, b);
+        Integer id = interned.get(key);
+        if (id != null) return id;
+
+        nodes.add(key);
+        interned.put(key, nodes.size() - 1);
+        return nodes.size() - 1;
+    }
+
+    private static int resolve(int ref, int[] register) {
+        return ref < 0 ? -(ref + 1) : register[ref];
+    }
+
+    private static int operandCount(int ins) {
+        return switch (ins & CompiledExpression.OPCODE_MASK) {
+            case ExpressionSet.NEG, ExpressionSet.UNARY -> 1;
+            case ExpressionSet.ADD, ExpressionSet.SUB, ExpressionSet.MUL, ExpressionSet.BINARY -> 2;
+            default -> 0;
+        };
+    }
+
+    private static <T> int indexOf(List<T> pool, T value) {
+        int idx = pool.indexOf(value);
+        if (idx >= 0) return idx;
+        pool.add(value);
+        return pool.size() - 1;
+    }
+}
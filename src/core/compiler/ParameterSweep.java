@@ -0,0 +1,163 @@
+package core.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import core.dataset.ColumnView;
+
+// Evaluates one expression over the Cartesian grid of several variables. The grid is flattened
+// row-major (the last axis added varies fastest) and split into fork/join chunks; every chunk
+// works on its own frame, so workers share nothing but the read-only program.
+public final class ParameterSweep {
+    static final int GRAIN = 1 << 14;
+
+    @FunctionalInterface
+    public interface Sink {
+        // Called concurrently for disjoint index ranges; each call gets a fresh results array, which
+        // the sweep does not touch again, so a sink may keep it
+        void accept(long firstIndex, double[] results, int count);
+    }
+
+    private final CompiledExpression expr;
+    private final List<String> axisNames = new ArrayList<>();
+    private final List<double[]> axisValues = new ArrayList<>();
+    private Map<String, Double> variables = Map.of();
+    private ColumnView table = null;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    public ParameterSweep(CompiledExpression expr) {
+        this.expr = expr;
+    }
+
+    public ParameterSweep values(String name, double... values) {
+        if (values.length == 0) throw new IllegalArgumentException("Axis '" + name + "' has no values");
+        axisNames.add(name);
+        axisValues.add(values.clone());
+        return this;
+    }
+
+    // steps evenly spaced points from 'from' to 'to', both ends included
+    public ParameterSweep range(String name, double from, double to, int steps) {
+        if (steps < 1) throw new IllegalArgumentException("Axis '" + name + "' needs at least one step");
+        double[] values = new double[steps];
+        double step = steps == 1 ? 0 : (to - from) / (steps - 1);
+        for (int i = 0; i < steps; i++) {
+            values[i] = from + i * step;
+        }
+        if (steps > 1) values[steps - 1] = to;
+        return values(name, values);
+    }
+
+    // Values for the variables that are not swept
+    public ParameterSweep variables(Map<String, Double> variables) {
+        this.variables = variables;
+        return this;
+    }
+
+    public ParameterSweep table(ColumnView table) {
+        this.table = table;
+        return this;
+    }
+
+    public ParameterSweep pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    public long size() {
+        long size = 1;
+        for (double[] values : axisValues) {
+            size = Math.multiplyExact(size, values.length);
+        }
+        return size;
+    }
+
+    public double[] run() {
+        long size = size();
+        if (size > Integer.MAX_VALUE - 8) throw new IllegalStateException("Grid of " + size + " points does not fit in an array");
+        double[] out = new double[(int) size];
+        run(out);
+        return out;
+    }
+
+    public void run(double[] out) {
+        long size = size();
+        if (out.length < size) throw new IllegalArgumentException("Output holds " + out.length + " points, grid has " + size);
+        run((first, results, count) -> System.arraycopy(results, 0, out, (int) first, count));
+    }
+
+    public void run(Sink sink) {
+        Grid grid = new Grid();
+        pool.invoke(new Chunk(grid, sink, 0, size()));
+    }
+
+    // Resolved once per run and shared read-only by all chunks
+    private final class Grid {
+        final int[] axisSlots = new int[axisValues.size()];
+        final double[][] axes = axisValues.toArray(new double[0][]);
+        final double[] baseFrame = expr.newFrame();
+
+        Grid() {
+            expr.bind(baseFrame, variables);
+            for (int a = 0; a < axes.length; a++) {
+                axisSlots[a] = expr.getSlot(axisNames.get(a));
+            }
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Grid grid;
+        private final transient Sink sink;
+        private final long from;
+        private final long to;
+
+        Chunk(Grid grid, Sink sink, long from, long to) {
+            this.grid = grid;
+            this.sink = sink;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GRAIN) {
+                long mid = from + (to - from) / 2;
+                invokeAll(new Chunk(grid, sink, from, mid), new Chunk(grid, sink, mid, to));
+                return;
+            }
+
+            double[][] axes = grid.axes;
+            int[] axisSlots = grid.axisSlots;
+            double[] frame = grid.baseFrame.clone();
+            double[] results = new double[(int) (to - from)];
+
+            // Decode the first point's coordinates, then step through the rest like an odometer
+            int[] position = new int[axes.length];
+            long rest = from;
+            for (int a = axes.length - 1; a >= 0; a--) {
+                position[a] = (int) (rest % axes[a].length);
+                rest /= axes[a].length;
+                if (axisSlots[a] >= 0) frame[axisSlots[a]] = axes[a][position[a]];
+            }
+
+            for (int i = 0; i < results.length; i++) {
+                results[i] = expr.evaluate(frame, table);
+
+                for (int a = axes.length - 1; a >= 0; a--) {
+                    if (++position[a] < axes[a].length) {
+                        if (axisSlots[a] >= 0) frame[axisSlots[a]] = axes[a][position[a]];
+                        break;
+                    }
+                    position[a] = 0;
+                    if (axisSlots[a] >= 0) frame[axisSlots[a]] = axes[a][0];
+                }
+            }
+
+            sink.accept(from, results, results.length);
+        }
+    }
+}
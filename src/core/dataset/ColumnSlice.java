@@ -0,0 +1,54 @@
+package core.dataset;
+
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+
+final class ColumnSlice implements ColumnView {
+    private final ColumnView parent;
+    private final int offset;
+    private final int length;
+    private final int expectedModCount;
+
+    ColumnSlice(ColumnView parent, int from, int to) {
+        Objects.checkFromToIndex(from, to, parent.size());
+        this.parent = parent;
+        this.offset = from;
+        this.length = to - from;
+        this.expectedModCount = parent.modCount();
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public double get(int index) {
+        Objects.checkIndex(index, length);
+        checkForComodification();
+        return parent.get(offset + index);
+    }
+
+    @Override
+    public int modCount() {
+        return parent.modCount();
+    }
+
+    @Override
+    public ColumnView slice(int from, int to) {
+        Objects.checkFromToIndex(from, to, length);
+        checkForComodification();
+        return new ColumnSlice(parent, offset + from, offset + to);
+    }
+
+    @Override
+    public void copyTo(int from, double[] dest, int destPos, int count) {
+        Objects.checkFromIndexSize(from, count, length);
+        checkForComodification();
+        parent.copyTo(offset + from, dest, destPos, count);
+    }
+
+    private void checkForComodification() {
+        if (parent.modCount() != expectedModCount) throw new ConcurrentModificationException();
+    }
+}
@@ -0,0 +1,30 @@
+package core.dataset;
+
+// A column a Dataset can keep its values in. Stores may hold memory the garbage collector does
+// not manage, so whoever creates one closes it; reading a closed store is an error.
+public interface ColumnStore extends ColumnView, AutoCloseable {
+    void append(double value);
+
+    void appendAll(double[] source, int from, int to);
+
+    double set(int index, double value);
+
+    double removeAt(int index);
+
+    void clear();
+
+    // Extremes the store keeps current itself, or null. A Dataset over a store with them answers
+    // min() and max() from here instead of reading every value
+    default ColumnSummary summary() {
+        return null;
+    }
+
+    // Running statistics the store keeps current itself (e.g. for a file header), or null. A
+    // Dataset over such a store shares this instance rather than maintaining a second copy
+    default RunningStats stats() {
+        return null;
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,4 @@
+package core.dataset;
+
+// Extremes under Double.compare (NaN sorts last), NaN for both when there are no values
+public record ColumnSummary(double min, double max) {}
@@ -0,0 +1,33 @@
+package core.dataset;
+
+// Read access to a column of doubles, whatever holds them. Everything that only reads the
+// dataset (the stat operations, compiled expressions, the plots) goes through this.
+public interface ColumnView {
+    int size();
+
+    double get(int index);
+
+    // Bumped by every structural change and every write, so readers can tell their view is stale
+    int modCount();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // A view of [from, to) that fails fast once the underlying column changes
+    default ColumnView slice(int from, int to) {
+        return new ColumnSlice(this, from, to);
+    }
+
+    default void copyTo(int from, double[] dest, int destPos, int length) {
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = get(from + i);
+        }
+    }
+
+    default double[] toArray() {
+        double[] values = new double[size()];
+        copyTo(0, values, 0, values.length);
+        return values;
+    }
+}
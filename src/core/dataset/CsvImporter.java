@@ -0,0 +1,258 @@
+package core.dataset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import core.text.FastDoubleParser;
+
+// Reads one column of a CSV or newline-delimited file into a Dataset. The file is cut into byte
+// ranges that are parsed in parallel straight from the bytes; a range owns the lines that start
+// inside it and reads on past its end to finish the last one, so no line is split or read twice.
+// Ranges are taken a window at a time and appended in file order before the next window is read,
+// so the memory an import needs on top of the dataset is a few ranges per worker, whatever the
+// file size. Blank lines are ignored; lines without a number in the column are counted as skipped.
+// Fields are not unquoted beyond a pair of surrounding quotes, so delimiters inside quotes are not
+// supported.
+public final class CsvImporter {
+    static final int CHUNK_BYTES = 8 << 20;
+    private static final int READ_AHEAD = 1 << 16;
+
+    public record Result(long imported, long skipped) {}
+
+    // Receives each parsed range's values, in file order, on the thread that called importInto
+    @FunctionalInterface
+    public interface Sink {
+        void accept(double[] values, int from, int to) throws IOException;
+    }
+
+    private int column = 0;
+    private byte delimiter = ',';
+    private boolean header = false;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    // Zero-based index of the field to read
+    public CsvImporter column(int column) {
+        if (column < 0) throw new IllegalArgumentException("Column " + column + " is negative");
+        this.column = column;
+        return this;
+    }
+
+    public CsvImporter delimiter(char delimiter) {
+        if (delimiter > 0x7F || delimiter == '\n' || delimiter == '\r' || delimiter == '"') {
+            throw new IllegalArgumentException("Unsupported delimiter '" + delimiter + "'");
+        }
+        this.delimiter = (byte) delimiter;
+        return this;
+    }
+
+    // Whether the first line holds column names rather than values
+    public CsvImporter header(boolean header) {
+        this.header = header;
+        return this;
+    }
+
+    public CsvImporter pool(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    // The fields of the first line, e.g. to offer a choice of column or to tell whether it is a header
+    public static List<String> firstRow(Path path, char delimiter) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Chunk chunk = new Chunk(channel, 0, Math.min(channel.size(), READ_AHEAD));
+            List<String> fields = new ArrayList<>();
+            int lineEnd = chunk.lineEnd(chunk.start);
+            int from = chunk.start;
+            for (int i = from; i <= lineEnd; i++) {
+                if (i == lineEnd || chunk.bytes[i] == delimiter) {
+                    int[] field = trim(chunk.bytes, from, i);
+                    fields.add(new String(chunk.bytes, field[0], field[1] - field[0], StandardCharsets.UTF_8));
+                    from = i + 1;
+                }
+            }
+            return fields;
+        }
+    }
+
+    public static boolean isNumber(String field) {
+        try {
+            FastDoubleParser.parseDouble(field.strip());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // Appends the column's values to target in file order; the dataset is only touched from the calling thread
+    public Result importInto(Path path, Dataset target) throws IOException {
+        return importInto(path, target::addAll);
+    }
+
+    // Workers only parse; every value reaches the sink from the calling thread, and the next window
+    // is not read until the sink has taken the last one
+    public Result importInto(Path path, Sink target) throws IOException {
+        long imported = 0;
+        long skipped = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long window = (long) CHUNK_BYTES * Math.max(1, pool.getParallelism()) * 2;
+
+            for (long windowStart = 0; windowStart < size; windowStart += window) {
+                List<Callable<Chunk>> tasks = new ArrayList<>();
+                long windowEnd = Math.min(size, windowStart + window);
+                for (long start = windowStart; start < windowEnd; start += CHUNK_BYTES) {
+                    long from = start;
+                    long to = Math.min(windowEnd, start + CHUNK_BYTES);
+                    tasks.add(() -> new Chunk(channel, from, to).parse(this));
+                }
+
+                for (Future<Chunk> future : pool.invokeAll(tasks)) {
+                    Chunk chunk = await(future);
+                    target.accept(chunk.values, 0, chunk.count);
+                    imported += chunk.count;
+                    skipped += chunk.skipped;
+                }
+            }
+        }
+        return new Result(imported, skipped);
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        }
+    }
+
+    // Returns {from, to} with surrounding blanks, a trailing '\r' and one pair of quotes removed
+    private static int[] trim(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xFF) <= ' ') from++;
+        while (to > from && (bytes[to - 1] & 0xFF) <= ' ') to--;
+        if (to - from >= 2 && bytes[from] == '"' && bytes[to - 1] == '"') {
+            from++;
+            to--;
+        }
+        return new int[] {from, to};
+    }
+
+    // One byte range of the file, read with positional reads so workers can share the channel
+    private static final class Chunk {
+        private final FileChannel channel;
+        private final long fileOffset;
+        private final long end;
+        private byte[] bytes;
+        private int length;
+        private int start;
+        private boolean eof;
+
+        private double[] values;
+        private int count;
+        private long skipped;
+
+        Chunk(FileChannel channel, long from, long to) throws IOException {
+            this.channel = channel;
+            this.end = to;
+            // The byte before the range tells whether a line starts exactly at 'from'
+            this.fileOffset = from == 0 ? 0 : from - 1;
+            this.bytes = new byte[(int) (to - fileOffset) + READ_AHEAD];
+            fill((int) (to - fileOffset));
+
+            if (from == 0) {
+                if (length >= 3 && bytes[0] == (byte) 0xEF && bytes[1] == (byte) 0xBB && bytes[2] == (byte) 0xBF) start = 3;
+            } else {
+                int newline = indexOf('\n', 0);
+                start = newline < 0 ? length : newline + 1;
+            }
+        }
+
+        Chunk parse(CsvImporter options) throws IOException {
+            values = new double[Math.max(16, (int) ((end - fileOffset) / 8))];
+            int limit = (int) (end - fileOffset);
+            int pos = start;
+            if (fileOffset == 0 && options.header && pos < limit) pos = lineEnd(pos) + 1;
+
+            while (pos < limit && pos < length) {
+                int lineEnd = lineEnd(pos);
+                parseLine(options, pos, lineEnd);
+                pos = lineEnd + 1;
+            }
+            return this;
+        }
+
+        private void parseLine(CsvImporter options, int from, int to) {
+            int[] line = trim(bytes, from, to);
+            if (line[0] == line[1]) return;
+
+            int field = 0;
+            int fieldStart = from;
+            for (int i = from; i <= to; i++) {
+                if (i < to && bytes[i] != options.delimiter) continue;
+                if (field++ == options.column) {
+                    int[] text = trim(bytes, fieldStart, i);
+                    try {
+                        if (text[0] == text[1]) throw new NumberFormatException("Empty field");
+                        add(FastDoubleParser.parseDouble(bytes, text[0], text[1]));
+                    } catch (NumberFormatException e) {
+                        skipped++;
+                    }
+                    return;
+                }
+                fieldStart = i + 1;
+            }
+            skipped++;
+        }
+
+        private void add(double value) {
+            if (count == values.length) values = Arrays.copyOf(values, count + (count >> 1));
+            values[count++] = value;
+        }
+
+        // Index of the '\n' ending the line that starts at pos, or the end of the data; reads on
+        // past the range as far as the line goes
+        int lineEnd(int pos) throws IOException {
+            int index = indexOf('\n', pos);
+            while (index < 0 && !eof) {
+                int searched = length;
+                fill(length + READ_AHEAD);
+                index = indexOf('\n', searched);
+            }
+            return index < 0 ? length : index;
+        }
+
+        private int indexOf(char ch, int from) {
+            for (int i = from; i < length; i++) {
+                if (bytes[i] == ch) return i;
+            }
+            return -1;
+        }
+
+        private void fill(int target) throws IOException {
+            if (target > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(target, bytes.length + (bytes.length >> 1)));
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, length, target - length);
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, fileOffset + buffer.position());
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            length = buffer.position();
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package core.dataset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// The session's data table. Every mutation, whether it comes from MathEngine or from a view editing
+// the table directly, goes through here and updates the running statistics, and the order and
+// frequency indexes once they exist, so no statistic has to rescan the values more than once.
+//
+// The values themselves live in a ColumnStore: on the heap by default, or off it for datasets too
+// big for the heap. The store costs 8 bytes a value, and until a median, quantile or mode is asked
+// for that is all even an indexed Dataset holds. The first such query sorts a copy of the values
+// and builds both indexes from it in linear time; after that every edit keeps them current, for
+// O(log n) quartiles and O(1) mode. Built, they cost heap per distinct value: a treap node of 28
+// bytes and 40 to 80 bytes of hash table. A dataset can go without them for good (new
+// Dataset(store, false), offHeap(), open()), and its median, quantiles and mode are then worked out
+// from the values on request, or, once enableSketch() is called, median and quantiles are estimated
+// from a QuantileSketch and the mode is found in two bounded passes (HeavyHitters), so a dataset
+// too big for the heap is never copied onto it. moveTo() switches a dataset between stores.
+public class Dataset implements ColumnView, AutoCloseable {
+    // An addAll() at least this big, and a quarter or more of the values after it, drops built
+    // indexes rather than inserting into them: the next query's one sort is cheaper than that
+    // many treap inserts, and an import that comes in slices only pays for the first
+    private static final int BULK_ADD = 1 << 12;
+    // Candidates a sketched dataset's mode is looked for among: a value making up more than 1/1025
+    // of the values is found exactly, and a flatter dataset gets an approximate answer
+    private static final int MODE_COUNTERS = 1 << 10;
+    private static final int MOVE_BLOCK = 1 << 14;
+
+    private ColumnStore values;
+    private RunningStats stats;
+    // False when the store keeps the stats itself and the dataset only reads them
+    private boolean ownsStats;
+    private boolean indexed;
+    // Added to the store's modCount, so the count keeps rising when moveTo() swaps in a new store
+    private int modBase;
+    // Null until the first query that needs them, and again after clear(). Queries only read the
+    // indexes, so the one that builds them does it under indexLock and the rest share the result
+    private volatile Indexes indexes;
+    private final Object indexLock = new Object();
+    // Sketches cannot take values out, so an edit or removal leaves it to be rebuilt on the next query.
+    // Queries write to the sketch (the rebuild, and the sorted view it caches), so readers take turns
+    // on sketchLock; writers need the dataset to themselves anyway, as for every other edit
+    private QuantileSketch sketch;
+    private boolean sketchStale;
+    private final Object sketchLock = new Object();
+    // Shared by every view until the next edit; read from the event thread, replaced on a new version
+    private volatile DatasetSummary summary;
+
+    public Dataset() {
+        this(new DoubleColumn(), true);
+    }
+
+    private record Indexes(OrderStatistics order, FrequencyIndex frequencies) {
+        static Indexes fromSorted(double[] sorted) {
+            return new Indexes(OrderStatistics.fromSorted(sorted, sorted.length), FrequencyIndex.fromSorted(sorted, sorted.length));
+        }
+    }
+
+    // The indexes for one version of a dataset, built away from the thread that edits it: see
+    // prepareIndexes()
+    public static final class IndexBuild {
+        private final Dataset owner;
+        private final int version;
+        private double[] values;
+        private Indexes built;
+
+        private IndexBuild(Dataset owner, int version, double[] values) {
+            this.owner = owner;
+            this.version = version;
+            this.values = values;
+        }
+
+        // The sort and both index builds, on any thread; the copy is let go once it is indexed. The
+        // caller is off the owning thread already, so the sort may as well use the common pool
+        public void build() {
+            if (built != null) return;
+            Arrays.parallelSort(values);
+            built = Indexes.fromSorted(values);
+            values = null;
+        }
+    }
+
+    public Dataset(ColumnStore values, boolean indexed) {
+        this.values = values;
+        this.indexed = indexed;
+
+        RunningStats storeStats = values.stats();
+        this.ownsStats = storeStats == null;
+        this.stats = ownsStats ? new RunningStats() : storeStats;
+        if (ownsStats) stats.rebuild(values);
+    }
+
+    // Values in native memory and no per-value index, so the heap stays flat however large it gets
+    public static Dataset offHeap() {
+        Dataset dataset = new Dataset(new OffHeapColumn(), false);
+        dataset.enableSketch(QuantileSketch.DEFAULT_K);
+        return dataset;
+    }
+
+    // A column file used in place: only its header is read, so even a huge one opens at once
+    public static Dataset open(Path path) throws IOException {
+        Dataset dataset = new Dataset(MappedColumn.open(path), false);
+        dataset.enableSketch(QuantileSketch.DEFAULT_K);
+        return dataset;
+    }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    // For a caller that would otherwise have the first query build the indexes on a thread that
+    // must not stall, such as the event thread after an import. prepareIndexes() copies the values
+    // on the thread that owns the dataset, IndexBuild.build() does the work on any other, and
+    // installIndexes() back on the owner takes the result. Null when there is nothing to build
+    public IndexBuild prepareIndexes() {
+        if (!indexed || indexes != null) return null;
+        return new IndexBuild(this, modCount(), values.toArray());
+    }
+
+    // False, and the build is dropped, when build() never finished, the dataset was edited since
+    // prepareIndexes(), or a query built the indexes first
+    public boolean installIndexes(IndexBuild build) {
+        if (build.owner != this) throw new IllegalArgumentException("The build is for another dataset");
+        synchronized (indexLock) {
+            if (build.built == null || indexes != null || build.version != modCount()) return false;
+            indexes = build.built;
+            return true;
+        }
+    }
+
+    // Median and quantiles from a sketch of accuracy k instead of a sort of every value. Indexed
+    // datasets answer those exactly in O(log n) already, so they do not take one
+    public void enableSketch(int k) {
+        if (indexed) throw new IllegalStateException("Indexed datasets answer quantiles exactly");
+        sketch = new QuantileSketch(k);
+        sketchStale = true;
+        summary = null;
+    }
+
+    public void disableSketch() {
+        sketch = null;
+        summary = null;
+    }
+
+    // Whether median() and quantile() are estimates rather than exact
+    public boolean isApproximate() {
+        return sketch != null;
+    }
+
+    public RunningStats getStats() {
+        return stats;
+    }
+
+    // The figures for the current version, computed on the first request after an edit
+    public DatasetSummary summary() {
+        DatasetSummary current = summary;
+        if (current == null || current.version() != modCount()) {
+            current = new DatasetSummary(this);
+            summary = current;
+        }
+        return current;
+    }
+
+    // The maintained frequency index, or for an unindexed dataset one built for this call, which
+    // takes heap for every distinct value; modes() has what the statistics views need without it
+    public FrequencyIndex getFrequencies() {
+        if (indexed) return indexes().frequencies();
+        FrequencyIndex snapshot = new FrequencyIndex();
+        for (int i = 0; i < size(); i++) snapshot.add(get(i));
+        return snapshot;
+    }
+
+    public double min() {
+        return bounds().min();
+    }
+
+    public double max() {
+        return bounds().max();
+    }
+
+    // Both extremes at once: from the order index once something else has built it, else from the
+    // store's own summary, else from one reduction pass that finds the two together
+    ColumnSummary bounds() {
+        Indexes built = indexes;
+        if (built != null) return new ColumnSummary(built.order().min(), built.order().max());
+        ColumnSummary summary = values.summary();
+        if (summary != null) return summary;
+        Reduction.Moments moments = Reduction.reduce(values);
+        return new ColumnSummary(moments.min(), moments.max());
+    }
+
+    public double median() {
+        if (indexed) return indexes().order().median();
+        if (sketch != null) {
+            synchronized (sketchLock) {
+                return sketch().median();
+            }
+        }
+        return Selection.median(values.toArray(), size());
+    }
+
+    // Linear interpolation between the closest ranks at p * (n - 1), p in [0, 1]
+    public double quantile(double p) {
+        return quantiles(p)[0];
+    }
+
+    // Several quantiles for the price of one: an unindexed dataset copies its values once and
+    // selects all the ranks in the same pass. The copy is per call, so concurrent readers share nothing
+    public double[] quantiles(double... ps) {
+        double[] results = new double[ps.length];
+        if (indexed) {
+            OrderStatistics order = indexes().order();
+            for (int i = 0; i < ps.length; i++) results[i] = order.quantile(ps[i]);
+        } else if (sketch != null) {
+            synchronized (sketchLock) {
+                QuantileSketch sketch = sketch();
+                for (int i = 0; i < ps.length; i++) results[i] = sketch.quantile(ps[i]);
+            }
+        } else {
+            results = Selection.quantiles(values.toArray(), size(), ps);
+        }
+        return results;
+    }
+
+    // The smallest of the most frequent values; an estimate when isApproximate(), see modes()
+    public double mode() {
+        return modes().smallest();
+    }
+
+    // Exact from the frequency index, or for an unindexed dataset from a sorted copy. A sketched
+    // dataset keeps its values where they are and looks among MODE_COUNTERS candidates instead,
+    // which is exact unless no value makes up more than 1/1025 of them. When every value ties the
+    // smallest mode is simply the minimum, which the order index has; otherwise only the tied
+    // values are looked at
+    public Modes modes() {
+        if (isEmpty()) return new Modes(Double.NaN, 0, 0, false);
+        if (indexed) {
+            Indexes built = indexes();
+            FrequencyIndex frequencies = built.frequencies();
+            double smallest = frequencies.modeCount() == frequencies.distinctCount()
+                ? built.order().min() : frequencies.smallestMode();
+            return new Modes(smallest, frequencies.maxFrequency(), frequencies.modeCount(), false);
+        }
+        if (sketch != null) return HeavyHitters.modes(values, MODE_COUNTERS);
+        return modesOfSorted(sortedCopy());
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public double get(int index) {
+        return values.get(index);
+    }
+
+    @Override
+    public int modCount() {
+        return modBase + values.modCount();
+    }
+
+    @Override
+    public void copyTo(int from, double[] dest, int destPos, int length) {
+        values.copyTo(from, dest, destPos, length);
+    }
+
+    @Override
+    public double[] toArray() {
+        return values.toArray();
+    }
+
+    public void add(double value) {
+        values.append(value);
+        index(value);
+        if (sketch != null && !sketchStale) sketch.add(value);
+    }
+
+    // One copy into the column, then the indexes take the new values in order
+    public void addAll(double[] source, int from, int to) {
+        values.appendAll(source, from, to);
+        int count = to - from;
+        if (count >= BULK_ADD && count * 4L >= size()) indexes = null;
+        for (int i = from; i < to; i++) index(source[i]);
+        if (sketch != null && !sketchStale) {
+            for (int i = from; i < to; i++) sketch.add(source[i]);
+        }
+    }
+
+    public double set(int index, double value) {
+        double old = values.set(index, value);
+        if (ownsStats) stats.replace(old, value);
+        Indexes built = indexes;
+        if (built != null) {
+            built.order().replace(old, value);
+            built.frequencies().replace(old, value);
+        }
+        sketchStale = true;
+        refreshIfStale();
+        return old;
+    }
+
+    public double remove(int index) {
+        double old = values.removeAt(index);
+        if (ownsStats) stats.remove(old);
+        Indexes built = indexes;
+        if (built != null) {
+            built.order().remove(old);
+            built.frequencies().remove(old);
+        }
+        sketchStale = true;
+        refreshIfStale();
+        return old;
+    }
+
+    public double removeLast() {
+        return remove(size() - 1);
+    }
+
+    public void clear() {
+        values.clear();
+        if (ownsStats) stats.clear();
+        // Dropped rather than emptied, so their arrays go too; the next query starts them afresh
+        indexes = null;
+        if (sketch != null) {
+            sketch.clear();
+            sketchStale = false;
+        }
+    }
+
+    // Copies the values into target, which must be empty, and closes the old store. The dataset
+    // itself stays, so the engine and every view keep their reference; indexed says whether it
+    // keeps the order and frequency indexes from now on. A sketch carries over to an unindexed
+    // dataset and is dropped for an indexed one, which does not take one
+    public void moveTo(ColumnStore target, boolean indexed) {
+        if (target == values) throw new IllegalArgumentException("The dataset is already in this store");
+        if (target.size() != 0) throw new IllegalArgumentException("The target store must be empty");
+        int version = modCount();
+        double[] block = new double[Math.min(MOVE_BLOCK, Math.max(1, size()))];
+        for (int from = 0; from < size(); from += block.length) {
+            int length = Math.min(block.length, size() - from);
+            values.copyTo(from, block, 0, length);
+            target.appendAll(block, 0, length);
+        }
+        values.close();
+        values = target;
+        modBase = version + 1 - target.modCount();
+
+        // Stats the dataset kept still describe the same values; a store with its own replaces them
+        RunningStats storeStats = target.stats();
+        if (storeStats != null) {
+            stats = storeStats;
+            ownsStats = false;
+        } else if (!ownsStats) {
+            stats = new RunningStats();
+            ownsStats = true;
+            stats.rebuild(values);
+        }
+        this.indexed = indexed;
+        indexes = null;
+        if (indexed) sketch = null;
+        sketchStale = true;
+        summary = null;
+    }
+
+    // Releases the store and the indexes but leaves the values alone: clearing first would empty
+    // a file-backed store before closing it. The dataset cannot be used afterwards
+    @Override
+    public void close() {
+        values.close();
+        indexes = null;
+        if (sketch != null) sketch.clear();
+        summary = null;
+    }
+
+    private void index(double value) {
+        if (ownsStats) stats.add(value);
+        Indexes built = indexes;
+        if (built != null) {
+            built.order().add(value);
+            built.frequencies().add(value);
+        }
+    }
+
+    // One sort of a copy, then both indexes straight from the sorted runs
+    private Indexes indexes() {
+        Indexes built = indexes;
+        if (built != null) return built;
+        synchronized (indexLock) {
+            if (indexes == null) indexes = Indexes.fromSorted(sortedCopy());
+            return indexes;
+        }
+    }
+
+    // Rebuilding here rather than on read keeps getStats() a plain read for concurrent evaluators
+    private void refreshIfStale() {
+        if (ownsStats && stats.isStale()) stats.rebuild(values);
+    }
+
+    // Rebuilt in one pass over the values, still far cheaper than the sort it replaces. Callers hold sketchLock
+    private QuantileSketch sketch() {
+        if (sketchStale) {
+            sketch.clear();
+            sketch.addAll(values);
+            sketchStale = false;
+        }
+        return sketch;
+    }
+
+    private double[] sortedCopy() {
+        double[] sorted = values.toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // The first run of the greatest length holds the smallest mode
+    private static Modes modesOfSorted(double[] sorted) {
+        double mode = sorted[0];
+        int maxCount = 0;
+        int modeCount = 0;
+        for (int left = 0; left < sorted.length; ) {
+            int right = left;
+            while (right < sorted.length && Double.compare(sorted[right], sorted[left]) == 0) right++;
+            if (right - left > maxCount) {
+                maxCount = right - left;
+                mode = sorted[left];
+                modeCount = 1;
+            } else if (right - left == maxCount) {
+                modeCount++;
+            }
+            left = right;
+        }
+        return new Modes(mode, maxCount, modeCount, false);
+    }
+}
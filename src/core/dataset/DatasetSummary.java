@@ -0,0 +1,170 @@
+package core.dataset;
+
+// Everything the statistics views show, worked out once per version of a dataset: bounds, moments,
+// quartiles, histogram bins, modes and frequencies. Dataset.summary() hands every view the same
+// instance until the next edit, so a repaint, a resize or a tab switch only reads fields. Modes,
+// frequencies and the scatter bins are fetched on first use, since an unindexed dataset has to
+// make passes of its own for them.
+public final class DatasetSummary {
+    public static final int HISTOGRAM_BINS = 10;
+    public static final int SCATTER_BINS = 200;
+    private static final int BLOCK = 1 << 14;
+
+    private final Dataset dataset;
+    private final int version;
+    private final int size;
+    private final double min;
+    private final double max;
+    private final double mean;
+    private final double sum;
+    private final double populationVariance;
+    private final double sampleVariance;
+    private final double q1;
+    private final double median;
+    private final double q3;
+    private final boolean approximate;
+    private final int[] binCounts;
+    private Modes modes;
+    private FrequencyIndex frequencies;
+    private int[] scatterBinCounts;
+
+    DatasetSummary(Dataset dataset) {
+        this.dataset = dataset;
+        this.version = dataset.modCount();
+        this.size = dataset.size();
+
+        RunningStats stats = dataset.getStats();
+        this.mean = stats.mean();
+        this.sum = stats.sum();
+        this.populationVariance = stats.populationVariance();
+        this.sampleVariance = stats.sampleVariance();
+        this.approximate = dataset.isApproximate();
+
+        if (size == 0) {
+            min = max = Double.NaN;
+            q1 = median = q3 = 0;
+            binCounts = new int[HISTOGRAM_BINS];
+            scatterBinCounts = new int[SCATTER_BINS];
+            return;
+        }
+        // Quartiles first: on an indexed dataset they build the order index, which then has the bounds
+        double[] quartiles = dataset.quantiles(0.25, 0.50, 0.75);
+        this.q1 = quartiles[0];
+        this.median = quartiles[1];
+        this.q3 = quartiles[2];
+        ColumnSummary bounds = dataset.bounds();
+        this.min = bounds.min();
+        this.max = bounds.max();
+        this.binCounts = countBins(dataset, min, max, HISTOGRAM_BINS);
+    }
+
+    // Equal-width bins over [min, max] (at least 0.1 wide); values outside land in the end bins
+    private static int[] countBins(ColumnView values, double min, double max, int bins) {
+        int[] counts = new int[bins];
+        double binSize = Math.max(0.1, max - min) / bins;
+        double[] block = new double[Math.min(BLOCK, values.size())];
+        for (int from = 0; from < values.size(); from += block.length) {
+            int length = Math.min(block.length, values.size() - from);
+            values.copyTo(from, block, 0, length);
+            for (int i = 0; i < length; i++) {
+                int bin = (int) ((block[i] - min) / binSize);
+                if (bin >= bins) bin = bins - 1;
+                if (bin < 0) bin = 0;
+                counts[bin]++;
+            }
+        }
+        return counts;
+    }
+
+    // The dataset's modCount() when this was computed
+    public int version() {
+        return version;
+    }
+
+    public boolean isCurrent() {
+        return dataset.modCount() == version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double min() {
+        return min;
+    }
+
+    public double max() {
+        return max;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double sum() {
+        return sum;
+    }
+
+    public double populationVariance() {
+        return populationVariance;
+    }
+
+    public double populationStdDev() {
+        return Math.sqrt(populationVariance);
+    }
+
+    public double sampleVariance() {
+        return sampleVariance;
+    }
+
+    public double q1() {
+        return q1;
+    }
+
+    public double median() {
+        return median;
+    }
+
+    public double q3() {
+        return q3;
+    }
+
+    // Whether the quartiles are estimates from the dataset's sketch
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    // Read-only; counts per bin for HISTOGRAM_BINS bins from min() up
+    public int[] binCounts() {
+        return binCounts;
+    }
+
+    public int maxBinCount() {
+        int max = 0;
+        for (int count : binCounts) max = Math.max(max, count);
+        return max;
+    }
+
+    public Modes modes() {
+        if (modes == null) modes = dataset.modes();
+        return modes;
+    }
+
+    // Read-only; SCATTER_BINS bins laid out as binCounts() are, for plotting a dataset without a
+    // frequency index, whose values would otherwise each need counting on the heap
+    public int[] scatterBinCounts() {
+        if (scatterBinCounts == null) scatterBinCounts = countBins(dataset, min, max, SCATTER_BINS);
+        return scatterBinCounts;
+    }
+
+    // For an indexed dataset this is its live index, so it is only meaningful while isCurrent().
+    // For an unindexed one it is counted on the heap, a slot per distinct value
+    public FrequencyIndex frequencies() {
+        if (frequencies == null) frequencies = dataset.getFrequencies();
+        return frequencies;
+    }
+}
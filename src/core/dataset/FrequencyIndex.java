@@ -0,0 +1,247 @@
+package core.dataset;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+// Value -> multiplicity in an open-addressing table keyed on the values' bit patterns (so NaN is
+// one key and -0.0 is not 0.0, as Double.equals has it), with every value also threaded into a
+// list per frequency. An insert or removal moves one value to the neighbouring list, and the
+// highest non-empty list, which holds the mode(s), is tracked as it changes, all in O(1).
+public final class FrequencyIndex {
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(double value, int count);
+    }
+
+    private static final int MIN_CAPACITY = 16;
+    // Slot states in counts[]; live slots hold the multiplicity
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int NONE = -1;
+
+    private long[] keys;
+    private int[] counts;
+    private int[] prev;
+    private int[] next;
+    private int shift;
+    private int used;
+    private int distinct;
+
+    private int[] heads;
+    private int[] bucketSizes;
+    private int maxFrequency;
+
+    public FrequencyIndex() {
+        clear();
+    }
+
+    // The first n values of an array sorted as Arrays.sort sorts it, counted a run at a time into a
+    // table sized for them, at most half full, rather than grown by doubling as add() goes
+    public static FrequencyIndex fromSorted(double[] sorted, int n) {
+        int distinct = 0;
+        int highest = 0;
+        for (int i = 0; i < n; ) {
+            int run = i + 1;
+            while (run < n && Double.compare(sorted[run], sorted[i]) == 0) run++;
+            distinct++;
+            highest = Math.max(highest, run - i);
+            i = run;
+        }
+
+        FrequencyIndex index = new FrequencyIndex();
+        index.allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, distinct * 2 - 1)) * 2));
+        index.heads = new int[Math.max(8, highest + 1)];
+        Arrays.fill(index.heads, NONE);
+        index.bucketSizes = new int[index.heads.length];
+        for (int i = 0; i < n; ) {
+            int run = i + 1;
+            while (run < n && Double.compare(sorted[run], sorted[i]) == 0) run++;
+            int slot = index.insertSlot(Double.doubleToLongBits(sorted[i]));
+            index.counts[slot] = run - i;
+            index.link(slot, run - i);
+            i = run;
+        }
+        index.distinct = distinct;
+        index.maxFrequency = highest;
+        return index;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        heads = new int[8];
+        Arrays.fill(heads, NONE);
+        bucketSizes = new int[8];
+        distinct = 0;
+        maxFrequency = 0;
+    }
+
+    public void add(double value) {
+        long bits = Double.doubleToLongBits(value);
+        int slot = find(bits);
+        if (slot != NONE) {
+            move(slot, counts[slot] + 1);
+            return;
+        }
+
+        slot = insertSlot(bits);
+        counts[slot] = 1;
+        link(slot, 1);
+        distinct++;
+        if (maxFrequency == 0) maxFrequency = 1;
+        if (used * 2 > keys.length) rehash();
+    }
+
+    public void remove(double value) {
+        int slot = find(Double.doubleToLongBits(value));
+        if (slot == NONE) throw new IllegalStateException("Value " + value + " is not in the index");
+
+        if (counts[slot] > 1) {
+            move(slot, counts[slot] - 1);
+        } else {
+            unlink(slot, 1);
+            counts[slot] = DELETED;
+            distinct--;
+            if (bucketSizes[maxFrequency] == 0) maxFrequency--;
+        }
+    }
+
+    public void replace(double oldValue, double newValue) {
+        if (Double.doubleToLongBits(oldValue) == Double.doubleToLongBits(newValue)) return;
+        add(newValue);
+        remove(oldValue);
+    }
+
+    public int count(double value) {
+        int slot = find(Double.doubleToLongBits(value));
+        return slot == NONE ? 0 : counts[slot];
+    }
+
+    public int distinctCount() {
+        return distinct;
+    }
+
+    public int maxFrequency() {
+        return maxFrequency;
+    }
+
+    // How many distinct values share the highest frequency
+    public int modeCount() {
+        return bucketSizes[maxFrequency];
+    }
+
+    // One of the most frequent values, NaN when there are none
+    public double anyMode() {
+        if (maxFrequency == 0) return Double.NaN;
+        return Double.longBitsToDouble(keys[heads[maxFrequency]]);
+    }
+
+    // The least of the most frequent values under Double.compare; O(modeCount())
+    public double smallestMode() {
+        if (maxFrequency == 0) return Double.NaN;
+        double smallest = anyMode();
+        for (int slot = heads[maxFrequency]; slot != NONE; slot = next[slot]) {
+            double value = Double.longBitsToDouble(keys[slot]);
+            if (Double.compare(value, smallest) < 0) smallest = value;
+        }
+        return smallest;
+    }
+
+    public void forEachMode(DoubleConsumer action) {
+        if (maxFrequency == 0) return;
+        for (int slot = heads[maxFrequency]; slot != NONE; slot = next[slot]) {
+            action.accept(Double.longBitsToDouble(keys[slot]));
+        }
+    }
+
+    public void forEach(EntryConsumer action) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] > 0) action.accept(Double.longBitsToDouble(keys[slot]), counts[slot]);
+        }
+    }
+
+    private int find(long bits) {
+        int mask = keys.length - 1;
+        for (int slot = hash(bits); ; slot = (slot + 1) & mask) {
+            int count = counts[slot];
+            if (count == EMPTY) return NONE;
+            if (count > 0 && keys[slot] == bits) return slot;
+        }
+    }
+
+    // The slot a new key goes in: the first deleted one on its probe path, else the empty one
+    private int insertSlot(long bits) {
+        int mask = keys.length - 1;
+        int slot = hash(bits);
+        while (counts[slot] > 0) slot = (slot + 1) & mask;
+        if (counts[slot] == EMPTY) used++;
+        keys[slot] = bits;
+        return slot;
+    }
+
+    private int hash(long bits) {
+        return (int) ((bits * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void move(int slot, int frequency) {
+        int old = counts[slot];
+        unlink(slot, old);
+        counts[slot] = frequency;
+        link(slot, frequency);
+        if (frequency > maxFrequency) {
+            maxFrequency = frequency;
+        } else if (bucketSizes[maxFrequency] == 0) {
+            maxFrequency--;
+        }
+    }
+
+    private void link(int slot, int frequency) {
+        if (frequency == heads.length) {
+            int length = heads.length;
+            heads = Arrays.copyOf(heads, length * 2);
+            Arrays.fill(heads, length, heads.length, NONE);
+            bucketSizes = Arrays.copyOf(bucketSizes, length * 2);
+        }
+        int head = heads[frequency];
+        prev[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) prev[head] = slot;
+        heads[frequency] = slot;
+        bucketSizes[frequency]++;
+    }
+
+    private void unlink(int slot, int frequency) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            heads[frequency] = next[slot];
+        }
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+        bucketSizes[frequency]--;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        used = 0;
+    }
+
+    // Sized from the live keys alone, so a table full of deleted slots shrinks back down
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, distinct)) * 4));
+
+        Arrays.fill(heads, NONE);
+        Arrays.fill(bucketSizes, 0);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] > 0) {
+                int slot = insertSlot(oldKeys[i]);
+                counts[slot] = oldCounts[i];
+                link(slot, oldCounts[i]);
+            }
+        }
+    }
+}
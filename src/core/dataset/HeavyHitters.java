@@ -0,0 +1,116 @@
+package core.dataset;
+
+// Misra-Gries frequent values: two passes over a column in space fixed by the number of counters
+// k, not by the number of values. The first pass keeps at most k candidates; a value without a
+// counter takes a free one, or when none is free every counter drops by one, so any value seen
+// more than n / (k + 1) times is still a candidate at the end. The second pass counts just the
+// candidates exactly. When the best of them clears n / (k + 1), no value outside can beat or tie
+// it and the result is exact; otherwise it is only the most frequent value that was kept.
+final class HeavyHitters {
+    private static final int BLOCK = 1 << 14;
+
+    private final int counters;
+    private long[] keys;
+    // Live slots hold a count above zero; zero marks an empty slot
+    private int[] counts;
+    private int shift;
+    private int size;
+
+    private HeavyHitters(int counters) {
+        this.counters = counters;
+        allocate(Math.max(16, Integer.highestOneBit(counters) * 4));
+    }
+
+    static Modes modes(ColumnView values, int counters) {
+        int n = values.size();
+        if (n == 0) return new Modes(Double.NaN, 0, 0, false);
+        HeavyHitters candidates = new HeavyHitters(counters);
+        double[] block = new double[Math.min(BLOCK, n)];
+        for (int from = 0; from < n; from += block.length) {
+            int length = Math.min(block.length, n - from);
+            values.copyTo(from, block, 0, length);
+            for (int i = 0; i < length; i++) candidates.offer(Double.doubleToLongBits(block[i]));
+        }
+
+        int[] exact = new int[candidates.keys.length];
+        for (int from = 0; from < n; from += block.length) {
+            int length = Math.min(block.length, n - from);
+            values.copyTo(from, block, 0, length);
+            for (int i = 0; i < length; i++) {
+                int slot = candidates.find(Double.doubleToLongBits(block[i]));
+                if (slot >= 0) exact[slot]++;
+            }
+        }
+        return candidates.best(exact, n);
+    }
+
+    private void offer(long bits) {
+        int slot = find(bits);
+        if (slot >= 0) {
+            counts[slot]++;
+        } else if (size < counters) {
+            insert(bits, 1);
+        } else {
+            decrementAll();
+        }
+    }
+
+    // Each call uses up k + 1 occurrences (the new one and one per counter), so over the pass
+    // the O(k) rebuilds add up to O(n)
+    private void decrementAll() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        allocate(keys.length);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldCounts[slot] > 1) insert(oldKeys[slot], oldCounts[slot] - 1);
+        }
+    }
+
+    private Modes best(int[] exact, int n) {
+        int frequency = 0;
+        int count = 0;
+        double smallest = Double.NaN;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (counts[slot] == 0) continue;
+            double value = Double.longBitsToDouble(keys[slot]);
+            if (exact[slot] > frequency) {
+                frequency = exact[slot];
+                count = 1;
+                smallest = value;
+            } else if (exact[slot] == frequency) {
+                count++;
+                if (Double.compare(value, smallest) < 0) smallest = value;
+            }
+        }
+        boolean approximate = (long) frequency * (counters + 1) <= n;
+        return new Modes(smallest, frequency, count, approximate);
+    }
+
+    private int find(long bits) {
+        int mask = keys.length - 1;
+        for (int slot = hash(bits); ; slot = (slot + 1) & mask) {
+            if (counts[slot] == 0) return -1;
+            if (keys[slot] == bits) return slot;
+        }
+    }
+
+    private void insert(long bits, int count) {
+        int mask = keys.length - 1;
+        int slot = hash(bits);
+        while (counts[slot] != 0) slot = (slot + 1) & mask;
+        keys[slot] = bits;
+        counts[slot] = count;
+        size++;
+    }
+
+    private int hash(long bits) {
+        return (int) ((bits * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        size = 0;
+    }
+}
@@ -0,0 +1,351 @@
+package core.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+// A column stored in a file and used in place through FileChannel.map: opening one reads the header
+// and nothing else, however many values follow it. The layout, all little-endian:
+//
+//   0  magic "SCDS"           4  version (int)          8  count (long)
+//  16  min                   24  max                   32  mean of the finite values
+//  40  M2 of the finite values                         48  sum of the finite values
+//  56  NaN count (long)      64  +Infinity count       72  -Infinity count
+//  80  reserved up to 128, then count doubles
+//
+// Appends update the header summary in O(1) as they go, so a crashed writer still leaves a file
+// whose header describes a prefix of its values. Edits in the middle rescan the extremes only when
+// they replace one. The file is kept a little longer than needed while open and trimmed on close.
+// open() maps the file read-only, so read-only files can be opened; the first edit reopens it
+// for writing.
+// java.lang.foreign is final from JDK 22; on JDK 21 this class needs --enable-preview.
+public final class MappedColumn implements ColumnStore {
+    private static final int MAGIC = 0x53444353;
+    private static final int VERSION = 1;
+    static final long HEADER_BYTES = 128;
+    private static final long MIN_CAPACITY = 1 << 16;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Path path;
+    private FileChannel channel;
+    private boolean writable;
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+    private int size;
+    private int modCount;
+
+    private final RunningStats stats = new RunningStats();
+    // Infinite sentinels while empty; Double.compare puts NaN above both, so it needs no special case
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private MappedColumn(Path path, FileChannel channel, boolean writable) {
+        this.path = path;
+        this.channel = channel;
+        this.writable = writable;
+    }
+
+    // A new, empty column file; an existing file at path is replaced
+    public static MappedColumn create(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedColumn column = new MappedColumn(path, channel, true);
+        try {
+            column.map(MIN_CAPACITY);
+            column.segment.set(INT, 0, MAGIC);
+            column.segment.set(INT, 4, VERSION);
+            column.writeHeader();
+        } catch (IOException | RuntimeException e) {
+            column.closeQuietly();
+            throw e;
+        }
+        return column;
+    }
+
+    public static MappedColumn open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedColumn column = new MappedColumn(path, channel, false);
+        try {
+            column.readHeader();
+        } catch (IOException | RuntimeException e) {
+            column.closeQuietly();
+            throw e;
+        }
+        return column;
+    }
+
+    // Writes a whole column out in one go, e.g. to save a session's dataset
+    public static void write(Path path, ColumnView values) throws IOException {
+        try (MappedColumn column = create(path)) {
+            double[] chunk = new double[Math.min(values.size(), 1 << 16)];
+            for (int from = 0; from < values.size(); from += chunk.length) {
+                int count = Math.min(chunk.length, values.size() - from);
+                values.copyTo(from, chunk, 0, count);
+                column.appendAll(chunk, 0, count);
+            }
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return segment.get(DOUBLE, offset(index));
+    }
+
+    @Override
+    public int modCount() {
+        return modCount;
+    }
+
+    @Override
+    public void copyTo(int from, double[] dest, int destPos, int length) {
+        Objects.checkFromIndexSize(from, length, size);
+        MemorySegment.copy(segment, DOUBLE, offset(from), dest, destPos, length);
+    }
+
+    @Override
+    public ColumnSummary summary() {
+        return new ColumnSummary(size == 0 ? Double.NaN : min, size == 0 ? Double.NaN : max);
+    }
+
+    @Override
+    public RunningStats stats() {
+        return stats;
+    }
+
+    @Override
+    public void append(double value) {
+        ensureCapacity(size + 1L);
+        segment.set(DOUBLE, offset(size), value);
+        size++;
+        include(value);
+        modCount++;
+        writeHeader();
+    }
+
+    @Override
+    public void appendAll(double[] source, int from, int to) {
+        Objects.checkFromToIndex(from, to, source.length);
+        int count = to - from;
+        ensureCapacity((long) size + count);
+        MemorySegment.copy(source, from, segment, DOUBLE, offset(size), count);
+        size += count;
+        for (int i = from; i < to; i++) include(source[i]);
+        modCount++;
+        writeHeader();
+    }
+
+    @Override
+    public double set(int index, double value) {
+        Objects.checkIndex(index, size);
+        ensureWritable();
+        double old = segment.get(DOUBLE, offset(index));
+        segment.set(DOUBLE, offset(index), value);
+        stats.replace(old, value);
+        if (stats.isStale()) stats.rebuild(this);
+        if (isExtreme(old)) {
+            rescanExtremes();
+        } else {
+            widenExtremes(value);
+        }
+        modCount++;
+        writeHeader();
+        return old;
+    }
+
+    @Override
+    public double removeAt(int index) {
+        Objects.checkIndex(index, size);
+        ensureWritable();
+        double old = segment.get(DOUBLE, offset(index));
+        MemorySegment.copy(segment, offset(index + 1), segment, offset(index), (long) (size - index - 1) * Double.BYTES);
+        size--;
+        stats.remove(old);
+        if (stats.isStale()) stats.rebuild(this);
+        if (isExtreme(old)) rescanExtremes();
+        modCount++;
+        writeHeader();
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        ensureWritable();
+        size = 0;
+        stats.clear();
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        modCount++;
+        writeHeader();
+    }
+
+    // Flushes the mapped pages to the file
+    public void force() {
+        if (writable) segment.force();
+    }
+
+    // Unmaps the file and, if it was written, trims it to the header and the values
+    @Override
+    public void close() {
+        if (arena == null) return;
+        try {
+            if (writable) segment.force();
+            unmap();
+            if (writable) channel.truncate(HEADER_BYTES + (long) size * Double.BYTES);
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            size = 0;
+            modCount++;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES) throw new IOException(path + " is not a dataset file");
+        map((fileSize - HEADER_BYTES) / Double.BYTES);
+
+        if (segment.get(INT, 0) != MAGIC) throw new IOException(path + " is not a dataset file");
+        if (segment.get(INT, 4) != VERSION) throw new IOException(path + " has unsupported version " + segment.get(INT, 4));
+        long count = segment.get(LONG, 8);
+        if (count < 0 || count > capacity) throw new IOException(path + " is truncated: header says " + count + " values");
+        if (count > Integer.MAX_VALUE) throw new IOException(path + " holds " + count + " values, more than a column can index");
+
+        size = (int) count;
+        if (size > 0) {
+            min = segment.get(DOUBLE, 16);
+            max = segment.get(DOUBLE, 24);
+        }
+        long nanCount = segment.get(LONG, 56);
+        long positiveInfinities = segment.get(LONG, 64);
+        long negativeInfinities = segment.get(LONG, 72);
+        int finite = (int) (count - nanCount - positiveInfinities - negativeInfinities);
+        stats.restore(new RunningStats.State(finite, segment.get(DOUBLE, 32), segment.get(DOUBLE, 40),
+            segment.get(DOUBLE, 48), (int) nanCount, (int) positiveInfinities, (int) negativeInfinities));
+    }
+
+    private void writeHeader() {
+        RunningStats.State state = stats.state();
+        segment.set(LONG, 8, size);
+        segment.set(DOUBLE, 16, size == 0 ? Double.NaN : min);
+        segment.set(DOUBLE, 24, size == 0 ? Double.NaN : max);
+        segment.set(DOUBLE, 32, state.mean());
+        segment.set(DOUBLE, 40, state.m2());
+        segment.set(DOUBLE, 48, state.sum());
+        segment.set(LONG, 56, state.nanCount());
+        segment.set(LONG, 64, state.positiveInfinities());
+        segment.set(LONG, 72, state.negativeInfinities());
+    }
+
+    private void include(double value) {
+        stats.add(value);
+        widenExtremes(value);
+    }
+
+    private void widenExtremes(double value) {
+        if (Double.compare(value, min) < 0) min = value;
+        if (Double.compare(value, max) > 0) max = value;
+    }
+
+    private boolean isExtreme(double value) {
+        return Double.compare(value, min) == 0 || Double.compare(value, max) == 0;
+    }
+
+    private void rescanExtremes() {
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) widenExtremes(get(i));
+    }
+
+    private long offset(int index) {
+        return HEADER_BYTES + (long) index * Double.BYTES;
+    }
+
+    private void ensureCapacity(long minCapacity) {
+        if (minCapacity > Integer.MAX_VALUE) throw new OutOfMemoryError("Column cannot hold more than " + Integer.MAX_VALUE + " values");
+        ensureWritable();
+        if (minCapacity <= capacity) return;
+        remap(Math.min(Integer.MAX_VALUE, Math.max(minCapacity, capacity + (capacity >> 1))));
+    }
+
+    // A file opened read-only is reopened for writing on the first edit. If that fails the column
+    // stays open for reading
+    private void ensureWritable() {
+        if (arena == null) throw new IllegalStateException("Column is closed");
+        if (writable) return;
+
+        FileChannel readWrite;
+        try {
+            readWrite = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        FileChannel readOnly = channel;
+        channel = readWrite;
+        writable = true;
+        try {
+            readOnly.close();
+        } catch (IOException ignored) {}
+        remap(Math.max(capacity, MIN_CAPACITY));
+    }
+
+    // Once the old mapping is released a failed map leaves nothing usable, so the channel is closed too
+    private void remap(long values) {
+        try {
+            unmap();
+            map(values);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly();
+            if (e instanceof IOException io) throw new UncheckedIOException(io);
+            throw (RuntimeException) e;
+        }
+    }
+
+    // Mapping past the end of a writable file grows the file to match
+    private void map(long values) throws IOException {
+        FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+        arena = Arena.ofShared();
+        try {
+            segment = channel.map(mode, 0, HEADER_BYTES + values * Double.BYTES, arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            arena = null;
+            throw e;
+        }
+        capacity = values;
+    }
+
+    private void unmap() {
+        if (arena != null) arena.close();
+        arena = null;
+        segment = MemorySegment.NULL;
+    }
+
+    private void closeQuietly() {
+        try {
+            unmap();
+            channel.close();
+        } catch (IOException | RuntimeException ignored) {}
+    }
+}
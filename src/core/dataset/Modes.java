@@ -0,0 +1,11 @@
+package core.dataset;
+
+// The most frequent values: the least of them under Double.compare, how often each occurs and how
+// many distinct values share that frequency. approximate when they were found among a bounded set
+// of candidates rather than from every value's count (see HeavyHitters). NaN and zeros when empty
+public record Modes(double smallest, int frequency, int count, boolean approximate) {
+    // Every value occurs equally often, so no value stands out
+    public boolean allTied(int size) {
+        return (long) count * frequency == size;
+    }
+}
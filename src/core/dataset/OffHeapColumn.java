@@ -0,0 +1,132 @@
+package core.dataset;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Objects;
+
+// A column in native memory, so the Java heap holds only this object however many values there
+// are. Every block gets its own shared arena: growing frees the old block as soon as the values
+// are copied out, and close() frees the last one instead of waiting for the garbage collector.
+// java.lang.foreign is final from JDK 22; on JDK 21 this class needs --enable-preview.
+public final class OffHeapColumn implements ColumnStore {
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE;
+    private static final long MIN_CAPACITY = 1024;
+
+    private Arena arena;
+    private MemorySegment segment;
+    private long capacity;
+    private int size;
+    private int modCount;
+
+    public OffHeapColumn() {
+        this(MIN_CAPACITY);
+    }
+
+    public OffHeapColumn(long initialCapacity) {
+        allocate(Math.max(MIN_CAPACITY, initialCapacity));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double get(int index) {
+        Objects.checkIndex(index, size);
+        return segment.getAtIndex(DOUBLE, index);
+    }
+
+    @Override
+    public int modCount() {
+        return modCount;
+    }
+
+    @Override
+    public void copyTo(int from, double[] dest, int destPos, int length) {
+        Objects.checkFromIndexSize(from, length, size);
+        MemorySegment.copy(segment, DOUBLE, (long) from * Double.BYTES, dest, destPos, length);
+    }
+
+    @Override
+    public void append(double value) {
+        ensureCapacity(size + 1L);
+        segment.setAtIndex(DOUBLE, size++, value);
+        modCount++;
+    }
+
+    @Override
+    public void appendAll(double[] source, int from, int to) {
+        Objects.checkFromToIndex(from, to, source.length);
+        int count = to - from;
+        ensureCapacity((long) size + count);
+        MemorySegment.copy(source, from, segment, DOUBLE, (long) size * Double.BYTES, count);
+        size += count;
+        modCount++;
+    }
+
+    @Override
+    public double set(int index, double value) {
+        Objects.checkIndex(index, size);
+        double old = segment.getAtIndex(DOUBLE, index);
+        segment.setAtIndex(DOUBLE, index, value);
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public double removeAt(int index) {
+        Objects.checkIndex(index, size);
+        double old = segment.getAtIndex(DOUBLE, index);
+        long tail = (long) (size - index - 1) * Double.BYTES;
+        MemorySegment.copy(segment, (index + 1L) * Double.BYTES, segment, (long) index * Double.BYTES, tail);
+        size--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public void close() {
+        if (arena == null) return;
+        arena.close();
+        arena = null;
+        segment = MemorySegment.NULL;
+        capacity = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public boolean isOpen() {
+        return arena != null;
+    }
+
+    // Bytes held outside the heap
+    public long reservedBytes() {
+        return capacity * Double.BYTES;
+    }
+
+    private void ensureCapacity(long minCapacity) {
+        if (arena == null) throw new IllegalStateException("Column is closed");
+        if (minCapacity > Integer.MAX_VALUE) throw new OutOfMemoryError("Column cannot hold more than " + Integer.MAX_VALUE + " values");
+        if (minCapacity <= capacity) return;
+
+        Arena oldArena = arena;
+        MemorySegment oldSegment = segment;
+        allocate(Math.min(Integer.MAX_VALUE, Math.max(minCapacity, capacity + (capacity >> 1))));
+        MemorySegment.copy(oldSegment, 0, segment, 0, (long) size * Double.BYTES);
+        oldArena.close();
+    }
+
+    private void allocate(long values) {
+        arena = Arena.ofShared();
+        segment = arena.allocate(values * Double.BYTES, Double.BYTES);
+        capacity = values;
+    }
+}
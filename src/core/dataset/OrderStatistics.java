@@ -0,0 +1,268 @@
+package core.dataset;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// The dataset's values in sorted order as a treap: each node holds one distinct value with its
+// multiplicity and the number of values in its subtree, so inserts, removals and "k-th smallest"
+// all walk a single O(log n) path. Nodes live in parallel arrays, recycled through a free list,
+// rather than one object per value. Values order as Double.compare orders them (NaN last).
+public final class OrderStatistics {
+    private static final int NIL = 0;
+
+    private double[] keys;
+    private int[] counts;
+    private int[] sizes;
+    private int[] priorities;
+    private int[] left;
+    private int[] right;
+
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+    private int root = NIL;
+    private int nextNode = 1;
+    private int freeList = NIL;
+
+    public OrderStatistics() {
+        this(16);
+    }
+
+    private OrderStatistics(int capacity) {
+        keys = new double[capacity];
+        counts = new int[capacity];
+        sizes = new int[capacity];
+        priorities = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+    }
+
+    // The first n values of an array sorted as Arrays.sort sorts it, in O(n) rather than n inserts:
+    // one node per run of equal values, in arrays of exactly that many nodes, linked into a treap
+    // along its right spine. A node is finished, and its size known, once a later node pops it
+    public static OrderStatistics fromSorted(double[] sorted, int n) {
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || Double.compare(sorted[i - 1], sorted[i]) != 0) distinct++;
+        }
+        OrderStatistics order = new OrderStatistics(distinct + 1);
+
+        int[] spine = new int[distinct + 1];
+        int depth = 0;
+        for (int i = 0; i < n; ) {
+            int run = i + 1;
+            while (run < n && Double.compare(sorted[run], sorted[i]) == 0) run++;
+            int node = order.newNode(sorted[i]);
+            order.counts[node] = run - i;
+            order.sizes[node] = run - i;
+
+            int popped = NIL;
+            while (depth > 0 && order.priorities[spine[depth - 1]] < order.priorities[node]) {
+                popped = spine[--depth];
+                order.update(popped);
+            }
+            order.left[node] = popped;
+            if (depth > 0) order.right[spine[depth - 1]] = node;
+            spine[depth++] = node;
+            i = run;
+        }
+        while (depth > 0) order.update(spine[--depth]);
+        order.root = distinct == 0 ? NIL : spine[0];
+        return order;
+    }
+
+    public int size() {
+        return sizes[root];
+    }
+
+    public void clear() {
+        root = NIL;
+        nextNode = 1;
+        freeList = NIL;
+    }
+
+    public void add(double value) {
+        root = insert(root, value);
+    }
+
+    public void remove(double value) {
+        root = delete(root, value);
+    }
+
+    public void replace(double oldValue, double newValue) {
+        if (Double.compare(oldValue, newValue) == 0) return;
+        remove(oldValue);
+        add(newValue);
+    }
+
+    // The k-th smallest value, counting from zero
+    public double select(int k) {
+        if (k < 0 || k >= size()) throw new IndexOutOfBoundsException("Rank " + k + " of " + size());
+        int node = root;
+        while (true) {
+            int leftSize = sizes[left[node]];
+            if (k < leftSize) {
+                node = left[node];
+            } else if (k < leftSize + counts[node]) {
+                return keys[node];
+            } else {
+                k -= leftSize + counts[node];
+                node = right[node];
+            }
+        }
+    }
+
+    // How many values sort strictly below value
+    public int rank(double value) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            int c = Double.compare(value, keys[node]);
+            if (c <= 0) {
+                node = left[node];
+            } else {
+                rank += sizes[left[node]] + counts[node];
+                node = right[node];
+            }
+        }
+        return rank;
+    }
+
+    public double min() {
+        return size() == 0 ? Double.NaN : select(0);
+    }
+
+    public double max() {
+        return size() == 0 ? Double.NaN : select(size() - 1);
+    }
+
+    public double median() {
+        int n = size();
+        if (n == 0) return 0;
+        if ((n & 1) == 1) return select(n / 2);
+        return (select(n / 2 - 1) + select(n / 2)) / 2;
+    }
+
+    // Linear interpolation between the closest ranks at p * (n - 1), p in [0, 1]
+    public double quantile(double p) {
+        int n = size();
+        if (n == 0) return 0;
+        if (n == 1) return select(0);
+        double index = p * (n - 1);
+        int lower = (int) Math.floor(index);
+        int upper = (int) Math.ceil(index);
+        double low = select(lower);
+        if (lower == upper) return low;
+        double high = select(upper);
+        return low + (index - lower) * (high - low);
+    }
+
+    private int insert(int node, double value) {
+        if (node == NIL) return newNode(value);
+
+        int c = Double.compare(value, keys[node]);
+        if (c == 0) {
+            counts[node]++;
+            sizes[node]++;
+            return node;
+        }
+        // The child goes into a local first: inserting may grow, and so replace, the arrays
+        if (c < 0) {
+            int child = insert(left[node], value);
+            left[node] = child;
+            if (priorities[child] > priorities[node]) return rotateRight(node);
+        } else {
+            int child = insert(right[node], value);
+            right[node] = child;
+            if (priorities[child] > priorities[node]) return rotateLeft(node);
+        }
+        sizes[node]++;
+        return node;
+    }
+
+    private int delete(int node, double value) {
+        if (node == NIL) throw new IllegalStateException("Value " + value + " is not in the index");
+
+        int c = Double.compare(value, keys[node]);
+        if (c < 0) {
+            left[node] = delete(left[node], value);
+        } else if (c > 0) {
+            right[node] = delete(right[node], value);
+        } else if (counts[node] > 1) {
+            counts[node]--;
+        } else {
+            int merged = merge(left[node], right[node]);
+            free(node);
+            return merged;
+        }
+        sizes[node]--;
+        return node;
+    }
+
+    // Joins two treaps where every value in a sorts before every value in b
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            update(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        update(b);
+        return b;
+    }
+
+    private int rotateRight(int node) {
+        int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private int rotateLeft(int node) {
+        int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private void update(int node) {
+        sizes[node] = sizes[left[node]] + counts[node] + sizes[right[node]];
+    }
+
+    private int newNode(double value) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (nextNode == keys.length) grow();
+            node = nextNode++;
+        }
+        keys[node] = value;
+        counts[node] = 1;
+        sizes[node] = 1;
+        priorities[node] = random.nextInt();
+        left[node] = NIL;
+        right[node] = NIL;
+        return node;
+    }
+
+    private void free(int node) {
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+    }
+}
@@ -0,0 +1,195 @@
+package core.dataset;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Count, sum, mean, M2, min and max of a column in one fork/join pass. Each block of BLOCK values is
+// reduced on its own: a Neumaier-compensated sum, then a second pass over the block, still in the
+// cache, for the squared deviations from its mean. Blocks are then combined pairwise with Chan's
+// formula for M2 and a compensated add for the sums. The blocks and the order they combine in
+// depend only on the column's size, never on the pool, so the result is bit-for-bit the same on
+// one thread or many. Infinities and NaN are counted on the side, as RunningStats counts them.
+public final class Reduction {
+    static final int BLOCK = 1 << 14;
+
+    public record Moments(int count, double sum, double mean, double m2, double min, double max,
+                          int nanCount, int positiveInfinities, int negativeInfinities) {
+        public int size() {
+            return count + nanCount + positiveInfinities + negativeInfinities;
+        }
+
+        // The figures RunningStats needs to carry on from here
+        public RunningStats.State state() {
+            return new RunningStats.State(count, mean, m2, sum, nanCount, positiveInfinities, negativeInfinities);
+        }
+    }
+
+    private Reduction() {}
+
+    public static Moments reduce(ColumnView values) {
+        return reduce(values, ForkJoinPool.commonPool());
+    }
+
+    public static Moments reduce(ColumnView values, ForkJoinPool pool) {
+        int n = values.size();
+        Partial result = n <= BLOCK ? new Block(values, 0, n).compute() : pool.invoke(new Block(values, 0, n));
+        return result.toMoments();
+    }
+
+    private static final class Block extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ColumnView values;
+        private final int from;
+        private final int to;
+
+        Block(ColumnView values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > BLOCK) {
+                int mid = from + (to - from) / 2;
+                Block left = new Block(values, from, mid);
+                left.fork();
+                Partial right = new Block(values, mid, to).compute();
+                return left.join().combine(right);
+            }
+
+            double[] block = new double[to - from];
+            values.copyTo(from, block, 0, block.length);
+            return Partial.of(block);
+        }
+    }
+
+    private static final class Partial {
+        int count;
+        double sum;
+        double compensation;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean any;
+        int nanCount;
+        int positiveInfinities;
+        int negativeInfinities;
+
+        // The finite values take the tight loop; plain comparisons stand in for Double.compare
+        // there, with signed zeros settled on ties and the non-finite values handled on the side
+        static Partial of(double[] block) {
+            Partial partial = new Partial();
+            if (block.length == 0) return partial;
+            partial.any = true;
+
+            int count = 0;
+            double sum = 0;
+            double compensation = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            boolean finiteSeen = false;
+            for (double value : block) {
+                if (Double.isFinite(value)) {
+                    count++;
+                    double t = sum + value;
+                    if (Math.abs(sum) >= Math.abs(value)) {
+                        compensation += (sum - t) + value;
+                    } else {
+                        compensation += (value - t) + sum;
+                    }
+                    sum = t;
+                    if (value < min || (value == min && Double.doubleToRawLongBits(value) < 0)) min = value;
+                    if (value > max || (value == max && Double.doubleToRawLongBits(max) < 0)) max = value;
+                    finiteSeen = true;
+                } else if (Double.isNaN(value)) {
+                    partial.nanCount++;
+                } else if (value > 0) {
+                    partial.positiveInfinities++;
+                } else {
+                    partial.negativeInfinities++;
+                }
+            }
+            if (partial.negativeInfinities > 0) {
+                min = Double.NEGATIVE_INFINITY;
+            } else if (!finiteSeen) {
+                min = partial.positiveInfinities > 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+            }
+            if (partial.nanCount > 0) {
+                max = Double.NaN;
+            } else if (partial.positiveInfinities > 0) {
+                max = Double.POSITIVE_INFINITY;
+            }
+            partial.min = min;
+            partial.max = max;
+            partial.count = count;
+            partial.sum = sum;
+            partial.compensation = compensation;
+            if (count == 0) return partial;
+
+            // Two-pass deviations, with the usual correction for the rounding left in the mean
+            double mean = (sum + compensation) / count;
+            double squares = 0;
+            double deviations = 0;
+            for (double value : block) {
+                if (Double.isFinite(value)) {
+                    double d = value - mean;
+                    squares += d * d;
+                    deviations += d;
+                }
+            }
+            partial.mean = mean;
+            partial.m2 = Math.max(0, squares - deviations * deviations / count);
+            return partial;
+        }
+
+        // Chan et al.'s pairwise update: M2 grows by delta^2 * na * nb / n
+        Partial combine(Partial other) {
+            if (other.any) {
+                if (!any || Double.compare(other.min, min) < 0) min = other.min;
+                if (!any || Double.compare(other.max, max) > 0) max = other.max;
+                any = true;
+            }
+            nanCount += other.nanCount;
+            positiveInfinities += other.positiveInfinities;
+            negativeInfinities += other.negativeInfinities;
+            if (other.count == 0) return this;
+            if (count == 0) {
+                count = other.count;
+                sum = other.sum;
+                compensation = other.compensation;
+                mean = other.mean;
+                m2 = other.m2;
+                return this;
+            }
+
+            long n = (long) count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / n;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / n);
+            count = (int) n;
+            add(other.sum);
+            add(other.compensation);
+            return this;
+        }
+
+        void add(double value) {
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value;
+            } else {
+                compensation += (value - t) + sum;
+            }
+            sum = t;
+        }
+
+        Moments toMoments() {
+            // The mean from the compensated sum is the more accurate of the two at hand
+            double total = sum + compensation;
+            return new Moments(count, total, count == 0 ? 0 : total / count, m2,
+                any ? min : Double.NaN, any ? max : Double.NaN, nanCount, positiveInfinities, negativeInfinities);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package core.dataset;
+
+// Welford's running mean and M2 (sum of squared deviations from the mean) and a Neumaier-compensated
+// sum, kept up to date one value at a time. Removals and replacements run the
+// recurrence backwards; since that loses a little accuracy each time, the owner rebuilds from the
+// data once downdates outnumber the values, which keeps every mutation O(1) amortized.
+// Infinities and NaN are counted on the side so one of them cannot poison the running mean.
+public final class RunningStats {
+    // Everything needed to carry the stats somewhere else (a file header) and back without a pass
+    // over the values. count, mean, m2 and sum cover the finite values only
+    public record State(int count, double mean, double m2, double sum,
+                        int nanCount, int positiveInfinities, int negativeInfinities) {}
+
+    private int count;
+    private double mean;
+    private double m2;
+    private double sum;
+    private double compensation;
+
+    private int nanCount;
+    private int positiveInfinities;
+    private int negativeInfinities;
+
+    private int downdates;
+
+    public RunningStats() {
+        clear();
+    }
+
+    // Stats for a whole column in one parallel pass, for callers that have no running copy
+    public static RunningStats of(ColumnView values) {
+        RunningStats stats = new RunningStats();
+        stats.rebuild(values);
+        return stats;
+    }
+
+    public void clear() {
+        count = 0;
+        mean = 0;
+        m2 = 0;
+        sum = 0;
+        compensation = 0;
+        nanCount = 0;
+        positiveInfinities = 0;
+        negativeInfinities = 0;
+        downdates = 0;
+    }
+
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            countNonFinite(value, 1);
+            return;
+        }
+
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        addToSum(value);
+    }
+
+    public void remove(double value) {
+        downdates++;
+        if (!Double.isFinite(value)) {
+            countNonFinite(value, -1);
+            return;
+        }
+
+        if (count == 1) {
+            count = 0;
+            mean = 0;
+            m2 = 0;
+            sum = 0;
+            compensation = 0;
+            return;
+        }
+
+        double delta = value - mean;
+        count--;
+        mean -= delta / count;
+        m2 -= delta * (value - mean);
+        if (m2 < 0) m2 = 0;
+        addToSum(-value);
+    }
+
+    // An in-place edit as one step: the mean shifts by (new - old) / n, and M2 by
+    // (new - old) * (new - newMean + old - oldMean)
+    public void replace(double oldValue, double newValue) {
+        if (!Double.isFinite(oldValue) || !Double.isFinite(newValue)) {
+            remove(oldValue);
+            add(newValue);
+            return;
+        }
+
+        downdates++;
+
+        double diff = newValue - oldValue;
+        double newMean = mean + diff / count;
+        m2 += diff * (newValue - newMean + oldValue - mean);
+        if (m2 < 0) m2 = 0;
+        mean = newMean;
+        addToSum(-oldValue);
+        addToSum(newValue);
+    }
+
+    public State state() {
+        return new State(count, mean, m2, sum + compensation, nanCount, positiveInfinities, negativeInfinities);
+    }
+
+    public void restore(State state) {
+        clear();
+        count = state.count();
+        mean = state.mean();
+        m2 = state.m2();
+        sum = state.sum();
+        nanCount = state.nanCount();
+        positiveInfinities = state.positiveInfinities();
+        negativeInfinities = state.negativeInfinities();
+    }
+
+    // True once the downdates may have drifted far enough to be worth a rebuild
+    public boolean isStale() {
+        return downdates > size();
+    }
+
+    public void rebuild(ColumnView values) {
+        restore(Reduction.reduce(values).state());
+    }
+
+    public int size() {
+        return count + nanCount + positiveInfinities + negativeInfinities;
+    }
+
+    public double mean() {
+        if (size() == 0) return 0;
+        return count < size() ? nonFiniteResult() : mean;
+    }
+
+    public double sum() {
+        return count < size() ? nonFiniteResult() : sum + compensation;
+    }
+
+    public double populationVariance() {
+        if (size() == 0) return 0;
+        if (count < size()) return Double.NaN;
+        return m2 / count;
+    }
+
+    public double sampleVariance() {
+        if (size() < 2) return 0;
+        if (count < size()) return Double.NaN;
+        return m2 / (count - 1);
+    }
+
+    public double populationStdDev() {
+        return Math.sqrt(populationVariance());
+    }
+
+    public double sampleStdDev() {
+        return Math.sqrt(sampleVariance());
+    }
+
+    // What a plain sum comes to once infinities or NaN are in it
+    private double nonFiniteResult() {
+        if (nanCount > 0 || (positiveInfinities > 0 && negativeInfinities > 0)) return Double.NaN;
+        return positiveInfinities > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+
+    private void countNonFinite(double value, int delta) {
+        if (Double.isNaN(value)) {
+            nanCount += delta;
+        } else if (value > 0) {
+            positiveInfinities += delta;
+        } else {
+            negativeInfinities += delta;
+        }
+    }
+
+    private void addToSum(double value) {
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+}
@@ -0,0 +1,143 @@
+package core.dataset;
+
+import java.util.Arrays;
+
+// Order statistics without a full sort. Several ranks are found in one introselect pass: each
+// three-way partition settles the ranks that fall among the pivot's equals and recurses only into
+// the sides that still hold wanted ranks, so a median with both quartiles costs expected O(n).
+// Past a depth of 2 log2(n) a range is sorted instead, which bounds the worst case at O(n log n).
+// The buffer is rearranged in place, and a selected zero may change sign, so callers pass a copy.
+// Values order as Arrays.sort orders them: NaN last, -0.0 before 0.0.
+public final class Selection {
+    private static final int SORT_THRESHOLD = 16;
+
+    private Selection() {}
+
+    public static double median(double[] scratch, int n) {
+        return quantiles(scratch, n, 0.5)[0];
+    }
+
+    // Linear interpolation between the closest ranks at p * (n - 1), p in [0, 1], for every p at once
+    public static double[] quantiles(double[] scratch, int n, double... ps) {
+        double[] results = new double[ps.length];
+        if (n == 0) return results;
+
+        int[] ranks = new int[ps.length * 2];
+        for (int i = 0; i < ps.length; i++) {
+            double index = ps[i] * (n - 1);
+            ranks[2 * i] = (int) Math.floor(index);
+            ranks[2 * i + 1] = (int) Math.ceil(index);
+        }
+        int[] wanted = distinctSorted(ranks);
+        select(scratch, n, wanted);
+
+        for (int i = 0; i < ps.length; i++) {
+            double index = ps[i] * (n - 1);
+            int lower = ranks[2 * i];
+            int upper = ranks[2 * i + 1];
+            double low = scratch[lower];
+            results[i] = lower == upper ? low : low + (index - lower) * (scratch[upper] - low);
+        }
+        return results;
+    }
+
+    // Afterwards scratch[r] holds the r-th smallest of scratch[0, n) for every r in ranks (ascending)
+    public static void select(double[] scratch, int n, int[] ranks) {
+        // NaN compares false to everything, so it goes to the end first and takes no part
+        int end = 0;
+        for (int i = 0; i < n; i++) {
+            if (!Double.isNaN(scratch[i])) {
+                double value = scratch[i];
+                scratch[i] = scratch[end];
+                scratch[end++] = value;
+            }
+        }
+        int depthLimit = 2 * (32 - Integer.numberOfLeadingZeros(Math.max(1, end)));
+        select(scratch, 0, end, ranks, 0, ranks.length, depthLimit);
+        fixSignedZeros(scratch, end, ranks);
+    }
+
+    private static void select(double[] a, int from, int to, int[] ranks, int rankFrom, int rankTo, int depth) {
+        while (rankFrom < rankTo && ranks[rankFrom] < from) rankFrom++;
+        while (rankTo > rankFrom && ranks[rankTo - 1] >= to) rankTo--;
+        if (rankFrom == rankTo) return;
+
+        if (to - from <= SORT_THRESHOLD || depth == 0) {
+            Arrays.sort(a, from, to);
+            return;
+        }
+
+        double pivot = pivot(a, from, to);
+        // a[from, lt) < pivot, a[lt, i) == pivot, a(gt, to) > pivot
+        int lt = from;
+        int gt = to - 1;
+        int i = from;
+        while (i <= gt) {
+            double value = a[i];
+            if (value < pivot) {
+                a[i++] = a[lt];
+                a[lt++] = value;
+            } else if (value > pivot) {
+                a[i] = a[gt];
+                a[gt--] = value;
+            } else {
+                i++;
+            }
+        }
+
+        int split = rankFrom;
+        while (split < rankTo && ranks[split] < lt) split++;
+        int right = split;
+        while (right < rankTo && ranks[right] <= gt) right++;
+        select(a, from, lt, ranks, rankFrom, split, depth - 1);
+        select(a, gt + 1, to, ranks, right, rankTo, depth - 1);
+    }
+
+    // Median of three, or Tukey's ninther on larger ranges
+    private static double pivot(double[] a, int from, int to) {
+        int n = to - from;
+        int mid = from + n / 2;
+        if (n < 128) return median3(a[from], a[mid], a[to - 1]);
+        int step = n / 8;
+        return median3(
+            median3(a[from], a[from + step], a[from + 2 * step]),
+            median3(a[mid - step], a[mid], a[mid + step]),
+            median3(a[to - 1 - 2 * step], a[to - 1 - step], a[to - 1]));
+    }
+
+    private static double median3(double x, double y, double z) {
+        if (x < y) {
+            if (y < z) return y;
+            return x < z ? z : x;
+        }
+        if (x < z) return x;
+        return y < z ? z : y;
+    }
+
+    // The partitions treat -0.0 and 0.0 as equal; a selected zero takes the sign Arrays.sort would give it
+    private static void fixSignedZeros(double[] a, int n, int[] ranks) {
+        int firstZeroRank = -1;
+        int negativeZeros = 0;
+        for (int r : ranks) {
+            if (r >= n || a[r] != 0) continue;
+            if (firstZeroRank < 0) {
+                firstZeroRank = 0;
+                for (int i = 0; i < n; i++) {
+                    if (a[i] < 0) firstZeroRank++;
+                    else if (a[i] == 0 && Double.doubleToRawLongBits(a[i]) != 0) negativeZeros++;
+                }
+            }
+            a[r] = r < firstZeroRank + negativeZeros ? -0.0 : 0.0;
+        }
+    }
+
+    private static int[] distinctSorted(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[count++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+}
@@ -1,27 +1,32 @@
 package core.evaluator;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.function.DoubleUnaryOperator;
 import java.util.function.DoubleBinaryOperator;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import core.token.TokenType;
 import core.token.Token;
+import core.dataset.ColumnView;
+import core.dataset.Dataset;
+import core.dataset.RunningStats;
+import core.dataset.Selection;
 
 public class Evaluator {
+    // Filled once by the static block and never written again, so every session shares them without locking
     // 1 Parameter
-    private static Map<TokenType,  DoubleUnaryOperator> unaryOps = new HashMap<>();
+    private static final Map<TokenType,  DoubleUnaryOperator> unaryOps = new EnumMap<>(TokenType.class);
     // 2 Parameter
-    private static Map<TokenType,  DoubleBinaryOperator> binaryOps = new HashMap<>();
+    private static final Map<TokenType,  DoubleBinaryOperator> binaryOps = new EnumMap<>(TokenType.class);
 
     @FunctionalInterface
     interface TableOperation {
-        double apply(List<Double> table);
+        double apply(ColumnView table);
     }
 
-    private static Map<TokenType, TableOperation> statOps = new HashMap<>();
+    private static final Map<TokenType, TableOperation> statOps = new EnumMap<>(TokenType.class);
 
     static {
         unaryOps.put(TokenType.SIN, Math::sin);
@@ -52,6 +57,8 @@ public class Evaluator {
         
         unaryOps.put(TokenType.EXP, Math::exp);
         unaryOps.put(TokenType.TEN_POW, a -> Math.pow(10, a));
+        unaryOps.put(TokenType.SQUARE, a -> a * a);
+        unaryOps.put(TokenType.RECIPROCAL, a -> 1 / a);
         unaryOps.put(TokenType.UNARY_MINUS, a -> -a);
         unaryOps.put(TokenType.POSTFIX, a -> (a < 0) ? Double.NaN : Evaluator.factorial(a));
 
@@ -82,14 +89,30 @@ public class Evaluator {
         return res;
     }
 
-    public static double evaluate(List<Token> postfix, Map<String, Double> variables, List<Double> table) {
+    public static DoubleUnaryOperator getUnaryOp(TokenType type) {
+        return unaryOps.get(type);
+    }
+
+    public static DoubleBinaryOperator getBinaryOp(TokenType type) {
+        return binaryOps.get(type);
+    }
+
+    public static boolean isStatOp(TokenType type) {
+        return statOps.containsKey(type);
+    }
+
+    public static double applyStatOp(TokenType type, ColumnView table) {
+        return statOps.get(type).apply(table);
+    }
+
+    public static double evaluate(List<Token> postfix, Map<String, Double> variables, ColumnView table) {
         List<Double> stack = new ArrayList<>();
 
         for (Token token : postfix) {
             TokenType type = token.getType();
 
             if (type == TokenType.NUMBER) {
-                stack.add(Double.parseDouble(token.getValue()));
+                stack.add(token.getNumber());
             }
             else if (type == TokenType.IDENTIFIER) {
                 String varName = token.getValue().toLowerCase();
@@ -112,55 +135,42 @@ public class Evaluator {
         return stack.isEmpty() ? 0.0 : stack.get(0);
     }
 
-    private static double Mean(List<Double> table) {
+    private static double Mean(ColumnView table) {
+        if (table instanceof Dataset dataset) return dataset.getStats().mean();
         if(table == null || table.size() < 1) return 0;
 
-        double result = 0;
-        
-        for(double val : table) {
-            result += val;
-        }
-        
-        return result / table.size();
+        return RunningStats.of(table).mean();
     }
 
-    private static double Median(List<Double> table) {
+    private static double Median(ColumnView table) {
+        if (table instanceof Dataset dataset) return dataset.median();
         if(table == null || table.size() < 1) return 0;
 
-        List<Double> sortedTable = new ArrayList<>(table);
-        Collections.sort(sortedTable);
-        int idx;
-        if((table.size() & 1) == 1) {
-            idx = (table.size() + 1) / 2 - 1;
-            return table.get(idx);
-        }
-
-        idx = (sortedTable.size()) / 2 - 1;
-        
-        return (sortedTable.get(idx) + sortedTable.get(idx + 1)) / 2;
+        return Selection.median(table.toArray(), table.size());
     }
 
-    private static double Mode(List<Double> table) {
+    private static double Mode(ColumnView table) {
+        if (table instanceof Dataset dataset) return dataset.isEmpty() ? 0 : dataset.mode();
         if(table == null || table.size() < 1) return 0;
 
-        List<Double> sortedTable = new ArrayList<>(table);
-        Collections.sort(sortedTable);
+        double[] sortedTable = table.toArray();
+        Arrays.sort(sortedTable);
 
-        double mode = sortedTable.get(0);
+        double mode = sortedTable[0];
         int maxCount = 0;
 
         int left = 0;
-        while (left < sortedTable.size()) {
+        while (left < sortedTable.length) {
             int right = left;
             
-            while (right < sortedTable.size() && sortedTable.get(right) == sortedTable.get(left)) {
+            while (right < sortedTable.length && Double.compare(sortedTable[right], sortedTable[left]) == 0) {
                 right++;
             }
 
             int currentCount = right - left;
             if (currentCount > maxCount) {
                 maxCount = currentCount;
-                mode = sortedTable.get(left);
+                mode = sortedTable[left];
             }
 
             left = right;
@@ -169,37 +179,25 @@ public class Evaluator {
         return mode;
     }
 
-    private static double pVariance(List<Double> table) {
+    private static double pVariance(ColumnView table) {
+        if (table instanceof Dataset dataset) return dataset.getStats().populationVariance();
         if(table == null || table.size() < 1) return 0;
 
-        double mean = Mean(table);
-        double result = 0;
-
-        for(double val : table) {
-            result += (val - mean) * (val - mean);
-        }
-        
-        return result / table.size();
+        return RunningStats.of(table).populationVariance();
     }
 
-    private static double pStandardDeviation(List<Double> table) {  
+    private static double pStandardDeviation(ColumnView table) {  
         return Math.sqrt(pVariance(table));
     }
 
-    private static double sVariance(List<Double> table) {
+    private static double sVariance(ColumnView table) {
+        if (table instanceof Dataset dataset) return dataset.getStats().sampleVariance();
         if(table == null || table.size() < 2) return 0;
 
-        double mean = Mean(table);
-        double result = 0;
-
-        for(double val : table) {
-            result += (val - mean) * (val - mean);
-        }
-        
-        return result / (table.size() - 1);
+        return RunningStats.of(table).sampleVariance();
     }
 
-    private static double sStandardDeviation(List<Double> table) {  
+    private static double sStandardDeviation(ColumnView table) {  
         return Math.sqrt(sVariance(table));
     }
 
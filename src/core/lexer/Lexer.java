@@ -1,9 +1,11 @@
 package core.lexer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import core.text.FastDoubleParser;
 import core.token.TokenType;
 import core.token.Token;
 
@@ -11,43 +13,61 @@ public class Lexer {
     private final String input;
     private int pos = 0;
 
-    public static final Map<String, TokenType> KEYWORDS = new TreeMap<>();
-    public static final Map<String, TokenType> STAT_KEYWORDS = new TreeMap<>();
-    public static final Map<String, Double> CONSTANTS = new TreeMap<>();
+    private static final Map<String, TokenType> keywords = new TreeMap<>();
+    private static final Map<String, TokenType> statKeywords = new TreeMap<>();
+    private static final Map<String, Double> constants = new TreeMap<>();
+
+    // Operators and parentheses carry no data of their own, so every tokenize() shares these
+    private static final Token PLUS = new Token(TokenType.PLUS, "+");
+    private static final Token MINUS = new Token(TokenType.MINUS, "-");
+    private static final Token UNARY_MINUS = new Token(TokenType.UNARY_MINUS, "-");
+    private static final Token MULTIPLY = new Token(TokenType.MULTIPLY, "*");
+    private static final Token DIVIDE = new Token(TokenType.DIVIDE, "/");
+    private static final Token POWER = new Token(TokenType.POWER, "^");
+    private static final Token POSTFIX = new Token(TokenType.POSTFIX, "!");
+    private static final Token MODULO = new Token(TokenType.MODULO, "%");
+    private static final Token LPAREN = new Token(TokenType.LPAREN, "(");
+    private static final Token RPAREN = new Token(TokenType.RPAREN, ")");
+    private static final Token EOF = new Token(TokenType.EOF, "");
+
+    // Shared by every session, so only read-only views are public
+    public static final Map<String, TokenType> KEYWORDS = Collections.unmodifiableMap(keywords);
+    public static final Map<String, TokenType> STAT_KEYWORDS = Collections.unmodifiableMap(statKeywords);
+    public static final Map<String, Double> CONSTANTS = Collections.unmodifiableMap(constants);
 
    static {
-        KEYWORDS.put("sin", TokenType.SIN);
-        KEYWORDS.put("cos", TokenType.COS);
-        KEYWORDS.put("tan", TokenType.TAN);
-        KEYWORDS.put("asin", TokenType.ASIN);
-        KEYWORDS.put("acos", TokenType.ACOS);
-        KEYWORDS.put("atan", TokenType.ATAN);
+        keywords.put("sin", TokenType.SIN);
+        keywords.put("cos", TokenType.COS);
+        keywords.put("tan", TokenType.TAN);
+        keywords.put("asin", TokenType.ASIN);
+        keywords.put("acos", TokenType.ACOS);
+        keywords.put("atan", TokenType.ATAN);
         
-        KEYWORDS.put("sinh", TokenType.SINH);
-        KEYWORDS.put("cosh", TokenType.COSH);
-        KEYWORDS.put("tanh", TokenType.TANH);
-
-        KEYWORDS.put("asinh", TokenType.ASINH);
-        KEYWORDS.put("acosh", TokenType.ACOSH);
-        KEYWORDS.put("atanh", TokenType.ATANH);
-
-        KEYWORDS.put("sqrt", TokenType.SQRT);
-        KEYWORDS.put("logten", TokenType.LOG);
-        KEYWORDS.put("log",   TokenType.LN);
-        KEYWORDS.put("logtwo",  TokenType.LOG2);
-        KEYWORDS.put("exp",   TokenType.EXP);
-        KEYWORDS.put("abs",   TokenType.ABS);
+        keywords.put("sinh", TokenType.SINH);
+        keywords.put("cosh", TokenType.COSH);
+        keywords.put("tanh", TokenType.TANH);
+
+        keywords.put("asinh", TokenType.ASINH);
+        keywords.put("acosh", TokenType.ACOSH);
+        keywords.put("atanh", TokenType.ATANH);
+
+        keywords.put("sqrt", TokenType.SQRT);
+        keywords.put("logten", TokenType.LOG);
+        keywords.put("log",   TokenType.LN);
+        keywords.put("logtwo",  TokenType.LOG2);
+        keywords.put("exp",   TokenType.EXP);
+        keywords.put("abs",   TokenType.ABS);
         
-        STAT_KEYWORDS.put("mean", TokenType.MEAN);
-        STAT_KEYWORDS.put("median", TokenType.MEDIAN);
-        STAT_KEYWORDS.put("mode", TokenType.MODE);
-        STAT_KEYWORDS.put("pvar", TokenType.PVARIANCE);
-        STAT_KEYWORDS.put("pstddev", TokenType.PSTD_DEV);
-        STAT_KEYWORDS.put("svar", TokenType.SVARIANCE);
-        STAT_KEYWORDS.put("sstddev", TokenType.SSTD_DEV);
-
-        CONSTANTS.put("pi", Math.PI);
-        CONSTANTS.put("e",  Math.E);
+        statKeywords.put("mean", TokenType.MEAN);
+        statKeywords.put("median", TokenType.MEDIAN);
+        statKeywords.put("mode", TokenType.MODE);
+        statKeywords.put("pvar", TokenType.PVARIANCE);
+        statKeywords.put("pstddev", TokenType.PSTD_DEV);
+        statKeywords.put("svar", TokenType.SVARIANCE);
+        statKeywords.put("sstddev", TokenType.SSTD_DEV);
+
+        constants.put("pi", Math.PI);
+        constants.put("e",  Math.E);
     }
 
     public Lexer(String input) {
@@ -74,7 +94,7 @@ public class Lexer {
             }
         }
 
-        tokens.add(new Token(TokenType.EOF, ""));
+        tokens.add(EOF);
         return tokens;
     }
 
@@ -84,18 +104,18 @@ public class Lexer {
     }
 
     private Token readNumber() {
-        StringBuilder sb = new StringBuilder();
+        int start = pos;
         while (pos < input.length() && Character.isDigit(peek())) {
-            sb.append(input.charAt(pos++));
+            pos++;
         }
 
         if (pos < input.length() && peek() == '.') {
-            sb.append(input.charAt(pos++));
+            pos++;
             while (pos < input.length() && Character.isDigit(peek())) {
-                sb.append(input.charAt(pos++));
+                pos++;
             }
         }
-        return new Token(TokenType.NUMBER, sb.toString());
+        return new Token(TokenType.NUMBER, input.substring(start, pos), FastDoubleParser.parseDouble(input, start, pos));
     }
 
     private Token readIdentifier() {
@@ -112,7 +132,8 @@ public class Lexer {
             return new Token(STAT_KEYWORDS.get(name), name);
         }
         if (CONSTANTS.containsKey(name)) {
-            return new Token(TokenType.NUMBER, String.valueOf(CONSTANTS.get(name)));
+            double value = CONSTANTS.get(name);
+            return new Token(TokenType.NUMBER, String.valueOf(value), value);
         }
         return new Token(TokenType.IDENTIFIER, name);
     }
@@ -123,18 +144,18 @@ public class Lexer {
 
         if (ch == '-') {
             if (currentTokens.isEmpty() || isPreviousOperator(currentTokens)) {
-                return new Token(TokenType.UNARY_MINUS, "-");
+                return UNARY_MINUS;
             }
-            return new Token(TokenType.MINUS, "-");
+            return MINUS;
         }
 
         return switch (ch) {
-            case '+' -> new Token(TokenType.PLUS, "+");
-            case '*' -> new Token(TokenType.MULTIPLY, "*");
-            case '/' -> new Token(TokenType.DIVIDE, "/");
-            case '^' -> new Token(TokenType.POWER, "^");
-            case '!' -> new Token(TokenType.POSTFIX, "!");
-            case '%' -> new Token(TokenType.MODULO, "%");
+            case '+' -> PLUS;
+            case '*' -> MULTIPLY;
+            case '/' -> DIVIDE;
+            case '^' -> POWER;
+            case '!' -> POSTFIX;
+            case '%' -> MODULO;
             default -> throw new IllegalArgumentException("Unexpected operator: " + ch);
         };
     }
@@ -142,7 +163,7 @@ public class Lexer {
     private Token readParenthesis() {
         char ch = peek();
         pos++;
-        return (ch == '(') ? new Token(TokenType.LPAREN, "(") : new Token(TokenType.RPAREN, ")");
+        return (ch == '(') ? LPAREN : RPAREN;
     }
 
     private boolean isPreviousOperator(List<Token> tokens) {
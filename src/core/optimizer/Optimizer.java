@@ -0,0 +1,154 @@
+package core.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import core.evaluator.Evaluator;
+import core.token.Token;
+import core.token.TokenType;
+
+// Rebuilds the postfix list as a tree, folds constant sub-trees and strips identities,
+// then flattens it back into postfix that Evaluator and ExpressionCompiler accept unchanged.
+public class Optimizer {
+    private final List<Token> postfix;
+
+    public Optimizer(List<Token> postfix) {
+        this.postfix = postfix;
+    }
+
+    public List<Token> optimize() {
+        List<Node> stack = new ArrayList<>();
+
+        for (Token token : postfix) {
+            TokenType type = token.getType();
+
+            if (type == TokenType.NUMBER) {
+                stack.add(new Node(token, token.getNumber()));
+            }
+            else if (type == TokenType.IDENTIFIER || Evaluator.isStatOp(type)) {
+                stack.add(new Node(token, null, null));
+            }
+            else if (Evaluator.getUnaryOp(type) != null) {
+                Node a = pop(stack);
+                stack.add(simplifyUnary(token, a));
+            }
+            else if (Evaluator.getBinaryOp(type) != null) {
+                Node b = pop(stack);
+                Node a = pop(stack);
+                stack.add(simplifyBinary(token, a, b));
+            }
+        }
+
+        // Evaluator answers with the bottom of the stack; anything above it has no effect
+        return stack.isEmpty() ? new ArrayList<>() : flatten(stack.get(0));
+    }
+
+    private Node simplifyUnary(Token token, Node a) {
+        TokenType type = token.getType();
+
+        if (a.isConstant()) {
+            return constant(Evaluator.getUnaryOp(type).applyAsDouble(a.value));
+        }
+        // --x
+        if (type == TokenType.UNARY_MINUS && a.token.getType() == TokenType.UNARY_MINUS) {
+            return a.left;
+        }
+        return new Node(token, a, null);
+    }
+
+    private Node simplifyBinary(Token token, Node a, Node b) {
+        TokenType type = token.getType();
+
+        if (a.isConstant() && b.isConstant()) {
+            return constant(Evaluator.getBinaryOp(type).applyAsDouble(a.value, b.value));
+        }
+
+        // x + 0 only differs from x in the sign of a negative zero, which compares equal
+        switch (type) {
+            case PLUS -> {
+                if (b.is(0)) return a;
+                if (a.is(0)) return b;
+            }
+            case MINUS -> {
+                if (b.is(0)) return a;
+            }
+            case MULTIPLY -> {
+                if (b.is(1)) return a;
+                if (a.is(1)) return b;
+            }
+            case DIVIDE -> {
+                if (b.is(1)) return a;
+            }
+            case POWER -> {
+                // x^2 and x^(-1) come straight from the keypad; pow is far slower than a multiply or divide
+                if (b.is(1)) return a;
+                if (b.is(2)) return new Node(new Token(TokenType.SQUARE, "^2"), a, null);
+                if (b.is(-1)) return new Node(new Token(TokenType.RECIPROCAL, "^(-1)"), a, null);
+            }
+            default -> {}
+        }
+
+        return new Node(token, a, b);
+    }
+
+    private Node constant(double value) {
+        return new Node(new Token(TokenType.NUMBER, Double.toString(value), value), value);
+    }
+
+    private Node pop(List<Node> stack) {
+        // Evaluator reads a missing operand as 0.0
+        if (stack.isEmpty()) return constant(0.0);
+        return stack.remove(stack.size() - 1);
+    }
+
+    // Iterative so long operator chains do not overflow the call stack
+    private List<Token> flatten(Node root) {
+        List<Token> reversed = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            reversed.add(node.token);
+            if (node.left != null) pending.push(node.left);
+            if (node.right != null) pending.push(node.right);
+        }
+
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private static final class Node {
+        final Token token;
+        final Node left;
+        final Node right;
+        final double value;
+        final boolean constant;
+
+        Node(Token token, double value) {
+            this.token = token;
+            this.left = null;
+            this.right = null;
+            this.value = value;
+            this.constant = true;
+        }
+
+        Node(Token token, Node left, Node right) {
+            this.token = token;
+            this.left = left;
+            this.right = right;
+            this.value = 0;
+            this.constant = false;
+        }
+
+        boolean isConstant() {
+            return constant;
+        }
+
+        boolean is(double v) {
+            return constant && value == v;
+        }
+    }
+}
@@ -7,6 +7,8 @@ import core.token.Token;
 import core.lexer.Lexer;
 
 public class Parser {
+    private static final Token IMPLICIT_MULTIPLY = new Token(TokenType.MULTIPLY, "*");
+
     private int pos = 0;
     private final List<Token> input;
 
@@ -26,7 +28,7 @@ public class Parser {
             if (type == TokenType.EOF) break;
 
             if (lastToken != null && isImplicitMultNeeded(lastToken, token)) {
-                handleOperator(new Token(TokenType.MULTIPLY, "*"), postfix, ops);
+                handleOperator(IMPLICIT_MULTIPLY, postfix, ops);
             }
 
             if (isOperand(type)) {
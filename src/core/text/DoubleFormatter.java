@@ -0,0 +1,168 @@
+package core.text;
+
+// Formats doubles through buffers the formatter keeps between calls. Digits come from the JDK's
+// shortest round-trip conversion (StringBuilder.append(double)) and are then rounded half-up,
+// as String.format does, so "%.2f"-style output needs no Formatter, pattern or boxing.
+// Instances are not thread-safe; each view or writer keeps its own.
+public final class DoubleFormatter {
+    private enum Style { FIXED, UP_TO, SIGNIFICANT, SHORTEST }
+
+    private final Style style;
+    private final int precision;
+
+    private final StringBuilder scratch = new StringBuilder(32);
+    private final StringBuilder out = new StringBuilder(32);
+    // The value is 0.d1d2...dn * 10^pointPos
+    private final char[] digits = new char[24];
+    private int count;
+    private int pointPos;
+
+    private DoubleFormatter(Style style, int precision) {
+        if (precision < 0) throw new IllegalArgumentException("Precision must not be negative: " + precision);
+        this.style = style;
+        this.precision = precision;
+    }
+
+    // Exactly n digits after the point, like "%.nf"
+    public static DoubleFormatter fixed(int fractionDigits) {
+        return new DoubleFormatter(Style.FIXED, fractionDigits);
+    }
+
+    // At most n digits after the point, trailing zeros dropped, like the pattern "#.######"
+    public static DoubleFormatter upTo(int fractionDigits) {
+        return new DoubleFormatter(Style.UP_TO, fractionDigits);
+    }
+
+    // At most n significant digits, laid out the way Double.toString lays out its digits
+    public static DoubleFormatter significant(int digits) {
+        if (digits < 1) throw new IllegalArgumentException("Need at least one significant digit: " + digits);
+        return new DoubleFormatter(Style.SIGNIFICANT, digits);
+    }
+
+    // The shortest text that parses back to the same double, identical to Double.toString
+    public static DoubleFormatter shortest() {
+        return new DoubleFormatter(Style.SHORTEST, 0);
+    }
+
+    public String format(double value) {
+        return render(value).toString();
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, double value) {
+        if (style == Style.SHORTEST) return sb.append(value);
+        return sb.append(render(value));
+    }
+
+    private StringBuilder render(double value) {
+        out.setLength(0);
+        if (style == Style.SHORTEST) return out.append(value);
+
+        if (Double.isNaN(value)) return out.append("NaN");
+        if (Double.doubleToRawLongBits(value) < 0) out.append('-');
+        if (Double.isInfinite(value)) return out.append("Infinity");
+
+        decompose(Math.abs(value));
+        switch (style) {
+            case FIXED -> {
+                round(pointPos + precision);
+                plain(precision);
+            }
+            case UP_TO -> {
+                round(pointPos + precision);
+                plain(Math.max(0, Math.min(precision, count - pointPos)));
+            }
+            default -> {
+                round(precision);
+                if (count == 0 || (pointPos >= -2 && pointPos <= 7)) {
+                    plain(Math.max(1, count - pointPos));
+                } else {
+                    scientific();
+                }
+            }
+        }
+        return out;
+    }
+
+    // Reads the digits and decimal point position out of Double.toString's text
+    private void decompose(double value) {
+        scratch.setLength(0);
+        scratch.append(value);
+
+        count = 0;
+        int seen = 0;
+        int leadingZeros = 0;
+        int intDigits = -1;
+        int exponent = 0;
+
+        for (int i = 0; i < scratch.length(); i++) {
+            char ch = scratch.charAt(i);
+            if (ch == '.') {
+                intDigits = seen;
+            } else if (ch == 'E') {
+                exponent = Integer.parseInt(scratch, i + 1, scratch.length(), 10);
+                break;
+            } else {
+                seen++;
+                if (count == 0 && ch == '0') {
+                    leadingZeros++;
+                } else {
+                    digits[count++] = ch;
+                }
+            }
+        }
+        while (count > 0 && digits[count - 1] == '0') count--;
+        pointPos = count == 0 ? 0 : intDigits - leadingZeros + exponent;
+    }
+
+    // Keeps the first `keep` digits, rounding half-up on the next one
+    private void round(int keep) {
+        if (keep >= count) return;
+        if (keep < 0) {
+            count = 0;
+            pointPos = 0;
+            return;
+        }
+
+        boolean up = digits[keep] >= '5';
+        count = keep;
+        if (up) {
+            int i = keep - 1;
+            while (i >= 0 && digits[i] == '9') i--;
+            if (i < 0) {
+                digits[0] = '1';
+                count = 1;
+                pointPos++;
+            } else {
+                digits[i]++;
+                count = i + 1;
+            }
+        }
+        while (count > 0 && digits[count - 1] == '0') count--;
+        if (count == 0) pointPos = 0;
+    }
+
+    private void plain(int fractionDigits) {
+        if (pointPos <= 0) {
+            out.append('0');
+        } else {
+            for (int i = 0; i < pointPos; i++) out.append(i < count ? digits[i] : '0');
+        }
+        if (fractionDigits == 0) return;
+
+        out.append('.');
+        for (int i = 0; i < fractionDigits; i++) {
+            int idx = pointPos + i;
+            out.append(idx >= 0 && idx < count ? digits[idx] : '0');
+        }
+    }
+
+    private void scientific() {
+        out.append(digits[0]).append('.');
+        if (count == 1) {
+            out.append('0');
+        } else {
+            out.append(digits, 1, count - 1);
+        }
+        out.append('E').append(pointPos - 1);
+    }
+}
@@ -0,0 +1,249 @@
+package core.text;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+// Decimal text to double without building substrings. Short inputs take Clinger's exact fast path,
+// the rest the Eisel-Lemire algorithm: one or two 64x128-bit multiplications against a table of
+// powers of five. Anything outside plain decimal notation (whitespace, NaN, hex, suffixes, more than
+// 19 significant digits) or too close to a rounding boundary goes to Double.parseDouble.
+public final class FastDoubleParser {
+    private static final int MIN_EXPONENT = -342;
+    private static final int MAX_EXPONENT = 308;
+    private static final int MAX_DIGITS = 19;
+
+    // 128-bit approximations of 5^q, normalized so the top bit is set
+    private static final long[] POW5_HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+    private static final long[] POW5_LOW = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+        for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+            BigInteger c;
+            if (q < 0) {
+                // Rounded-up reciprocal, so the product never undershoots the true value
+                BigInteger power5 = BigInteger.valueOf(5).pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while (c.compareTo(two128) >= 0) c = c.shiftRight(1);
+            } else {
+                c = BigInteger.valueOf(5).pow(q);
+                while (c.compareTo(two127) < 0) c = c.shiftLeft(1);
+                while (c.compareTo(two128) >= 0) c = c.shiftRight(1);
+            }
+            POW5_HIGH[q - MIN_EXPONENT] = c.shiftRight(64).longValue();
+            POW5_LOW[q - MIN_EXPONENT] = c.and(mask64).longValue();
+        }
+    }
+
+    private FastDoubleParser() {}
+
+    public static double parseDouble(CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    public static double parseDouble(CharSequence text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean exact = true;
+
+        for (; i < to; i++) {
+            char ch = text.charAt(i);
+            if (ch < '0' || ch > '9') break;
+            anyDigits = true;
+            if (significant < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) significant++;
+            } else {
+                exponent++;
+                if (ch != '0') exact = false;
+            }
+        }
+        if (i < to && text.charAt(i) == '.') {
+            for (i++; i < to; i++) {
+                char ch = text.charAt(i);
+                if (ch < '0' || ch > '9') break;
+                anyDigits = true;
+                if (significant < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) significant++;
+                    exponent--;
+                } else if (ch != '0') {
+                    exact = false;
+                }
+            }
+        }
+        if (i < to && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to; i++) {
+                char ch = text.charAt(i);
+                if (ch < '0' || ch > '9') break;
+                // Past this any exponent already means zero or infinity
+                if (value < 100_000) value = value * 10 + (ch - '0');
+            }
+            if (i == start) return fallback(text, from, to);
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (i != to || !anyDigits || !exact) return fallback(text, from, to);
+
+        double value = toDouble(mantissa, exponent);
+        if (Double.isNaN(value)) return fallback(text, from, to);
+        return negative ? -value : value;
+    }
+
+    // The same grammar over ASCII bytes, for import paths that never decode to chars
+    public static double parseDouble(byte[] bytes, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean exact = true;
+
+        for (; i < to; i++) {
+            byte ch = bytes[i];
+            if (ch < '0' || ch > '9') break;
+            anyDigits = true;
+            if (significant < MAX_DIGITS) {
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) significant++;
+            } else {
+                exponent++;
+                if (ch != '0') exact = false;
+            }
+        }
+        if (i < to && bytes[i] == '.') {
+            for (i++; i < to; i++) {
+                byte ch = bytes[i];
+                if (ch < '0' || ch > '9') break;
+                anyDigits = true;
+                if (significant < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + (ch - '0');
+                    if (mantissa != 0) significant++;
+                    exponent--;
+                } else if (ch != '0') {
+                    exact = false;
+                }
+            }
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            int start = i;
+            int value = 0;
+            for (; i < to; i++) {
+                byte ch = bytes[i];
+                if (ch < '0' || ch > '9') break;
+                if (value < 100_000) value = value * 10 + (ch - '0');
+            }
+            if (i == start) return fallback(bytes, from, to);
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (i != to || !anyDigits || !exact) return fallback(bytes, from, to);
+
+        double value = toDouble(mantissa, exponent);
+        if (Double.isNaN(value)) return fallback(bytes, from, to);
+        return negative ? -value : value;
+    }
+
+    private static double fallback(CharSequence text, int from, int to) {
+        return Double.parseDouble(text.subSequence(from, to).toString());
+    }
+
+    private static double fallback(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    // mantissa (unsigned) * 10^exponent correctly rounded, or NaN when the answer is too close to call
+    private static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0 || exponent < MIN_EXPONENT) return 0.0;
+        if (exponent > MAX_EXPONENT) return Double.POSITIVE_INFINITY;
+
+        // Clinger: both operands are exact, so the one rounding step is the only one
+        if (exponent >= -22 && exponent <= 22 && Long.compareUnsigned(mantissa, 1L << 53) <= 0) {
+            return exponent < 0 ? mantissa / POW10[-exponent] : mantissa * POW10[exponent];
+        }
+
+        int lz = Long.numberOfLeadingZeros(mantissa);
+        long w = mantissa << lz;
+        int index = exponent - MIN_EXPONENT;
+
+        long high = Math.unsignedMultiplyHigh(w, POW5_HIGH[index]);
+        long low = w * POW5_HIGH[index];
+        if ((high & 0x1FF) == 0x1FF) {
+            // The top 55 bits might still change, so take in the next 64 bits of 5^q
+            long secondHigh = Math.unsignedMultiplyHigh(w, POW5_LOW[index]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0) high++;
+        }
+        if (low == -1L && (exponent < -27 || exponent > 55)) return Double.NaN;
+
+        int upperBit = (int) (high >>> 63);
+        long bits = high >>> (upperBit + 9);
+        int power2 = ((217706 * exponent) >> 16) + 63 + upperBit - lz + 1023;
+
+        if (power2 <= 0) {
+            // Subnormal
+            if (-power2 + 1 >= 64) return 0.0;
+            bits >>>= -power2 + 1;
+            bits += bits & 1;
+            bits >>>= 1;
+            power2 = bits < 1L << 52 ? 0 : 1;
+            return Double.longBitsToDouble(bits | (long) power2 << 52);
+        }
+
+        // Exactly halfway between two doubles: round to even instead of up
+        if (Long.compareUnsigned(low, 1) <= 0 && exponent >= -4 && exponent <= 23 && (bits & 3) == 1
+                && bits << (upperBit + 9) == high) {
+            bits &= ~1L;
+        }
+
+        bits += bits & 1;
+        bits >>>= 1;
+        if (bits >= 2L << 52) {
+            bits = 1L << 52;
+            power2++;
+        }
+        bits &= ~(1L << 52);
+        if (power2 >= 0x7FF) return Double.POSITIVE_INFINITY;
+
+        return Double.longBitsToDouble(bits | (long) power2 << 52);
+    }
+}
@@ -1,12 +1,21 @@
 package core.token;
 
+import core.text.FastDoubleParser;
+
 public class Token {
     private final TokenType type;
     private final String value;
+    // Parsed once when the token is made, so evaluation never goes back to the text
+    private final double number;
 
     public Token(TokenType type, String value) {
+        this(type, value, type == TokenType.NUMBER ? FastDoubleParser.parseDouble(value) : 0.0);
+    }
+
+    public Token(TokenType type, String value, double number) {
         this.type = type;
         this.value = value;
+        this.number = number;
     }
 
     public TokenType getType() {
@@ -17,6 +26,10 @@ public class Token {
         return value;
     }
 
+    public double getNumber() {
+        return number;
+    }
+
     @Override
     public String toString() {
         return "Token[" + type + ": " + value + "]";
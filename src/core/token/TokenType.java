@@ -27,6 +27,8 @@ public enum TokenType {
     EXP,
     ABS,
     TEN_POW,
+    SQUARE,
+    RECIPROCAL,
     MEAN,
     MEDIAN,
     MODE,
@@ -11,6 +11,9 @@ public class ScientificPage extends JPanel {
     
     private final Color bg_color = Color.decode("#0B1619"); 
     
+    // Only used on the event thread, so one instance can be shared across calculations
+    private final DecimalFormat resultFormat = new DecimalFormat("#.######");
+
     private final ResultPanel resultPanel;
     private final CalcKeys keysPanel;
 
@@ -36,8 +39,7 @@ public class ScientificPage extends JPanel {
             try {
                 double res = MathEngine.getInstance().calculate(engineMath.toLowerCase());
                 
-                DecimalFormat df = new DecimalFormat("#.######");
-                String resStr = df.format(res);
+                String resStr = resultFormat.format(res);
                 
                 resultPanel.setEquationText(displayMath);
                 resultPanel.setResultText("= " + resStr);
@@ -4,7 +4,7 @@ import gui.elements.*;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
-import java.util.List;
+import core.dataset.Dataset;
 
 public class StatisticsPage extends JPanel {
     private final Color BACKGROUND = Color.decode("#0B1A1E");
@@ -16,12 +16,12 @@ public class StatisticsPage extends JPanel {
     private ScatterPlot scatterPlot;
     private ActiveDatasetTable datasetTable;
     private StatisticalAnalysisPanel analysisPanel;
-    private List<Double> dataReference;
+    private Dataset dataReference;
     private JPanel plotCards;
     private CardLayout cardLayout;
     private JPanel tabSwitcher; 
 
-    public StatisticsPage(List<Double> data) {
+    public StatisticsPage(Dataset data) {
         this.dataReference = data;
         setLayout(new BorderLayout(20, 0));
         setBackground(BACKGROUND);
@@ -131,5 +131,9 @@ public class StatisticsPage extends JPanel {
             boxPlot.repaint(); histogram.repaint(); scatterPlot.repaint();
             datasetTable.refreshTable();
         });
+        datasetTable.addImportListener(e -> {
+            analysisPanel.refreshUI();
+            boxPlot.repaint(); histogram.repaint(); scatterPlot.repaint();
+        });
     }
 }
\ No newline at end of file
@@ -2,12 +2,24 @@ package gui.elements;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import core.text.FastDoubleParser;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import core.dataset.CsvImporter;
+import core.dataset.Dataset;
+import core.dataset.OffHeapColumn;
+import core.dataset.QuantileSketch;
 
 public class ActiveDatasetTable extends JPanel {
     private final Color BACKGROUND = Color.decode("#0B1A1E");
@@ -17,12 +29,19 @@ public class ActiveDatasetTable extends JPanel {
     private final Color TEXT_MAIN = Color.decode("#FFFFFF");
     private final Color TEXT_DIM = Color.decode("#7A8C8F");
 
+    // Values appended per trip to the event thread during an import, so it never stalls for long
+    private static final int IMPORT_SLICE = 1 << 15;
+    // Files past this size are offered an off-heap, unindexed store: indexed, every distinct value
+    // would cost about 100 bytes of heap once the statistics views ask for quartiles
+    private static final long LARGE_IMPORT_BYTES = 64L << 20;
+
     private JTable table;
-    private DefaultTableModel model;
-    private final List<Double> dataReference;
-    private boolean isRefreshing = false;
+    private AbstractTableModel model;
+    private final Dataset dataReference;
+    private final List<ActionListener> importListeners = new ArrayList<>();
+    private JPanel buttonPanel;
 
-    public ActiveDatasetTable(List<Double> dataReference) {
+    public ActiveDatasetTable(Dataset dataReference) {
         this.dataReference = dataReference;
         setLayout(new BorderLayout());
         setBackground(BACKGROUND);
@@ -48,7 +67,7 @@ public class ActiveDatasetTable extends JPanel {
         title.setForeground(TEXT_DIM);
         title.setFont(new Font("SansSerif", Font.BOLD, 12));
 
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         buttonPanel.setOpaque(false);
 
         RoundButton addBtn = new RoundButton("+ ADD ROW", 8);
@@ -58,6 +77,10 @@ public class ActiveDatasetTable extends JPanel {
             refreshTable();
         });
 
+        RoundButton importBtn = new RoundButton("IMPORT", 8);
+        styleToolbarButton(importBtn, ACCENT);
+        importBtn.addActionListener(e -> chooseImport());
+
         RoundButton clearBtn = new RoundButton("CLEAR", 8);
         styleToolbarButton(clearBtn, Color.decode("#7A8C8F"));
         clearBtn.addActionListener(e -> {
@@ -66,6 +89,7 @@ public class ActiveDatasetTable extends JPanel {
         });
 
         buttonPanel.add(addBtn);
+        buttonPanel.add(importBtn);
         buttonPanel.add(clearBtn);
         top.add(title, BorderLayout.WEST);
         top.add(buttonPanel, BorderLayout.EAST);
@@ -81,9 +105,33 @@ public class ActiveDatasetTable extends JPanel {
     }
 
     private void setupTable() {
-        model = new DefaultTableModel(new String[]{"#", "Value Input"}, 0) {
+        // Rows are read from the dataset as they are drawn, so a million-row import costs no copies
+        model = new AbstractTableModel() {
+            @Override
+            public int getRowCount() { return dataReference.size(); }
+
+            @Override
+            public int getColumnCount() { return 2; }
+
+            @Override
+            public String getColumnName(int column) { return column == 0 ? "#" : "Value Input"; }
+
+            @Override
+            public Object getValueAt(int row, int column) {
+                return column == 0 ? (Object) (row + 1) : (Object) dataReference.get(row);
+            }
+
             @Override
             public boolean isCellEditable(int row, int column) { return column == 1; }
+
+            @Override
+            public void setValueAt(Object value, int row, int column) {
+                if (row >= 0 && row < dataReference.size()) {
+                    try {
+                        dataReference.set(row, FastDoubleParser.parseDouble(value.toString()));
+                    } catch (Exception ignored) {}
+                }
+            }
         };
 
         table = new JTable(model);
@@ -104,19 +152,6 @@ public class ActiveDatasetTable extends JPanel {
         table.getTableHeader().setForeground(ACCENT);
         table.getTableHeader().setPreferredSize(new Dimension(0, 35));
 
-        table.getModel().addTableModelListener(e -> {
-            if (!isRefreshing && e.getType() == javax.swing.event.TableModelEvent.UPDATE) {
-                int row = e.getFirstRow();
-                if (row >= 0 && row < dataReference.size()) {
-                    try {
-                        Object valObj = model.getValueAt(row, 1);
-                        double val = Double.parseDouble(valObj.toString());
-                        dataReference.set(row, val);
-                    } catch (Exception ignored) {}
-                }
-            }
-        });
-
         table.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
@@ -143,13 +178,122 @@ public class ActiveDatasetTable extends JPanel {
     }
 
     public void refreshTable() {
-        isRefreshing = true;
-        model.setRowCount(0);
-        for (int i = 0; i < dataReference.size(); i++) {
-            model.addRow(new Object[]{i + 1, dataReference.get(i)});
-        }
-        isRefreshing = false;
+        model.fireTableDataChanged();
         revalidate();
         repaint();
     }
+
+    // Told once an import has finished, however many values it added
+    public void addImportListener(ActionListener listener) {
+        importListeners.add(listener);
+    }
+
+    private void chooseImport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import CSV or text file");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path path = chooser.getSelectedFile().toPath();
+
+        try {
+            char delimiter = ',';
+            List<String> firstRow = CsvImporter.firstRow(path, delimiter);
+            for (char candidate : new char[]{';', '\t'}) {
+                if (firstRow.size() > 1) break;
+                delimiter = candidate;
+                firstRow = CsvImporter.firstRow(path, delimiter);
+            }
+            boolean header = !firstRow.isEmpty() && firstRow.stream().noneMatch(CsvImporter::isNumber);
+            int column = 0;
+            if (firstRow.size() > 1) {
+                String[] choices = new String[firstRow.size()];
+                for (int i = 0; i < choices.length; i++) {
+                    choices[i] = header ? firstRow.get(i) : "Column " + (i + 1);
+                }
+                Object choice = JOptionPane.showInputDialog(this, "Column to import:", "Import",
+                    JOptionPane.PLAIN_MESSAGE, null, choices, choices[0]);
+                if (choice == null) return;
+                column = List.of(choices).indexOf(choice);
+            }
+            if (dataReference.isIndexed() && Files.size(path) > LARGE_IMPORT_BYTES) {
+                int answer = JOptionPane.showConfirmDialog(this,
+                    path.getFileName() + " is large. Keep the dataset outside the Java heap?\n"
+                        + "Median, quartiles and mode are then estimated rather than exact.",
+                    "Import", JOptionPane.YES_NO_OPTION);
+                if (answer == JOptionPane.CLOSED_OPTION) return;
+                if (answer == JOptionPane.YES_OPTION) {
+                    dataReference.moveTo(new OffHeapColumn(), false);
+                    dataReference.enableSketch(QuantileSketch.DEFAULT_K);
+                }
+            }
+            runImport(path, new CsvImporter().delimiter(delimiter).column(column).header(header));
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(this, "Could not read " + path.getFileName() + ": " + ex.getMessage(),
+                "Import", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void onEventThread(Runnable action) throws IOException {
+        try {
+            SwingUtilities.invokeAndWait(action);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void setEditingEnabled(boolean enabled) {
+        for (Component c : buttonPanel.getComponents()) c.setEnabled(enabled);
+        table.setEnabled(enabled);
+    }
+
+    // Parsing happens off the event thread, but the values are appended on it, a slice at a time, since
+    // repaints and the calculator read the dataset there. The toolbar and cells stay disabled meanwhile
+    // so nothing else edits the dataset, and the views hear about it once, when it is done.
+    // Slices this big make the dataset drop its indexes rather than insert into them, so appending is
+    // a plain copy; the indexes are then built once from the imported values, here off the event
+    // thread, and swapped in before the views ask for their first quartiles
+    private void runImport(Path path, CsvImporter importer) {
+        setEditingEnabled(false);
+        new SwingWorker<CsvImporter.Result, Void>() {
+            private Dataset.IndexBuild indexBuild;
+
+            @Override
+            protected CsvImporter.Result doInBackground() throws Exception {
+                CsvImporter.Result result = importer.importInto(path, (values, from, to) -> {
+                    for (int start = from; start < to; start += IMPORT_SLICE) {
+                        int sliceFrom = start;
+                        int sliceTo = Math.min(to, start + IMPORT_SLICE);
+                        onEventThread(() -> dataReference.addAll(values, sliceFrom, sliceTo));
+                    }
+                });
+                onEventThread(() -> indexBuild = dataReference.prepareIndexes());
+                if (indexBuild != null) indexBuild.build();
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                if (indexBuild != null) dataReference.installIndexes(indexBuild);
+                setEditingEnabled(true);
+                refreshTable();
+                try {
+                    CsvImporter.Result result = get();
+                    if (result.skipped() > 0) {
+                        JOptionPane.showMessageDialog(ActiveDatasetTable.this, "Imported " + result.imported()
+                            + " values, skipped " + result.skipped() + " lines without a number.",
+                            "Import", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    JOptionPane.showMessageDialog(ActiveDatasetTable.this, "Import failed: " + cause.getMessage(),
+                        "Import", JOptionPane.ERROR_MESSAGE);
+                }
+                ActionEvent event = new ActionEvent(ActiveDatasetTable.this, ActionEvent.ACTION_PERFORMED, "import");
+                for (ActionListener listener : importListeners) listener.actionPerformed(event);
+            }
+        }.execute();
+    }
 }
\ No newline at end of file
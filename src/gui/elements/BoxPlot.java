@@ -2,16 +2,15 @@ package gui.elements;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import core.dataset.Dataset;
+import core.dataset.DatasetSummary;
+import core.text.DoubleFormatter;
 
 public class BoxPlot extends JPanel {
-    private List<Double> table;
+    private Dataset table;
     
     private double lb, ub, q1, q3, median;
+    private boolean approximate;
     private double viewMin, viewMax, viewRange;
 
     private final int PADDING = 60;
@@ -19,21 +18,21 @@ public class BoxPlot extends JPanel {
     private final Color AXIS_COLOR = Color.decode("#11b2fd");
     private final Color DATA_COLOR = Color.decode("#00d9ff");
     private final Color TEXT_DIM = Color.decode("#7A8C8F");
+    private final DoubleFormatter tickFormat = DoubleFormatter.fixed(1);
 
-    public BoxPlot(List<Double> table) {
+    public BoxPlot(Dataset table) {
         this.table = table;
         setOpaque(false);
     }
 
-    private boolean calculateStatistics(List<Double> validData) {
-        if (validData.isEmpty()) return false;
-        
-        List<Double> s = new ArrayList<>(validData);
-        Collections.sort(s);
+    private boolean calculateStatistics() {
+        DatasetSummary summary = table.summary();
+        if (summary.isEmpty()) return false;
 
-        this.q1 = getPercentile(s, 25);
-        this.median = getPercentile(s, 50);
-        this.q3 = getPercentile(s, 75);
+        this.q1 = summary.q1();
+        this.median = summary.median();
+        this.q3 = summary.q3();
+        this.approximate = summary.isApproximate();
 
         double iqr = q3 - q1;
         this.lb = q1 - 1.5 * iqr;
@@ -48,36 +47,22 @@ public class BoxPlot extends JPanel {
         return true;
     }
 
-    private double getPercentile(List<Double> s, double percentile) {
-        if (s.size() == 1) return s.get(0);
-        double index = (percentile / 100.0) * (s.size() - 1);
-        int lower = (int) Math.floor(index);
-        int upper = (int) Math.ceil(index);
-        if (lower == upper) return s.get(lower);
-        return s.get(lower) + (index - lower) * (s.get(upper) - s.get(lower));
-    }
-
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2 = (Graphics2D) g.create();
-        
-        List<Double> validData = table.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
 
-        if (validData.isEmpty()) {
+        if (!calculateStatistics()) {
             drawPlaceholder(g2);
             return;
         }
 
-        if (!calculateStatistics(validData)) return;
-
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
         drawGrid(g2);
         drawAxis(g2);
         drawData(g2);
+        if (approximate) drawApproximateNote(g2);
 
         g2.dispose();
     }
@@ -122,7 +107,7 @@ public class BoxPlot extends JPanel {
         for (int i = 0; i <= 5; i++) {
             double val = viewMin + (i * viewRange / 5);
             int yPixel = (h - PADDING) - (i * (h - 2 * PADDING) / 5);
-            String label = String.format("%.1f", val);
+            String label = tickFormat.format(val);
             g2.drawString(label, PADDING - g2.getFontMetrics().stringWidth(label) - 10, yPixel + 5);
         }
     }
@@ -156,6 +141,13 @@ public class BoxPlot extends JPanel {
         g2.drawLine(centerX - boxWidth / 2, yMed, centerX + boxWidth / 2, yMed);
     }
 
+    private void drawApproximateNote(Graphics2D g2) {
+        g2.setColor(TEXT_DIM);
+        g2.setFont(new Font("SansSerif", Font.ITALIC, 11));
+        String note = "≈ quartiles estimated from a sketch";
+        g2.drawString(note, getWidth() - PADDING - g2.getFontMetrics().stringWidth(note), PADDING - 10);
+    }
+
     private int toPixel(double value, int usableHeight) {
         if (viewRange == 0) return getHeight() / 2;
         double ratio = (value - viewMin) / viewRange;
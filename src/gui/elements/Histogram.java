@@ -2,26 +2,27 @@ package gui.elements;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import core.dataset.Dataset;
+import core.dataset.DatasetSummary;
+import core.text.DoubleFormatter;
 
 public class Histogram extends JPanel {
-    private List<Double> table;
+    private Dataset table;
 
     private final int PADDING = 50;
     private final Color GRID_COLOR = Color.decode("#1C363B");
     private final Color AXIS_COLOR = Color.decode("#11b2fd");
     private final Color BAR_COLOR = new Color(0, 217, 255, 180); 
     private final Color BAR_BORDER = Color.decode("#00d9ff");
-    private final int BINS = 10;
+    private final int BINS = DatasetSummary.HISTOGRAM_BINS;
+    private final DoubleFormatter tickFormat = DoubleFormatter.fixed(1);
 
     private double viewMin, viewMax, viewRange;
     private double rawMin, rawMax, rawRange;
     private int maxFreq;
     private int[] counts;
 
-    public Histogram(List<Double> table) {
+    public Histogram(Dataset table) {
         this.table = table;
         setOpaque(false);
     }
@@ -30,16 +31,12 @@ public class Histogram extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
-        List<Double> validData = table.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (validData.isEmpty()) {
+        if (table.isEmpty()) {
             drawPlaceholder(g);
             return;
         }
 
-        calculateBoundsAndFrequencies(validData);
+        calculateBoundsAndFrequencies();
 
         Graphics2D g2 = (Graphics2D) g.create();
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -51,9 +48,11 @@ public class Histogram extends JPanel {
         g2.dispose();
     }
 
-    private void calculateBoundsAndFrequencies(List<Double> data) {
-        this.rawMin = data.stream().min(Double::compare).orElse(0.0);
-        this.rawMax = data.stream().max(Double::compare).orElse(1.0);
+    // Bounds and bin counts come from the dataset's shared summary, so a repaint only reads them
+    private void calculateBoundsAndFrequencies() {
+        DatasetSummary summary = table.summary();
+        this.rawMin = summary.min();
+        this.rawMax = summary.max();
         this.rawRange = Math.max(0.1, rawMax - rawMin);
 
         double buffer = rawRange * 0.15;
@@ -61,18 +60,8 @@ public class Histogram extends JPanel {
         this.viewMax = rawMax + buffer;
         this.viewRange = viewMax - viewMin;
 
-        this.counts = new int[BINS];
-        double binSize = rawRange / BINS;
-        for (double val : data) {
-            int binIdx = (int) ((val - rawMin) / binSize);
-            if (binIdx >= BINS) binIdx = BINS - 1;
-            if (binIdx < 0) binIdx = 0;
-            counts[binIdx]++;
-        }
-
-        this.maxFreq = 0;
-        for (int c : counts) if (c > maxFreq) maxFreq = c;
-        if (maxFreq == 0) maxFreq = 1;
+        this.counts = summary.binCounts();
+        this.maxFreq = Math.max(1, summary.maxBinCount());
     }
 
     private void drawGrid(Graphics2D g2) {
@@ -114,7 +103,7 @@ public class Histogram extends JPanel {
             g2.drawLine(PADDING - 3, yPos, PADDING, yPos);
 
             double val = viewMin + (i * viewRange / divisions);
-            String xLab = String.format("%.1f", val);
+            String xLab = tickFormat.format(val);
             int xPos = PADDING + (i * (w - 2 * PADDING) / divisions);
 
             g2.drawString(xLab, xPos - (fm.stringWidth(xLab) / 2), h - PADDING + 20);
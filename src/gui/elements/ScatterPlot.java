@@ -2,23 +2,27 @@ package gui.elements;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.*;
-import java.util.List;
-import java.util.stream.Collectors;
+import core.dataset.Dataset;
+import core.dataset.DatasetSummary;
+import core.dataset.FrequencyIndex;
+import core.text.DoubleFormatter;
 
 public class ScatterPlot extends JPanel {
-    private List<Double> table;
+    private Dataset table;
 
     private final int PADDING = 60;
     private final Color GRID_COLOR = Color.decode("#1C363B");
     private final Color AXIS_COLOR = Color.decode("#11b2fd");
     private final Color DOT_COLOR = Color.decode("#00d9ff");
+    private final DoubleFormatter tickFormat = DoubleFormatter.fixed(1);
 
     private double viewMin, viewMax, viewRange;
     private int maxFreq;
-    private Map<Double, Integer> frequencies;
+    private FrequencyIndex frequencies;
+    private int[] binCounts;
+    private double binMin, binSize;
 
-    public ScatterPlot(List<Double> table) {
+    public ScatterPlot(Dataset table) {
         this.table = table;
         setOpaque(false);
     }
@@ -27,16 +31,12 @@ public class ScatterPlot extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         
-        List<Double> validData = table.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (validData.isEmpty()) {
+        if (table.isEmpty()) {
             drawPlaceholder(g);
             return;
         }
 
-        calculateBoundsAndFrequencies(validData);
+        calculateBounds();
 
         Graphics2D g2 = (Graphics2D) g.create();
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -48,17 +48,28 @@ public class ScatterPlot extends JPanel {
         g2.dispose();
     }
 
-    private void calculateBoundsAndFrequencies(List<Double> data) {
-        this.frequencies = new HashMap<>();
-        for (Double val : data) {
-            frequencies.put(val, frequencies.getOrDefault(val, 0) + 1);
+    // Frequencies and extremes come from the dataset's shared summary, so a repaint only reads them.
+    // Only an indexed dataset has a count per distinct value to hand; any other is plotted from the
+    // summary's scatter bins, a dot per non-empty bin, rather than counted value by value on the heap
+    private void calculateBounds() {
+        DatasetSummary summary = table.summary();
+        double rawMin = summary.min();
+        double rawMax = summary.max();
+
+        if (table.isIndexed()) {
+            this.frequencies = summary.frequencies();
+            this.binCounts = null;
+            this.maxFreq = Math.max(1, frequencies.maxFrequency());
+        } else {
+            this.frequencies = null;
+            this.binCounts = summary.scatterBinCounts();
+            this.binMin = rawMin;
+            this.binSize = Math.max(0.1, rawMax - rawMin) / DatasetSummary.SCATTER_BINS;
+            int max = 1;
+            for (int count : binCounts) max = Math.max(max, count);
+            this.maxFreq = max;
         }
         
-        this.maxFreq = frequencies.values().stream().max(Integer::compare).orElse(1);
-
-        double rawMin = data.stream().min(Double::compare).orElse(0.0);
-        double rawMax = data.stream().max(Double::compare).orElse(1.0);
-        
         double rawRange = Math.max(0.1, rawMax - rawMin);
         double buffer = rawRange * 0.1;
         this.viewMin = rawMin - buffer;
@@ -101,7 +112,7 @@ public class ScatterPlot extends JPanel {
 
         for (int i = 0; i <= 10; i++) {
             double val = viewMin + (i * viewRange / 10);
-            String xLab = String.format("%.1f", val);
+            String xLab = tickFormat.format(val);
             int xPos = PADDING + (i * (w - 2 * PADDING) / 10);
             
             if (i % 2 == 0) {
@@ -115,26 +126,31 @@ public class ScatterPlot extends JPanel {
     }
 
     private void drawData(Graphics2D g2) {
+        if (frequencies != null) {
+            frequencies.forEach((xValue, frequency) -> drawPoint(g2, xValue, frequency));
+            return;
+        }
+        for (int i = 0; i < binCounts.length; i++) {
+            if (binCounts[i] > 0) drawPoint(g2, binMin + (i + 0.5) * binSize, binCounts[i]);
+        }
+    }
+
+    private void drawPoint(Graphics2D g2, double xValue, int frequency) {
         int graphW = getWidth() - 2 * PADDING;
         int graphH = getHeight() - 2 * PADDING;
         int dotSize = 8;
 
-        for (Map.Entry<Double, Integer> entry : frequencies.entrySet()) {
-            double xValue = entry.getKey();
-            int frequency = entry.getValue();
-
-            double xRatio = (xValue - viewMin) / viewRange;
-            double yRatio = (double) frequency / maxFreq;
+        double xRatio = (xValue - viewMin) / viewRange;
+        double yRatio = (double) frequency / maxFreq;
 
-            int px = PADDING + (int) (xRatio * graphW);
-            int py = (getHeight() - PADDING) - (int) (yRatio * graphH);
+        int px = PADDING + (int) (xRatio * graphW);
+        int py = (getHeight() - PADDING) - (int) (yRatio * graphH);
 
-            g2.setColor(new Color(0, 217, 255, 60));
-            g2.fillOval(px - 6, py - 6, 12, 12);
-            
-            g2.setColor(DOT_COLOR);
-            g2.fillOval(px - (dotSize/2), py - (dotSize/2), dotSize, dotSize);
-        }
+        g2.setColor(new Color(0, 217, 255, 60));
+        g2.fillOval(px - 6, py - 6, 12, 12);
+        
+        g2.setColor(DOT_COLOR);
+        g2.fillOval(px - (dotSize/2), py - (dotSize/2), dotSize, dotSize);
     }
 
     private void drawPlaceholder(Graphics g) {
@@ -4,9 +4,10 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.util.*;
-import java.util.List;
-import java.util.stream.Collectors;
+import core.dataset.Dataset;
+import core.dataset.DatasetSummary;
+import core.dataset.Modes;
+import core.text.DoubleFormatter;
 
 public class StatisticalAnalysisPanel extends JPanel {
     private final Color BACKGROUND = Color.decode("#0B1A1E");
@@ -15,10 +16,14 @@ public class StatisticalAnalysisPanel extends JPanel {
     private final Color TEXT_MAIN = Color.decode("#FFFFFF");
     private final Color TEXT_DIM = Color.decode("#7A8C8F");
 
-    private final List<Double> dataReference;
+    private final DoubleFormatter meanFormat = DoubleFormatter.fixed(4);
+    private final DoubleFormatter statFormat = DoubleFormatter.fixed(3);
+    private final DoubleFormatter modeFormat = DoubleFormatter.fixed(2);
+
+    private final Dataset dataReference;
     private final RoundButton recalculateButton;
 
-    public StatisticalAnalysisPanel(List<Double> data) {
+    public StatisticalAnalysisPanel(Dataset data) {
         this.dataReference = data;
         
         setLayout(new BorderLayout());
@@ -50,31 +55,30 @@ public class StatisticalAnalysisPanel extends JPanel {
         content.setOpaque(false);
         content.setBackground(BACKGROUND);
 
-        List<Double> validData = dataReference.stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (!validData.isEmpty()) {
-            double mean = validData.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-            double sum = validData.stream().mapToDouble(Double::doubleValue).sum();
-            double median = calculateMedian(validData);
-            double stdDev = calculateStdDev(validData, mean);
-            String modeText = calculateMode(validData);
+        DatasetSummary summary = dataReference.summary();
+        if (!summary.isEmpty()) {
+            double mean = summary.mean();
+            double sum = summary.sum();
+            double median = summary.median();
+            double stdDev = summary.populationStdDev();
+            String modeText = calculateMode(summary);
+            boolean modeEstimated = summary.modes().approximate();
 
-            content.add(createStatCard("MEAN (M)", String.format("%.4f", mean), null, true));
+            content.add(createStatCard("MEAN (M)", meanFormat.format(mean), null, true));
             content.add(Box.createVerticalStrut(15));
             
             JPanel row = new JPanel(new GridLayout(1, 2, 15, 0));
             row.setOpaque(false);
-            row.add(createStatCard("MEDIAN", String.format("%.3f", median), null, false));
-            row.add(createStatCard("MODE", modeText, null, false));
+            String medianText = (summary.isApproximate() ? "≈" : "") + statFormat.format(median);
+            row.add(createStatCard("MEDIAN", medianText, summary.isApproximate() ? "Estimated" : null, false));
+            row.add(createStatCard("MODE", modeText, modeEstimated ? "Estimated" : null, false));
             content.add(row);
             
             content.add(Box.createVerticalStrut(15));
             
-            content.add(createStatCard("STD DEVIATION (Σ)", String.format("%.3f", stdDev), "Var: " + String.format("%.3f", stdDev * stdDev), false));
+            content.add(createStatCard("STD DEVIATION (Σ)", statFormat.format(stdDev), "Var: " + statFormat.format(summary.populationVariance()), false));
             content.add(Box.createVerticalStrut(15));
-            content.add(createStatCard("SUM (ΣX)", String.format("%.3f", sum), null, false));
+            content.add(createStatCard("SUM (ΣX)", statFormat.format(sum), null, false));
         } else {
             content.add(createStatCard("MEAN (M)", "No Data", null, true));
             content.add(Box.createVerticalStrut(15));
@@ -159,36 +163,12 @@ public class StatisticalAnalysisPanel extends JPanel {
         return btn;
     }
 
-    private String calculateMode(List<Double> data) {
-        if (data == null || data.isEmpty()) return "N/A";
-        Map<Double, Integer> frequencies = new HashMap<>();
-        for (Double d : data) frequencies.put(d, frequencies.getOrDefault(d, 0) + 1);
-
-        int maxFreq = Collections.max(frequencies.values());
-        if (maxFreq <= 1) return "N/A";
-
-        List<Double> modes = frequencies.entrySet().stream()
-                .filter(entry -> entry.getValue() == maxFreq)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        if (modes.size() == frequencies.size()) return "N/A";
-        return modes.size() == 1 ? String.format("%.2f", modes.get(0)) : "Multiple";
-    }
-
-    private double calculateMedian(List<Double> data) {
-        List<Double> s = new ArrayList<>(data);
-        Collections.sort(s);
-        int size = s.size();
-        if (size == 0) return 0;
-        if (size % 2 == 0) return (s.get(size/2 - 1) + s.get(size/2)) / 2.0;
-        return s.get(size/2);
-    }
-
-    private double calculateStdDev(List<Double> data, double mean) {
-        double variance = data.stream()
-                .mapToDouble(d -> Math.pow(d - mean, 2))
-                .average().orElse(0.0);
-        return Math.sqrt(variance);
+    // From the summary's modes, so an unindexed dataset is not counted value by value on the heap
+    private String calculateMode(DatasetSummary summary) {
+        Modes modes = summary.modes();
+        if (modes.frequency() <= 1) return "N/A";
+        if (modes.allTied(summary.size())) return "N/A";
+        if (modes.count() > 1) return "Multiple";
+        return (modes.approximate() ? "≈" : "") + modeFormat.format(modes.smallest());
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import core.MathEngine;
+import core.compiler.CompiledExpression;
+import core.compiler.ExpressionCache;
+import core.text.FastDoubleParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local JSON evaluation service. Every request runs on its own virtual thread in a fresh session.
+//
+//   POST /evaluate  {"expression": "x*2", "variables": {"x": 3}}
+//                   {"expression": "x*2", "bindings": [{"x": 1}, {"x": 2}]}
+//                   {"expressions": ["mean", "x^2"], "variables": {"x": 4}, "data": [1, 2, 3]}
+//   GET  /stats     request count, latency and compile-cache counters
+//
+//   java server.EvaluationServer [port]
+public class EvaluationServer {
+    private static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public EvaluationServer(InetSocketAddress address) throws IOException {
+        this.http = HttpServer.create(address, 0);
+        http.setExecutor(executor);
+        http.createContext("/evaluate", this::handleEvaluate);
+        http.createContext("/stats", this::handleStats);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        EvaluationServer server = new EvaluationServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/evaluate");
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    public void stop() {
+        http.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    private void handleEvaluate(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status = 200;
+        StringBuilder body = new StringBuilder();
+
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                status = 405;
+                body.append("{\"error\":\"Use POST\"");
+            } else {
+                Object request = Json.parse(readBody(exchange));
+                if (!(request instanceof Map<?, ?> fields)) throw new IllegalArgumentException("Request must be a JSON object");
+                evaluate(fields, body);
+            }
+        } catch (RuntimeException e) {
+            status = 400;
+            body.setLength(0);
+            body.append("{\"error\":");
+            Json.writeString(body, String.valueOf(e.getMessage()));
+        }
+
+        long elapsed = System.nanoTime() - start;
+        requests.increment();
+        totalNanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+        if (status != 200) {
+            failures.increment();
+        } else {
+            body.append(",\"micros\":").append(elapsed / 1000);
+        }
+        body.append('}');
+
+        send(exchange, status, body);
+    }
+
+    // Writes the response fields without the closing brace, so the caller can append the latency
+    private void evaluate(Map<?, ?> request, StringBuilder body) {
+        MathEngine session = MathEngine.newSession();
+
+        if (request.get("variables") instanceof Map<?, ?> variables) {
+            for (Map.Entry<?, ?> entry : variables.entrySet()) {
+                session.setVariable(entry.getKey().toString().toLowerCase(), toDouble(entry.getValue()));
+            }
+        }
+        if (request.get("data") instanceof List<?> data) {
+            double[] values = new double[data.size()];
+            for (int i = 0; i < values.length; i++) values[i] = toDouble(data.get(i));
+            session.getTable().addAll(values, 0, values.length);
+        }
+        List<?> bindings = request.get("bindings") instanceof List<?> list ? list : null;
+
+        if (request.get("expression") instanceof String expression) {
+            CompiledExpression compiled = session.compile(expression.toLowerCase());
+            if (bindings == null) {
+                body.append("{\"result\":");
+                Json.writeNumber(body, evaluate(session, compiled, compiled.newFrame(), null));
+            } else {
+                body.append("{\"results\":");
+                writeBindings(session, compiled, bindings, body);
+            }
+        } else if (request.get("expressions") instanceof List<?> expressions) {
+            body.append("{\"results\":[");
+            for (int i = 0; i < expressions.size(); i++) {
+                if (i > 0) body.append(',');
+                try {
+                    CompiledExpression compiled = session.compile(expressions.get(i).toString().toLowerCase());
+                    if (bindings == null) {
+                        Json.writeNumber(body, evaluate(session, compiled, compiled.newFrame(), null));
+                    } else {
+                        writeBindings(session, compiled, bindings, body);
+                    }
+                } catch (RuntimeException e) {
+                    body.append("{\"error\":");
+                    Json.writeString(body, String.valueOf(e.getMessage()));
+                    body.append('}');
+                }
+            }
+            body.append(']');
+        } else {
+            throw new IllegalArgumentException("Request needs \"expression\" or \"expressions\"");
+        }
+    }
+
+    // One compiled form and one frame serve every binding
+    private void writeBindings(MathEngine session, CompiledExpression compiled, List<?> bindings, StringBuilder body) {
+        double[] frame = compiled.newFrame();
+        body.append('[');
+        for (int i = 0; i < bindings.size(); i++) {
+            if (i > 0) body.append(',');
+            Map<?, ?> binding = bindings.get(i) instanceof Map<?, ?> map ? map : Map.of();
+            Json.writeNumber(body, evaluate(session, compiled, frame, binding));
+        }
+        body.append(']');
+    }
+
+    private double evaluate(MathEngine session, CompiledExpression compiled, double[] frame, Map<?, ?> binding) {
+        compiled.bind(frame, session.getVariables());
+        if (binding != null) {
+            for (Map.Entry<?, ?> entry : binding.entrySet()) {
+                int slot = compiled.getSlot(entry.getKey().toString());
+                if (slot >= 0) frame[slot] = toDouble(entry.getValue());
+            }
+        }
+        return compiled.evaluate(frame, session.getTable());
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        long count = requests.sum();
+        ExpressionCache cache = MathEngine.getInstance().getCache();
+
+        StringBuilder body = new StringBuilder();
+        body.append("{\"requests\":").append(count)
+            .append(",\"errors\":").append(failures.sum())
+            .append(",\"meanMicros\":").append(count == 0 ? 0 : totalNanos.sum() / count / 1000)
+            .append(",\"maxMicros\":").append(maxNanos.get() / 1000)
+            .append(",\"cache\":{\"size\":").append(cache.size())
+            .append(",\"hits\":").append(cache.getHits())
+            .append(",\"misses\":").append(cache.getMisses())
+            .append(",\"evictions\":").append(cache.getEvictions())
+            .append("}}");
+
+        send(exchange, 200, body);
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Double d) return d;
+        if (value instanceof String s) return FastDoubleParser.parseDouble(s);
+        throw new IllegalArgumentException("Expected a number, got " + value);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, CharSequence body) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
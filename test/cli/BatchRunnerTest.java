@@ -0,0 +1,89 @@
+package cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import org.junit.jupiter.api.Test;
+
+class BatchRunnerTest {
+    private static String run(BatchRunner runner, String input) throws IOException {
+        StringWriter output = new StringWriter();
+        runner.run(new StringReader(input), output);
+        return output.toString();
+    }
+
+    @Test
+    void resultsKeepInputOrderAcrossBatchesAndThreads() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            input.append(i).append("*2+ans\n");
+            expected.append((double) (i * 2)).append(System.lineSeparator());
+        }
+        for (int threads : new int[] {1, 4}) {
+            for (int batch : new int[] {1, 7, 1024}) {
+                assertEquals(expected.toString(), run(new BatchRunner(threads, batch), input.toString()));
+            }
+        }
+    }
+
+    @Test
+    void blankLinesStayBlankAndFailuresSayError() throws IOException {
+        String n = System.lineSeparator();
+        assertEquals("3.0" + n + n + "Error" + n, run(new BatchRunner(2, 2), "1+2\n\n1 # 2\n"));
+    }
+
+    @Test
+    void threadsAndBatchSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BatchRunner(-1, -1));
+    }
+
+    // Endless input and an output that fails on its first write, like a closed pipe
+    @Test
+    void failedWriteStopsTheReaderAndClosesTheInput() throws InterruptedException {
+        boolean[] closed = new boolean[1];
+        Reader endless = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                for (int i = 0; i < length; i++) buffer[offset + i] = i % 4 == 3 ? '\n' : '1';
+                return length;
+            }
+
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        Writer broken = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+
+        assertThrows(IOException.class, () -> new BatchRunner(2, 4).run(endless, broken));
+        assertTrue(closed[0]);
+        for (int wait = 0; wait < 100 && readerAlive(); wait++) Thread.sleep(20);
+        assertFalse(readerAlive(), "batch-reader is still running");
+    }
+
+    private static boolean readerAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(thread -> thread.getName().equals("batch-reader") && thread.isAlive());
+    }
+}
@@ -0,0 +1,86 @@
+package core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import core.compiler.ExpressionCache;
+import core.compiler.RandomExpressions;
+
+class MathEngineTest {
+    private static MathEngine session(ExpressionCache cache, int id) {
+        MathEngine engine = new MathEngine(cache);
+        engine.setVariable("x", id + 0.5);
+        engine.setVariable("y", -id);
+        engine.setVariable("rate", 1.0 / (id + 2));
+        for (int i = 0; i <= id; i++) engine.pushToTable(i * i + id);
+        return engine;
+    }
+
+    // Sessions share one small cache, so programs (and their JIT promotion) are shared and evicted
+    // under them, while each answer has to depend only on that session's variables and dataset
+    @Test
+    void concurrentSessionsMatchSessionsRunAlone() throws Exception {
+        RandomExpressions random = new RandomExpressions(31);
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < 60; i++) expressions.add(random.next());
+
+        int threads = 4;
+        List<double[]> expected = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            MathEngine alone = session(new ExpressionCache(), t);
+            double[] answers = new double[expressions.size()];
+            for (int i = 0; i < answers.length; i++) answers[i] = alone.calculate(expressions.get(i));
+            expected.add(answers);
+        }
+
+        ExpressionCache shared = new ExpressionCache(16);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            tasks.add(() -> {
+                MathEngine engine = session(shared, id);
+                for (int round = 0; round < 20; round++) {
+                    for (int i = 0; i < expressions.size(); i++) {
+                        double answer = engine.calculate(expressions.get(i));
+                        assertEquals(expected.get(id)[i], answer, expressions.get(i) + " in session " + id);
+                        assertEquals(answer, engine.getVariables().get("ans"));
+                    }
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(shared.getEvictions() > 0);
+    }
+
+    @Test
+    void sessionsKeepTheirOwnState() {
+        MathEngine first = MathEngine.newSession();
+        MathEngine second = MathEngine.newSession();
+        first.setVariable("x", 2);
+        second.setVariable("x", 5);
+        first.pushToTable(10);
+        first.pushToTable(20);
+        second.pushToTable(1);
+
+        assertEquals(4.0, first.calculate("x * 2"));
+        assertEquals(10.0, second.calculate("x * 2"));
+        assertEquals(15.0, first.calculate("mean"));
+        assertEquals(1.0, second.calculate("mean"));
+        assertEquals(15.0, first.getVariables().get("ans"));
+        assertEquals(1.0, second.getVariables().get("ans"));
+    }
+}
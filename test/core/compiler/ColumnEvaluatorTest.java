@@ -0,0 +1,74 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import core.dataset.Dataset;
+
+class ColumnEvaluatorTest {
+    private final Dataset table = new Dataset();
+
+    @BeforeEach
+    void setUp() {
+        for (double value : new double[] {3, 9, 27, 81, 9}) table.add(value);
+    }
+
+    private static double[] column(RandomExpressions random, int rows) {
+        double[] values = new double[rows];
+        for (int i = 0; i < rows; i++) values[i] = random.nextValue();
+        return values;
+    }
+
+    // x and y come from columns and rate is a broadcast scalar; every row has to match the interpreter
+    // run on that row's values, across chunk boundaries and with a short last chunk
+    @Test
+    void columnsMatchTheInterpreterRowByRow() {
+        RandomExpressions random = new RandomExpressions(17);
+        int rows = 2 * ColumnEvaluator.CHUNK + 37;
+        for (int i = 0; i < 400; i++) {
+            String expression = random.next();
+            CompiledExpression compiled = new ExpressionParser(expression).compile();
+            double[] x = column(random, rows);
+            double[] y = column(random, rows);
+            double rate = random.nextValue();
+
+            double[] out = new double[rows];
+            ColumnEvaluator.evaluate(compiled, Map.of("x", x, "Y", y), Map.of("rate", rate), table, out);
+
+            double[] frame = compiled.newFrame();
+            for (int row = 0; row < rows; row++) {
+                compiled.bind(frame, Map.of("x", x[row], "y", y[row], "rate", rate));
+                assertEquals(compiled.interpret(frame, table), out[row], expression + " at row " + row);
+            }
+        }
+    }
+
+    @Test
+    void missingSlotsReadAsZero() {
+        CompiledExpression compiled = new ExpressionParser("x + y").compile();
+        double[] out = new double[3];
+        ColumnEvaluator.evaluate(compiled, Map.of("x", new double[] {1, 2, 3}), out);
+        assertEquals(1.0, out[0]);
+        assertEquals(2.0, out[1]);
+        assertEquals(3.0, out[2]);
+    }
+
+    @Test
+    void statisticsUseTheTable() {
+        CompiledExpression compiled = new ExpressionParser("x - mean").compile();
+        double[] out = new double[2];
+        ColumnEvaluator.evaluate(compiled, Map.of("x", new double[] {25.8, 0}), Map.of(), table, out);
+        assertEquals(0.0, out[0], 1e-12);
+        assertEquals(-25.8, out[1], 1e-12);
+    }
+
+    @Test
+    void rejectsAShortColumn() {
+        CompiledExpression compiled = new ExpressionParser("x * 2").compile();
+        assertThrows(IllegalArgumentException.class,
+            () -> ColumnEvaluator.evaluate(compiled, Map.of("x", new double[2]), new double[3]));
+    }
+}
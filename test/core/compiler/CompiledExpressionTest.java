@@ -0,0 +1,80 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import core.dataset.Dataset;
+import core.evaluator.Evaluator;
+import core.lexer.Lexer;
+import core.optimizer.Optimizer;
+import core.parser.Parser;
+import core.token.Token;
+
+class CompiledExpressionTest {
+    private final Dataset table = new Dataset();
+    private boolean jit;
+
+    @BeforeEach
+    void setUp() {
+        jit = ExpressionJit.isEnabled();
+        ExpressionJit.setEnabled(false);
+        for (double value : new double[] {2, 3, 3, 5, 11}) table.add(value);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ExpressionJit.setEnabled(jit);
+    }
+
+    private static List<Token> postfix(String expression) {
+        return new Optimizer(new Parser(new Lexer(expression).tokenize()).infixToPostfix()).optimize();
+    }
+
+    // The stack machine against Evaluator walking the same postfix, with the same variables
+    @Test
+    void interpreterMatchesTheEvaluator() {
+        RandomExpressions random = new RandomExpressions(1);
+        for (int i = 0; i < 5000; i++) {
+            String expression = random.next();
+            List<Token> postfix = postfix(expression);
+            CompiledExpression compiled = new ExpressionCompiler(postfix).compile();
+            for (int round = 0; round < 3; round++) {
+                Map<String, Double> variables = new HashMap<>();
+                for (String name : RandomExpressions.VARIABLES) variables.put(name, random.nextValue());
+                double[] frame = compiled.newFrame();
+                compiled.bind(frame, variables);
+                assertEquals(Evaluator.evaluate(postfix, variables, table), compiled.evaluate(frame, table),
+                    expression + " with " + variables);
+            }
+        }
+    }
+
+    @Test
+    void framesHoldTheVariablesThenTheStack() {
+        CompiledExpression compiled = new ExpressionParser("x * y + x - rate").compile();
+        assertEquals(3, compiled.getSlotCount());
+        assertEquals(0, compiled.getSlot("x"));
+        assertEquals(1, compiled.getSlot("Y"));
+        assertEquals(-1, compiled.getSlot("z"));
+        assertEquals(compiled.getSlotCount() + compiled.getMaxStack(), compiled.getFrameSize());
+
+        double[] frame = compiled.newFrame();
+        compiled.bind(frame, Map.of("x", 3.0, "y", 4.0));
+        assertEquals(15, compiled.evaluate(frame));
+        // A frame is reusable: evaluating leaves the variable slots alone
+        assertEquals(15, compiled.evaluate(frame));
+        assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(new double[2]));
+    }
+
+    @Test
+    void emptyInputEvaluatesToZero() {
+        CompiledExpression compiled = new ExpressionParser("").compile();
+        assertEquals(0, compiled.evaluate(compiled.newFrame()));
+    }
+}
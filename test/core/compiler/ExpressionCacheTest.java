@@ -0,0 +1,177 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import core.dataset.Dataset;
+
+class ExpressionCacheTest {
+    private final AtomicInteger compilations = new AtomicInteger();
+    private final Function<String, CompiledExpression> compiler = key -> {
+        compilations.incrementAndGet();
+        return new ExpressionParser(key).compile();
+    };
+
+    private static boolean isWordChar(char ch) {
+        return Character.isLetterOrDigit(ch) || ch == '.';
+    }
+
+    // Every whitespace run gets a random replacement, and fresh whitespace goes wherever one side is not a word character
+    private static String respace(String expression, SplittableRandom random) {
+        String[] blanks = {" ", "  ", "\t", " \t "};
+        StringBuilder sb = new StringBuilder(blanks[random.nextInt(blanks.length)]);
+        for (int i = 0; i < expression.length(); i++) {
+            char ch = expression.charAt(i);
+            if (ch == ' ') {
+                sb.append(blanks[random.nextInt(blanks.length)]);
+                continue;
+            }
+            boolean joinsWords = i > 0 && isWordChar(expression.charAt(i - 1)) && isWordChar(ch);
+            if (i > 0 && !joinsWords && random.nextBoolean()) sb.append(blanks[random.nextInt(blanks.length)]);
+            sb.append(ch);
+        }
+        return sb.append(blanks[random.nextInt(blanks.length)]).toString();
+    }
+
+    private static double evaluate(CompiledExpression compiled, Dataset table) {
+        double[] frame = compiled.newFrame();
+        compiled.bind(frame, Map.of("x", 1.5, "y", -2.0, "rate", 0.25));
+        return compiled.interpret(frame, table);
+    }
+
+    @Test
+    void normalizedTextLexesTheSame() {
+        Dataset table = new Dataset();
+        for (double value : new double[] {3, 1, 4, 1, 5}) table.add(value);
+        RandomExpressions expressions = new RandomExpressions(11);
+        SplittableRandom random = new SplittableRandom(11);
+
+        for (int i = 0; i < 2000; i++) {
+            String expression = expressions.next();
+            String respaced = respace(expression, random);
+            String normalized = ExpressionCache.normalize(expression);
+            assertEquals(normalized, ExpressionCache.normalize(respaced), respaced);
+            assertEquals(evaluate(new ExpressionParser(expression).compile(), table),
+                evaluate(new ExpressionParser(normalized).compile(), table), expression);
+        }
+    }
+
+    @Test
+    void normalizeKeepsOnlySeparatingSpaces() {
+        assertEquals("2 3", ExpressionCache.normalize("  2   3 "));
+        assertEquals("x y", ExpressionCache.normalize("x\t y"));
+        assertEquals("2+3*x", ExpressionCache.normalize("2 + 3 * x"));
+        assertEquals("sin(x)", ExpressionCache.normalize(" sin ( x ) "));
+        assertEquals("1.5 .5", ExpressionCache.normalize("1.5 .5"));
+        assertEquals("", ExpressionCache.normalize(" \t "));
+    }
+
+    @Test
+    void spellingsOfOneExpressionShareAnEntry() {
+        ExpressionCache cache = new ExpressionCache(8);
+        CompiledExpression first = cache.get("x + 1", compiler);
+        assertSame(first, cache.get("x+1", compiler));
+        assertSame(first, cache.get("  x  +\t1 ", compiler));
+
+        assertEquals(1, compilations.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void referencedEntriesGetASecondChance() {
+        ExpressionCache cache = new ExpressionCache(3);
+        CompiledExpression a = cache.get("1+1", compiler);
+        cache.get("2+2", compiler);
+        CompiledExpression c = cache.get("3+3", compiler);
+        assertSame(a, cache.get("1+1", compiler));
+
+        // The hand passes over the referenced 1+1 and drops 2+2, the oldest entry not used since
+        CompiledExpression d = cache.get("4+4", compiler);
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertSame(a, cache.get("1+1", compiler));
+        assertSame(c, cache.get("3+3", compiler));
+        assertSame(d, cache.get("4+4", compiler));
+
+        int before = compilations.get();
+        cache.get("2+2", compiler);
+        assertEquals(before + 1, compilations.get());
+    }
+
+    @Test
+    void sizeStaysWithinCapacity() {
+        ExpressionCache cache = new ExpressionCache(16);
+        for (int i = 0; i < 200; i++) {
+            cache.get(i + "*x", compiler);
+            if (i % 3 == 0) cache.get((i / 2) + "*x", compiler);
+            assertTrue(cache.size() <= 16, "size " + cache.size());
+        }
+        assertEquals(cache.getMisses() - cache.size(), cache.getEvictions());
+
+        cache.setCapacity(4);
+        assertEquals(4, cache.size());
+        assertEquals(4, cache.getCapacity());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void rejectsCapacityBelowOne() {
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(4).setCapacity(0));
+    }
+
+    // Hits race misses and evictions; every lookup still has to return a program for its own text
+    @Test
+    void concurrentLookupsReturnTheRightProgram() throws Exception {
+        ExpressionCache cache = new ExpressionCache(16);
+        Dataset table = new Dataset();
+        List<String> expressions = new ArrayList<>();
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String expression = "x * " + i + " + y";
+            expressions.add(expression);
+            expected.add(evaluate(new ExpressionParser(expression).compile(), table));
+        }
+
+        int threads = 4;
+        int lookups = 5000;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            tasks.add(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    // Skewed towards the first few so some entries stay hot
+                    int index = random.nextBoolean() ? random.nextInt(4) : random.nextInt(expressions.size());
+                    CompiledExpression compiled = cache.get(expressions.get(index), compiler);
+                    assertEquals(expected.get(index), evaluate(compiled, table), expressions.get(index));
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals((long) threads * lookups, cache.getHits() + cache.getMisses());
+        assertTrue(cache.size() <= 16, "size " + cache.size());
+    }
+}
@@ -0,0 +1,94 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import core.dataset.Dataset;
+
+class ExpressionJitTest {
+    private final Dataset table = new Dataset();
+    private boolean enabled;
+    private int threshold;
+
+    @BeforeEach
+    void setUp() {
+        enabled = ExpressionJit.isEnabled();
+        threshold = ExpressionJit.getThreshold();
+        ExpressionJit.setEnabled(true);
+        ExpressionJit.setThreshold(2);
+        for (double value : new double[] {4, 8, 15, 16, 23, 42, 8}) table.add(value);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ExpressionJit.setEnabled(enabled);
+        ExpressionJit.setThreshold(threshold);
+    }
+
+    private static Map<String, Double> randomBindings(RandomExpressions random) {
+        Map<String, Double> variables = new HashMap<>();
+        for (String name : RandomExpressions.VARIABLES) variables.put(name, random.nextValue());
+        return variables;
+    }
+
+    // Promoted through the threshold, then compared with a second copy that stays interpreted
+    @Test
+    void generatedKernelsMatchTheInterpreter() {
+        RandomExpressions random = new RandomExpressions(3);
+        for (int i = 0; i < 3000; i++) {
+            String expression = random.next();
+            CompiledExpression promoted = new ExpressionParser(expression).compile();
+            CompiledExpression interpreted = new ExpressionParser(expression).compile();
+
+            for (int round = 0; round < 4; round++) {
+                Map<String, Double> variables = randomBindings(random);
+                double[] frame = promoted.newFrame();
+                promoted.bind(frame, variables);
+                double actual = promoted.evaluate(frame, table);
+
+                double[] reference = interpreted.newFrame();
+                interpreted.bind(reference, variables);
+                double expected = interpreted.interpret(reference, table);
+                assertEquals(expected, actual, expression + " with " + variables);
+            }
+            assertTrue(promoted.isPromoted(), expression);
+        }
+    }
+
+    @Test
+    void kernelsCompiledDirectlyMatchTheInterpreter() throws ReflectiveOperationException {
+        RandomExpressions random = new RandomExpressions(30);
+        for (int i = 0; i < 1000; i++) {
+            String expression = random.next();
+            CompiledExpression compiled = new ExpressionParser(expression).compile();
+            ExpressionKernel kernel = ExpressionJit.compile(compiled);
+            Map<String, Double> variables = randomBindings(random);
+
+            double[] frame = compiled.newFrame();
+            compiled.bind(frame, variables);
+            double[] reference = frame.clone();
+            assertEquals(compiled.interpret(reference, table), kernel.evaluate(frame, table), expression + " with " + variables);
+        }
+    }
+
+    @Test
+    void promotionWaitsForTheThreshold() {
+        CompiledExpression compiled = new ExpressionParser("x^2 + sin(x) mean").compile();
+        double[] frame = compiled.newFrame();
+        compiled.evaluate(frame, table);
+        assertFalse(compiled.isPromoted());
+        compiled.evaluate(frame, table);
+        assertTrue(compiled.isPromoted());
+
+        ExpressionJit.setEnabled(false);
+        CompiledExpression cold = new ExpressionParser("x^2 + sin(x) mean").compile();
+        for (int i = 0; i < 10; i++) cold.evaluate(cold.newFrame(), table);
+        assertFalse(cold.isPromoted());
+    }
+}
@@ -0,0 +1,55 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import core.lexer.Lexer;
+import core.optimizer.Optimizer;
+import core.parser.Parser;
+import core.token.Token;
+
+class ExpressionParserTest {
+    private static CompiledExpression viaStages(String expression) {
+        List<Token> tokens = new Lexer(expression).tokenize();
+        List<Token> postfix = new Parser(tokens).infixToPostfix();
+        return new ExpressionCompiler(new Optimizer(postfix).optimize()).compile();
+    }
+
+    private static void assertSameProgram(String expression) {
+        CompiledExpression expected = viaStages(expression);
+        CompiledExpression actual = new ExpressionParser(expression).compile();
+        assertArrayEquals(expected.getCode(), actual.getCode(), () -> expression + ": code " + expected + " vs " + actual);
+        assertEquals(doubleBits(expected.getConstants()), doubleBits(actual.getConstants()), expression + ": constants");
+        assertArrayEquals(expected.getSlotNames(), actual.getSlotNames(), expression + ": slots");
+        assertArrayEquals(expected.getUnaryTypes(), actual.getUnaryTypes(), expression + ": unary operators");
+        assertArrayEquals(expected.getBinaryTypes(), actual.getBinaryTypes(), expression + ": binary operators");
+        assertArrayEquals(expected.getStatOps(), actual.getStatOps(), expression + ": statistics");
+        assertEquals(expected.getMaxStack(), actual.getMaxStack(), expression + ": stack depth");
+        assertEquals(expected.hasResult(), actual.hasResult(), expression + ": result");
+    }
+
+    // Compared as bits, so a folded -0.0 or NaN must match too
+    private static String doubleBits(double[] values) {
+        return Arrays.toString(Arrays.stream(values).mapToLong(Double::doubleToRawLongBits).toArray());
+    }
+
+    @Test
+    void randomExpressionsCompileToIdenticalPrograms() {
+        RandomExpressions random = new RandomExpressions(12);
+        for (int i = 0; i < 20_000; i++) assertSameProgram(random.next());
+    }
+
+    @Test
+    void edgeCasesCompileToIdenticalPrograms() {
+        for (String expression : new String[] {"", "1", "-1", "--x", "x", "X + x", "2x", "2 x y", "3(x+1)", "(x)(y)",
+            "2pi", "pi e", "x pi", "5!", "3!!", "x!2", "2^3^2", "-2^2", "x^-1", "2*-x", "x % -y", "x - -y", "10 % 4 % 3",
+            "x*1", "1*x", "x+0", "0+x", "x-0", "0*x", "x/1", "x^1", "x^0", "sin(0)", "sqrt(16)/2", "logten(1000)",
+            "mean", "2 median", "mode + pvar * sstddev", "sin(x)cos(x)", "((((x))))", "1.5.5", ".5", "0.1 + 0.2",
+            "1/0", "0/0 + x", "abs(-x)", "exp(log(x))", "x y rate", "1e", "2e x"}) {
+            assertSameProgram(expression);
+        }
+    }
+}
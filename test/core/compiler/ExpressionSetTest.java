@@ -0,0 +1,91 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import core.MathEngine;
+import core.dataset.Dataset;
+
+class ExpressionSetTest {
+    private final Dataset table = new Dataset();
+    private final MathEngine engine = new MathEngine(new ExpressionCache(), table);
+
+    @BeforeEach
+    void setUp() {
+        for (double value : new double[] {2, 7, 1, 8, 2, 8}) table.add(value);
+    }
+
+    // A shared DAG has to answer every member exactly as that member compiled on its own would
+    @Test
+    void batchesMatchTheirMembersCompiledAlone() {
+        RandomExpressions random = new RandomExpressions(5);
+        for (int batch = 0; batch < 300; batch++) {
+            List<String> expressions = new ArrayList<>();
+            int size = 1 + batch % 12;
+            for (int i = 0; i < size; i++) expressions.add(random.next());
+            // Repeats and sub-terms of earlier members are where the sharing happens
+            if (size > 2) expressions.add(expressions.get(0));
+            ExpressionSet set = engine.compileAll(expressions);
+            assertEquals(expressions.size(), set.size());
+
+            for (int round = 0; round < 3; round++) {
+                Map<String, Double> variables = new HashMap<>();
+                for (String name : RandomExpressions.VARIABLES) variables.put(name, random.nextValue());
+                double[] frame = set.newFrame();
+                set.bind(frame, variables);
+                double[] actual = set.evaluate(frame, table);
+
+                for (int i = 0; i < expressions.size(); i++) {
+                    CompiledExpression alone = new ExpressionParser(expressions.get(i)).compile();
+                    double[] slots = alone.newFrame();
+                    alone.bind(slots, variables);
+                    assertEquals(alone.interpret(slots, table), actual[i], expressions.get(i) + " with " + variables);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sharedSubTermsAreComputedOnce() {
+        List<String> expressions = List.of("sin(x*y) + 1", "x*y - rate", "y*x", "sqrt(x*y) * sin(x*y)");
+        int separately = 0;
+        for (String expression : expressions) separately += engine.compileAll(List.of(expression)).getNodeCount();
+        ExpressionSet set = engine.compileAll(expressions);
+        assertTrue(set.getNodeCount() < separately, set.getNodeCount() + " nodes against " + separately);
+
+        List<String> twice = new ArrayList<>(expressions);
+        twice.addAll(expressions);
+        assertEquals(set.getNodeCount(), engine.compileAll(twice).getNodeCount());
+    }
+
+    @Test
+    void slotsAreTheUnionOfTheMembersVariables() {
+        ExpressionSet set = engine.compileAll(List.of("x + 1", "y * x", "2"));
+        assertEquals(2, set.getSlotCount());
+        assertTrue(set.getSlot("X") >= 0);
+        assertTrue(set.getSlot("y") >= 0);
+        assertEquals(-1, set.getSlot("rate"));
+        assertEquals(set.getSlotCount() + set.getNodeCount(), set.getFrameSize());
+
+        double[] frame = set.newFrame();
+        set.bind(frame, Map.of("x", 3.0, "y", 4.0));
+        double[] out = new double[3];
+        set.evaluate(frame, table, out);
+        assertEquals(4.0, out[0]);
+        assertEquals(12.0, out[1]);
+        assertEquals(2.0, out[2]);
+    }
+
+    @Test
+    void rejectsAShortFrame() {
+        ExpressionSet set = engine.compileAll(List.of("x + y", "x * y"));
+        assertThrows(IllegalArgumentException.class, () -> set.evaluate(new double[set.getSlotCount()], table));
+    }
+}
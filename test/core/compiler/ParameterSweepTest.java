@@ -0,0 +1,105 @@
+package core.compiler;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import core.dataset.Dataset;
+
+class ParameterSweepTest {
+    private final Dataset table = new Dataset();
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        for (double value : new double[] {1, 1, 2, 3, 5, 8}) table.add(value);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static double[] axis(RandomExpressions random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) values[i] = random.nextValue();
+        return values;
+    }
+
+    // Several chunks whose boundaries fall mid-row, checked against plain nested loops
+    @Test
+    void gridMatchesNestedLoops() {
+        RandomExpressions random = new RandomExpressions(23);
+        for (int i = 0; i < 40; i++) {
+            String expression = random.next();
+            double[] xs = axis(random, 37);
+            double[] ys = axis(random, 29);
+            double[] rates = axis(random, 31);
+            double[] actual = new ParameterSweep(new ExpressionParser(expression).compile())
+                .values("x", xs).values("Y", ys).values("rate", rates)
+                .table(table).pool(pool).run();
+
+            CompiledExpression reference = new ExpressionParser(expression).compile();
+            double[] frame = reference.newFrame();
+            int index = 0;
+            for (double x : xs) {
+                for (double y : ys) {
+                    for (double rate : rates) {
+                        reference.bind(frame, Map.of("x", x, "y", y, "rate", rate));
+                        assertEquals(reference.interpret(frame, table), actual[index], expression + " at " + index);
+                        index++;
+                    }
+                }
+            }
+            assertEquals(index, actual.length);
+        }
+    }
+
+    @Test
+    void fixedVariablesAndUnusedAxes() {
+        double[] actual = new ParameterSweep(new ExpressionParser("x * rate").compile())
+            .variables(Map.of("rate", 10.0))
+            .values("x", 1, 2, 3)
+            .values("unused", 0, 0)
+            .pool(pool).run();
+        assertArrayEquals(new double[] {10, 10, 20, 20, 30, 30}, actual);
+    }
+
+    @Test
+    void rangeIncludesBothEnds() {
+        double[] actual = new ParameterSweep(new ExpressionParser("x").compile()).range("x", 0.1, 0.7, 7).pool(pool).run();
+        assertEquals(0.1, actual[0]);
+        assertEquals(0.7, actual[6]);
+        for (int i = 1; i < 7; i++) assertEquals(0.1, actual[i] - actual[i - 1], 1e-15);
+        assertArrayEquals(new double[] {4}, new ParameterSweep(new ExpressionParser("x").compile()).range("x", 4, 9, 1).run());
+    }
+
+    @Test
+    void sinkSeesEveryPointOnce() {
+        ParameterSweep sweep = new ParameterSweep(new ExpressionParser("x + y").compile())
+            .range("x", 0, 1, 300).range("y", 0, 1, 200).pool(pool);
+        AtomicIntegerArray seen = new AtomicIntegerArray((int) sweep.size());
+        sweep.run((first, results, count) -> {
+            for (int i = 0; i < count; i++) seen.incrementAndGet((int) first + i);
+        });
+        for (int i = 0; i < seen.length(); i++) assertEquals(1, seen.get(i), "point " + i);
+    }
+
+    @Test
+    void rejectsBadAxesAndShortOutput() {
+        ParameterSweep sweep = new ParameterSweep(new ExpressionParser("x").compile());
+        assertThrows(IllegalArgumentException.class, () -> sweep.values("x"));
+        assertThrows(IllegalArgumentException.class, () -> sweep.range("x", 0, 1, 0));
+        sweep.values("x", 1, 2, 3);
+        assertThrows(IllegalArgumentException.class, () -> sweep.run(new double[2]));
+        for (int i = 0; i < 4; i++) sweep.range("a" + i, 0, 1, 1 << 16);
+        assertThrows(ArithmeticException.class, sweep::size);
+    }
+}
@@ -0,0 +1,60 @@
+package core.compiler;
+
+import java.util.SplittableRandom;
+import core.lexer.Lexer;
+
+// Random calculator input over the whole grammar: every function, statistic and operator, implicit
+// multiplication, unary minus, factorials, constants, and literals that trigger constant folding
+// and the x*1, x+0 style identities. Parentheses are left out at random so precedence is exercised too.
+public final class RandomExpressions {
+    public static final String[] VARIABLES = {"x", "y", "rate"};
+    private static final String[] FUNCTIONS = Lexer.KEYWORDS.keySet().toArray(new String[0]);
+    private static final String[] STATISTICS = Lexer.STAT_KEYWORDS.keySet().toArray(new String[0]);
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "^", "%"};
+    private static final String[] LITERALS = {"0", "1", "2", "0.5", "10", "3.75", ".25", "pi", "e"};
+
+    private final SplittableRandom random;
+
+    public RandomExpressions(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public String next() {
+        return expression(1 + random.nextInt(5));
+    }
+
+    public double nextValue() {
+        return switch (random.nextInt(6)) {
+            case 0 -> 0;
+            case 1 -> random.nextInt(-5, 6);
+            case 2 -> random.nextDouble(-1, 1);
+            default -> random.nextGaussian() * 10;
+        };
+    }
+
+    private String expression(int depth) {
+        if (depth == 0) return leaf();
+        return switch (random.nextInt(8)) {
+            case 0 -> "-" + operand(depth - 1);
+            case 1 -> FUNCTIONS[random.nextInt(FUNCTIONS.length)] + "(" + expression(depth - 1) + ")";
+            // Evaluator.factorial loops up to its argument, so only leaves get one
+            case 2 -> leaf() + "!";
+            case 3 -> operand(depth - 1) + " " + operand(depth - 1);
+            default -> expression(depth - 1) + " " + OPERATORS[random.nextInt(OPERATORS.length)] + " " + expression(depth - 1);
+        };
+    }
+
+    // Something that binds as one unit when followed by '!' or juxtaposed
+    private String operand(int depth) {
+        return depth == 0 ? leaf() : "(" + expression(depth) + ")";
+    }
+
+    private String leaf() {
+        return switch (random.nextInt(6)) {
+            case 0, 1 -> VARIABLES[random.nextInt(VARIABLES.length)];
+            case 2 -> STATISTICS[random.nextInt(STATISTICS.length)];
+            case 3 -> Integer.toString(random.nextInt(100));
+            default -> LITERALS[random.nextInt(LITERALS.length)];
+        };
+    }
+}
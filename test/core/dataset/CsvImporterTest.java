@@ -0,0 +1,99 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvImporterTest {
+    @TempDir
+    Path dir;
+
+    private double[] importColumn(String text, CsvImporter importer) throws IOException {
+        Path file = dir.resolve("data.csv");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        Dataset dataset = new Dataset();
+        importer.importInto(file, dataset);
+        return dataset.toArray();
+    }
+
+    @Test
+    void readsTheChosenColumn() throws IOException {
+        String text = "a,b,c\n1,2,3\n4, 5 ,6\n7,\"8\",9\n";
+        assertArrayEquals(new double[] {2, 5, 8}, importColumn(text, new CsvImporter().column(1).header(true)));
+    }
+
+    @Test
+    void handlesBomCrlfBlankLinesAndNoFinalNewline() throws IOException {
+        String text = "\uFEFF1.5\r\n\r\n-2e3\r\n\n 3 \r\n4";
+        assertArrayEquals(new double[] {1.5, -2000, 3, 4}, importColumn(text, new CsvImporter()));
+    }
+
+    @Test
+    void countsLinesWithoutANumberAsSkipped() throws IOException {
+        Path file = dir.resolve("skipped.csv");
+        Files.writeString(file, "1;x\nfoo;2\n3\n;\n4;5\n");
+        Dataset dataset = new Dataset();
+        CsvImporter.Result result = new CsvImporter().delimiter(';').column(1).importInto(file, dataset);
+        assertEquals(new CsvImporter.Result(2, 3), result);
+        assertArrayEquals(new double[] {2, 5}, dataset.toArray());
+    }
+
+    @Test
+    void firstRowSplitsTheHeader() throws IOException {
+        Path file = dir.resolve("header.tsv");
+        Files.writeString(file, "\uFEFFtime\t \"value\" \n0\t1\n");
+        assertEquals(List.of("time", "value"), CsvImporter.firstRow(file, '\t'));
+    }
+
+    // Enough lines to span several ranges and windows, with lines of varied length so range
+    // boundaries fall everywhere within a line
+    @Test
+    void rangesSplitAtAnyByteGiveTheSameValuesInOrder() throws IOException {
+        Path file = dir.resolve("large.csv");
+        Random random = new Random(7);
+        double[] expected = new double[1_500_000];
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,value\n");
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = random.nextInt(3) == 0 ? random.nextInt(1000) : random.nextGaussian() * Math.pow(10, random.nextInt(20) - 10);
+                writer.write(i + "," + expected[i] + (i % 5 == 0 ? "\r\n" : "\n"));
+            }
+        }
+        assertEquals(true, Files.size(file) > 2L * CsvImporter.CHUNK_BYTES);
+
+        for (int parallelism : new int[] {1, 3}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                Dataset dataset = new Dataset(new DoubleColumn(), false);
+                CsvImporter.Result result = new CsvImporter().column(1).header(true).pool(pool).importInto(file, dataset);
+                assertEquals(new CsvImporter.Result(expected.length, 0), result);
+                assertArrayEquals(expected, dataset.toArray());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void sinkReceivesEveryValueOnTheCallingThread() throws IOException {
+        Path file = dir.resolve("sink.csv");
+        Files.writeString(file, "1\n2\n3\n");
+        Thread caller = Thread.currentThread();
+        Dataset dataset = new Dataset();
+        new CsvImporter().importInto(file, (values, from, to) -> {
+            assertEquals(caller, Thread.currentThread());
+            dataset.addAll(values, from, to);
+        });
+        assertArrayEquals(new double[] {1, 2, 3}, dataset.toArray());
+    }
+}
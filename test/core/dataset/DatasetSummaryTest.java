@@ -0,0 +1,134 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class DatasetSummaryTest {
+    private static int[] countBins(double[] values, double min, double max) {
+        int[] counts = new int[DatasetSummary.HISTOGRAM_BINS];
+        double binSize = Math.max(0.1, max - min) / DatasetSummary.HISTOGRAM_BINS;
+        for (double value : values) {
+            int bin = Math.min(DatasetSummary.HISTOGRAM_BINS - 1, Math.max(0, (int) ((value - min) / binSize)));
+            counts[bin]++;
+        }
+        return counts;
+    }
+
+    private static void assertDescribes(Dataset dataset, DatasetSummary summary) {
+        assertTrue(summary.isCurrent());
+        assertEquals(dataset.size(), summary.size());
+        assertEquals(dataset.min(), summary.min());
+        assertEquals(dataset.max(), summary.max());
+        assertEquals(dataset.getStats().mean(), summary.mean());
+        assertEquals(dataset.getStats().sum(), summary.sum());
+        assertEquals(dataset.getStats().sampleVariance(), summary.sampleVariance());
+        assertArrayEquals(dataset.quantiles(0.25, 0.5, 0.75), new double[] {summary.q1(), summary.median(), summary.q3()});
+        assertArrayEquals(countBins(dataset.toArray(), dataset.min(), dataset.max()), summary.binCounts());
+        int total = 0;
+        for (int count : summary.binCounts()) total += count;
+        assertEquals(dataset.size(), total);
+    }
+
+    // Views share one summary per version; every kind of edit starts a new one
+    @Test
+    void oneSummaryPerVersion() {
+        SplittableRandom random = new SplittableRandom(43);
+        Dataset dataset = new Dataset();
+        for (int i = 0; i < 1000; i++) dataset.add(Math.rint(random.nextGaussian() * 50));
+
+        DatasetSummary first = dataset.summary();
+        assertSame(first, dataset.summary());
+        assertDescribes(dataset, first);
+
+        Runnable[] edits = {
+            () -> dataset.add(random.nextGaussian()),
+            () -> dataset.set(random.nextInt(dataset.size()), 1e3),
+            () -> dataset.remove(random.nextInt(dataset.size())),
+            () -> dataset.addAll(new double[] {1, 2, 3}, 0, 3),
+            dataset::removeLast,
+        };
+        DatasetSummary previous = first;
+        for (Runnable edit : edits) {
+            edit.run();
+            assertFalse(previous.isCurrent());
+            DatasetSummary next = dataset.summary();
+            assertNotSame(previous, next);
+            assertSame(next, dataset.summary());
+            assertDescribes(dataset, next);
+            previous = next;
+        }
+
+        dataset.clear();
+        assertFalse(previous.isCurrent());
+        assertTrue(dataset.summary().isEmpty());
+    }
+
+    @Test
+    void emptyAndNarrowDatasets() {
+        Dataset dataset = new Dataset();
+        DatasetSummary empty = dataset.summary();
+        assertEquals(0, empty.size());
+        assertEquals(Double.NaN, empty.min());
+        assertEquals(0, empty.maxBinCount());
+
+        // All values equal: the bins are 0.1 wide and everything lands in the first
+        for (int i = 0; i < 5; i++) dataset.add(7);
+        DatasetSummary flat = dataset.summary();
+        assertEquals(5, flat.binCounts()[0]);
+        assertEquals(5, flat.maxBinCount());
+        assertEquals(0.0, flat.populationStdDev());
+    }
+
+    @Test
+    void maximumLandsInTheLastBin() {
+        Dataset dataset = new Dataset();
+        for (int i = 0; i <= 100; i++) dataset.add(i);
+        int[] bins = dataset.summary().binCounts();
+        assertEquals(10, bins[0]);
+        assertEquals(11, bins[DatasetSummary.HISTOGRAM_BINS - 1]);
+    }
+
+    // Without a built index or a store summary the bounds come from one reduction; they must still
+    // order as Double.compare does, signed zeros included
+    @Test
+    void boundsOfUnindexedDatasets() {
+        Dataset dataset = new Dataset(new DoubleColumn(), false);
+        for (double value : new double[] {0.0, 3, -0.0, -2.5, 8, 0.0}) dataset.add(value);
+        DatasetSummary summary = dataset.summary();
+        assertDescribes(dataset, summary);
+        assertEquals(-2.5, summary.min());
+        assertEquals(8.0, summary.max());
+
+        dataset.clear();
+        for (double value : new double[] {0.0, -0.0, 0.0}) dataset.add(value);
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(dataset.summary().min()));
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(dataset.summary().max()));
+    }
+
+    @Test
+    void frequenciesAndSketch() {
+        Dataset indexed = new Dataset();
+        Dataset unindexed = new Dataset(new DoubleColumn(), false);
+        for (double value : new double[] {4, 4, 2, 9, 4, 2}) {
+            indexed.add(value);
+            unindexed.add(value);
+        }
+        assertEquals(3, indexed.summary().frequencies().count(4));
+        assertEquals(2, unindexed.summary().frequencies().count(2));
+        assertSame(unindexed.summary().frequencies(), unindexed.summary().frequencies());
+        assertFalse(unindexed.summary().isApproximate());
+
+        // Switching to or from a sketch changes the quartiles without an edit, so it drops the summary
+        unindexed.enableSketch(QuantileSketch.DEFAULT_K);
+        assertTrue(unindexed.summary().isApproximate());
+        unindexed.disableSketch();
+        assertFalse(unindexed.summary().isApproximate());
+    }
+}
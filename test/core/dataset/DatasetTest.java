@@ -0,0 +1,229 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class DatasetTest {
+    private final SplittableRandom random = new SplittableRandom(47);
+
+    private double nextValue() {
+        return random.nextInt(10) == 0 ? -0.0 : Math.rint(random.nextGaussian() * 20) / 2;
+    }
+
+    private static void assertSameBits(double expected, double actual, String message) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), message);
+    }
+
+    // The unindexed dataset sorts or selects on every query, so it is the reference. Selection
+    // interpolates a median between two zeros to 0.0 where the index averages them to -0.0, so
+    // median and quantiles are compared by value and the rest bit for bit
+    private static void assertAgrees(Dataset expected, Dataset actual) {
+        assertEquals(expected.size(), actual.size());
+        assertSameBits(expected.min(), actual.min(), "min");
+        assertSameBits(expected.max(), actual.max(), "max");
+        assertEquals(expected.median(), actual.median(), 0.0, "median");
+        assertArrayEquals(expected.quantiles(0.1, 0.25, 0.75), actual.quantiles(0.1, 0.25, 0.75), 0.0);
+        assertSameBits(expected.mode(), actual.mode(), "mode");
+        assertEquals(expected.modes(), actual.modes());
+        assertEquals(expected.getFrequencies().maxFrequency(), actual.getFrequencies().maxFrequency());
+    }
+
+    // Edits before the indexes exist, the query that builds them, edits they then follow, and a
+    // clear that drops them
+    @Test
+    void lazyIndexesAgreeWithTheValues() {
+        Dataset indexed = new Dataset();
+        Dataset reference = new Dataset(new DoubleColumn(), false);
+        assertTrue(indexed.isIndexed());
+
+        for (int round = 0; round < 4; round++) {
+            for (int step = 0; step < 3000; step++) {
+                int op = random.nextInt(10);
+                double value = nextValue();
+                if (indexed.isEmpty() || op < 6) {
+                    indexed.add(value);
+                    reference.add(value);
+                } else if (op < 7) {
+                    double[] batch = {value, nextValue(), nextValue()};
+                    indexed.addAll(batch, 0, batch.length);
+                    reference.addAll(batch, 0, batch.length);
+                } else if (op < 9) {
+                    int index = random.nextInt(indexed.size());
+                    indexed.set(index, value);
+                    reference.set(index, value);
+                } else {
+                    int index = random.nextInt(indexed.size());
+                    indexed.remove(index);
+                    reference.remove(index);
+                }
+                if (step % 500 == 499) assertAgrees(reference, indexed);
+            }
+            assertAgrees(reference, indexed);
+            if (round == 1) {
+                indexed.clear();
+                reference.clear();
+                assertEquals(Double.NaN, indexed.mode());
+            }
+        }
+    }
+
+    // The first queries race to build the indexes; every one of them sees the same answers
+    @Test
+    void concurrentFirstQueriesAgree() throws Exception {
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) values[i] = nextValue();
+        Dataset reference = new Dataset(new DoubleColumn(), false);
+        reference.addAll(values, 0, values.length);
+        double median = reference.median();
+        double mode = reference.mode();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int trial = 0; trial < 5; trial++) {
+                Dataset indexed = new Dataset();
+                indexed.addAll(values, 0, values.length);
+                Future<?>[] queries = new Future<?>[8];
+                for (int i = 0; i < queries.length; i++) {
+                    queries[i] = pool.submit(() -> {
+                        assertEquals(median, indexed.median(), 0.0, "median");
+                        assertSameBits(mode, indexed.mode(), "mode");
+                        return null;
+                    });
+                }
+                for (Future<?> query : queries) query.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Big batches drop the built indexes, small ones go into them; either way the answers hold
+    @Test
+    void bulkAddsAgreeWithTheValues() {
+        Dataset indexed = new Dataset();
+        Dataset reference = new Dataset(new DoubleColumn(), false);
+        for (int size : new int[] {10, 100_000, 1000, 50_000, 20_000}) {
+            double[] batch = new double[size];
+            for (int i = 0; i < size; i++) batch[i] = nextValue();
+            indexed.addAll(batch, 0, size);
+            reference.addAll(batch, 0, size);
+            assertAgrees(reference, indexed);
+        }
+    }
+
+    // Built on another thread from a copy, and only taken if nothing changed in between
+    @Test
+    void indexesBuiltElsewhereAreInstalledOnce() throws Exception {
+        Dataset indexed = new Dataset();
+        Dataset reference = new Dataset(new DoubleColumn(), false);
+        for (int i = 0; i < 10_000; i++) {
+            double value = nextValue();
+            indexed.add(value);
+            reference.add(value);
+        }
+
+        Dataset.IndexBuild build = indexed.prepareIndexes();
+        Thread builder = new Thread(build::build);
+        builder.start();
+        builder.join();
+        assertTrue(indexed.installIndexes(build));
+        assertFalse(indexed.installIndexes(build));
+        assertNull(indexed.prepareIndexes());
+        assertAgrees(reference, indexed);
+
+        // An edit after the copy makes the build stale; an unfinished one is never taken
+        indexed.clear();
+        reference.clear();
+        indexed.add(1);
+        reference.add(1);
+        Dataset.IndexBuild stale = indexed.prepareIndexes();
+        stale.build();
+        indexed.add(2);
+        reference.add(2);
+        assertFalse(indexed.installIndexes(stale));
+        assertFalse(indexed.installIndexes(indexed.prepareIndexes()));
+        assertAgrees(reference, indexed);
+
+        assertNull(reference.prepareIndexes());
+        assertThrows(IllegalArgumentException.class, () -> reference.installIndexes(stale));
+    }
+
+    // A sketched dataset never copies its values for the mode; it is exact while a value stands out
+    @Test
+    void sketchedModes() {
+        try (Dataset sketched = Dataset.offHeap()) {
+            Dataset reference = new Dataset(new DoubleColumn(), false);
+            for (int i = 0; i < 50_000; i++) {
+                double value = i % 10 == 0 ? 7.5 : i % 20_000;
+                sketched.add(value);
+                reference.add(value);
+            }
+            assertEquals(reference.modes(), sketched.modes());
+            assertEquals(7.5, sketched.summary().modes().smallest());
+
+            sketched.clear();
+            for (int i = 0; i < 50_000; i++) sketched.add(i % 20_000);
+            Modes flat = sketched.modes();
+            assertTrue(flat.approximate());
+            assertEquals(3, flat.frequency());
+        }
+    }
+
+    // The values, stats and identity survive a move; the version keeps rising across it
+    @Test
+    void moveToAnotherStore() {
+        Dataset dataset = new Dataset();
+        Dataset reference = new Dataset(new DoubleColumn(), false);
+        for (int i = 0; i < 40_000; i++) {
+            double value = nextValue();
+            dataset.add(value);
+            reference.add(value);
+        }
+        dataset.median();
+        RunningStats stats = dataset.getStats();
+        DatasetSummary before = dataset.summary();
+        ColumnView slice = dataset.slice(0, 10);
+
+        try (OffHeapColumn target = new OffHeapColumn()) {
+            dataset.moveTo(target, false);
+            assertFalse(dataset.isIndexed());
+            assertFalse(before.isCurrent());
+            assertThrows(ConcurrentModificationException.class, () -> slice.get(0));
+            assertEquals(stats, dataset.getStats());
+            assertEquals(reference.getStats().state(), dataset.getStats().state());
+            assertAgrees(reference, dataset);
+
+            dataset.enableSketch(QuantileSketch.DEFAULT_K);
+            assertTrue(dataset.isApproximate());
+            dataset.moveTo(new DoubleColumn(), true);
+            assertFalse(target.isOpen());
+            assertFalse(dataset.isApproximate());
+            assertTrue(dataset.isIndexed());
+            dataset.add(3);
+            reference.add(3);
+            assertAgrees(reference, dataset);
+        }
+        assertThrows(IllegalArgumentException.class, () -> dataset.moveTo(DoubleColumn.of(1), true));
+    }
+
+    @Test
+    void scatterBinsCoverEveryValue() {
+        Dataset dataset = new Dataset(new DoubleColumn(), false);
+        for (int i = 0; i < 10_000; i++) dataset.add(nextValue());
+        int[] bins = dataset.summary().scatterBinCounts();
+        assertEquals(DatasetSummary.SCATTER_BINS, bins.length);
+        assertEquals(dataset.size(), Arrays.stream(bins).sum());
+    }
+}
@@ -0,0 +1,164 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class FrequencyIndexTest {
+    private static final double[] SPECIALS = {Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    private static double randomValue(SplittableRandom random, int range) {
+        return random.nextInt(5) == 0 ? SPECIALS[random.nextInt(SPECIALS.length)] : random.nextInt(range) / 4.0;
+    }
+
+    // Double.equals semantics, as the index has them: NaN is one key, -0.0 and 0.0 are two
+    private static void assertMatches(Map<Double, Integer> counts, FrequencyIndex index) {
+        assertEquals(counts.size(), index.distinctCount());
+        int max = counts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        assertEquals(max, index.maxFrequency());
+
+        Set<Double> modes = new HashSet<>();
+        counts.forEach((value, count) -> {
+            if (count == max) modes.add(value);
+        });
+        assertEquals(modes.size(), index.modeCount());
+        Set<Double> reported = new HashSet<>();
+        index.forEachMode(reported::add);
+        assertEquals(modes, reported);
+        if (modes.isEmpty()) {
+            assertEquals(Double.NaN, index.anyMode());
+            assertEquals(Double.NaN, index.smallestMode());
+        } else {
+            assertEquals(true, modes.contains(index.anyMode()));
+            assertEquals(Collections.min(modes), index.smallestMode());
+        }
+
+        Map<Double, Integer> entries = new HashMap<>();
+        index.forEach((value, count) -> assertEquals(null, entries.put(value, count)));
+        assertEquals(counts, entries);
+        for (double probe : SPECIALS) assertEquals(counts.getOrDefault(probe, 0), index.count(probe), "count " + probe);
+    }
+
+    private static void decrement(Map<Double, Integer> counts, double value) {
+        if (counts.merge(value, -1, Integer::sum) == 0) counts.remove(value);
+    }
+
+    @Test
+    void emptyIndex() {
+        FrequencyIndex index = new FrequencyIndex();
+        assertMatches(new HashMap<>(), index);
+        assertThrows(IllegalStateException.class, () -> index.remove(1));
+    }
+
+    @Test
+    void randomEditsMatchAHashMap() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int range : new int[] {4, 40, 4000}) {
+            FrequencyIndex index = new FrequencyIndex();
+            List<Double> values = new ArrayList<>();
+            Map<Double, Integer> counts = new HashMap<>();
+            for (int step = 0; step < 20_000; step++) {
+                int op = values.isEmpty() ? 0 : random.nextInt(3);
+                if (op == 0) {
+                    double value = randomValue(random, range);
+                    values.add(value);
+                    counts.merge(value, 1, Integer::sum);
+                    index.add(value);
+                } else if (op == 1) {
+                    double value = values.remove(random.nextInt(values.size()));
+                    decrement(counts, value);
+                    index.remove(value);
+                } else {
+                    int i = random.nextInt(values.size());
+                    double value = randomValue(random, range);
+                    double old = values.set(i, value);
+                    counts.merge(value, 1, Integer::sum);
+                    decrement(counts, old);
+                    index.replace(old, value);
+                }
+                if (step % 251 == 0) assertMatches(counts, index);
+            }
+            assertMatches(counts, index);
+
+            // Emptied value by value, leaving only deleted slots behind, then refilled
+            for (double value : values) {
+                decrement(counts, value);
+                index.remove(value);
+            }
+            assertMatches(counts, index);
+            for (int i = 0; i < 5000; i++) {
+                double value = randomValue(random, range);
+                counts.merge(value, 1, Integer::sum);
+                index.add(value);
+            }
+            assertMatches(counts, index);
+        }
+    }
+
+    @Test
+    void signedZerosAndNaNAreCountedApart() {
+        FrequencyIndex index = new FrequencyIndex();
+        index.add(0.0);
+        index.add(-0.0);
+        index.add(-0.0);
+        index.add(Double.NaN);
+        index.add(Double.longBitsToDouble(0x7ff8_0000_0000_0001L));
+        assertEquals(1, index.count(0.0));
+        assertEquals(2, index.count(-0.0));
+        assertEquals(2, index.count(Double.NaN));
+        assertEquals(3, index.distinctCount());
+        assertEquals(2, index.modeCount());
+        assertEquals(-0.0, index.smallestMode());
+        index.replace(0.0, -0.0);
+        assertEquals(-0.0, index.smallestMode());
+        assertEquals(1, index.modeCount());
+        assertThrows(IllegalStateException.class, () -> index.remove(0.0));
+    }
+
+    @Test
+    void clearEmptiesTheIndex() {
+        FrequencyIndex index = new FrequencyIndex();
+        for (int i = 0; i < 1000; i++) index.add(i % 13);
+        index.clear();
+        assertMatches(new HashMap<>(), index);
+        index.add(2);
+        assertEquals(2, index.anyMode());
+    }
+
+    // Counted from the sorted prefix, then grown past its exact-size table and frequency lists
+    @Test
+    void fromSortedMatchesAHashMap() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int range : new int[] {1, 4, 40, 4000}) {
+            int n = random.nextInt(1, 3000);
+            double[] values = new double[n + 4];
+            for (int i = 0; i < values.length; i++) values[i] = randomValue(random, range);
+            Arrays.sort(values, 0, n);
+            Map<Double, Integer> counts = new HashMap<>();
+            for (int i = 0; i < n; i++) counts.merge(values[i], 1, Integer::sum);
+
+            FrequencyIndex index = FrequencyIndex.fromSorted(values, n);
+            assertMatches(counts, index);
+            for (int i = 0; i < 3000; i++) {
+                double value = i % 2 == 0 ? values[0] : randomValue(random, range * 4);
+                counts.merge(value, 1, Integer::sum);
+                index.add(value);
+            }
+            assertMatches(counts, index);
+            decrement(counts, values[0]);
+            index.remove(values[0]);
+            assertMatches(counts, index);
+        }
+        assertMatches(new HashMap<>(), FrequencyIndex.fromSorted(new double[3], 0));
+    }
+}
@@ -0,0 +1,86 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class HeavyHittersTest {
+    private final SplittableRandom random = new SplittableRandom(53);
+
+    // Counted from a full sort: the smallest mode, its frequency and how many values share it
+    private static Modes sortedModes(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double smallest = Double.NaN;
+        int frequency = 0;
+        int count = 0;
+        for (int left = 0; left < sorted.length; ) {
+            int right = left;
+            while (right < sorted.length && Double.compare(sorted[right], sorted[left]) == 0) right++;
+            if (right - left > frequency) {
+                frequency = right - left;
+                smallest = sorted[left];
+                count = 1;
+            } else if (right - left == frequency) {
+                count++;
+            }
+            left = right;
+        }
+        return new Modes(smallest, frequency, count, false);
+    }
+
+    // A few heavy values, ties among them included, over a long tail of rare ones; the heavy values
+    // clear n / (k + 1), so the answer must be exact whatever order the values come in
+    @Test
+    void heavyValuesAreFoundExactly() {
+        for (int trial = 0; trial < 200; trial++) {
+            int counters = 1 + random.nextInt(32);
+            int n = 1 + random.nextInt(20_000);
+            double[] values = new double[n];
+            int heavy = 1 + random.nextInt(3);
+            for (int i = 0; i < n; i++) {
+                values[i] = random.nextInt(4) == 0 ? random.nextInt(heavy) - 0.0 : 10 + random.nextDouble();
+            }
+            if (random.nextBoolean()) values[random.nextInt(n)] = -0.0;
+
+            Modes expected = sortedModes(values);
+            Modes actual = HeavyHitters.modes(DoubleColumn.of(values), counters);
+            if ((long) expected.frequency() * (counters + 1) > n) {
+                assertEquals(expected, actual, "trial " + trial);
+            } else {
+                assertTrue(actual.approximate(), "trial " + trial);
+                assertTrue(actual.frequency() <= expected.frequency());
+            }
+        }
+    }
+
+    @Test
+    void flatDataIsReportedAsApproximate() {
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) values[i] = i % 5000;
+        Modes modes = HeavyHitters.modes(DoubleColumn.of(values), 1024);
+        assertTrue(modes.approximate());
+        assertEquals(20, modes.frequency());
+
+        Modes exact = HeavyHitters.modes(DoubleColumn.of(values), 5000);
+        assertFalse(exact.approximate());
+        assertEquals(0.0, exact.smallest());
+        assertEquals(5000, exact.count());
+        assertTrue(exact.allTied(values.length));
+    }
+
+    @Test
+    void specialValues() {
+        Modes empty = HeavyHitters.modes(new DoubleColumn(), 8);
+        assertEquals(0, empty.frequency());
+        assertEquals(Double.NaN, empty.smallest());
+
+        double[] values = {Double.NaN, 0.0, -0.0, Double.NaN, 0.0, -0.0, 1};
+        assertEquals(sortedModes(values), HeavyHitters.modes(DoubleColumn.of(values), 8));
+        assertEquals(-0.0, HeavyHitters.modes(DoubleColumn.of(values), 8).smallest());
+    }
+}
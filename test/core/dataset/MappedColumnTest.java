@@ -0,0 +1,120 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedColumnTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void valuesAndHeaderSurviveCloseAndReopen() throws IOException {
+        Path file = dir.resolve("column.scds");
+        double[] values = new double[100_000];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) values[i] = random.nextGaussian() * 1e3;
+        values[7] = Double.NaN;
+        values[8] = Double.POSITIVE_INFINITY;
+
+        RunningStats.State written;
+        ColumnSummary writtenSummary;
+        try (MappedColumn column = MappedColumn.create(file)) {
+            column.appendAll(values, 0, values.length);
+            written = column.stats().state();
+            writtenSummary = column.summary();
+        }
+        assertEquals(MappedColumn.HEADER_BYTES + values.length * 8L, Files.size(file));
+
+        try (MappedColumn column = MappedColumn.open(file)) {
+            assertEquals(values.length, column.size());
+            for (int i = 0; i < values.length; i++) assertEquals(values[i], column.get(i));
+            assertEquals(written, column.stats().state());
+            assertEquals(writtenSummary, column.summary());
+        }
+    }
+
+    @Test
+    void closingADatasetKeepsItsFile() throws IOException {
+        Path file = dir.resolve("dataset.scds");
+        try (Dataset dataset = new Dataset(MappedColumn.create(file), false)) {
+            for (int i = 0; i < 1000; i++) dataset.add(i);
+        }
+        try (Dataset dataset = Dataset.open(file)) {
+            assertEquals(1000, dataset.size());
+            assertEquals(999, dataset.get(999));
+            assertEquals(499.5, dataset.getStats().mean());
+            assertEquals(0, dataset.min());
+            assertEquals(999, dataset.max());
+            dataset.add(1000);
+        }
+        try (Dataset dataset = Dataset.open(file)) {
+            assertEquals(1001, dataset.size());
+            assertEquals(500, dataset.getStats().mean());
+        }
+    }
+
+    @Test
+    void readOnlyFileOpensForReading() throws IOException {
+        Path file = dir.resolve("readonly.scds");
+        try (MappedColumn column = MappedColumn.create(file)) {
+            column.appendAll(new double[] {1, 2, 3}, 0, 3);
+        }
+        if (!file.toFile().setWritable(false) || Files.isWritable(file)) return;
+
+        try (MappedColumn column = MappedColumn.open(file)) {
+            assertEquals(3, column.size());
+            assertEquals(2, column.get(1));
+            assertThrows(UncheckedIOException.class, () -> column.append(4));
+            assertEquals(3, column.get(2));
+        } finally {
+            file.toFile().setWritable(true);
+        }
+        assertEquals(MappedColumn.HEADER_BYTES + 3 * 8, Files.size(file));
+    }
+
+    @Test
+    void editsAfterOpeningAreWritten() throws IOException {
+        Path file = dir.resolve("edit.scds");
+        try (MappedColumn column = MappedColumn.create(file)) {
+            column.appendAll(new double[] {5, 1, 9}, 0, 3);
+        }
+        try (MappedColumn column = MappedColumn.open(file)) {
+            column.set(2, 4);
+            column.removeAt(0);
+        }
+        try (MappedColumn column = MappedColumn.open(file)) {
+            assertEquals(2, column.size());
+            assertEquals(new ColumnSummary(1, 4), column.summary());
+            assertEquals(2.5, column.stats().mean(), 1e-12);
+        }
+    }
+
+    @Test
+    void countBeyondAnIntIsRejected() throws IOException {
+        Path file = dir.resolve("huge.scds");
+        try (MappedColumn column = MappedColumn.create(file)) {
+            column.append(1);
+        }
+        long count = Integer.MAX_VALUE + 1L;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, count);
+            channel.write(header, 8);
+            // Sparse, so the capacity check passes and only the count check is left
+            channel.write(ByteBuffer.allocate(1), MappedColumn.HEADER_BYTES + count * 8 - 1);
+        }
+        IOException e = assertThrows(IOException.class, () -> MappedColumn.open(file));
+        assertEquals(file + " holds " + count + " values, more than a column can index", e.getMessage());
+    }
+}
@@ -0,0 +1,111 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class OffHeapColumnTest {
+    private static void assertSameValues(DoubleColumn expected, OffHeapColumn actual) {
+        assertEquals(expected.size(), actual.size());
+        double[] values = actual.toArray();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Double.doubleToRawLongBits(expected.get(i)), Double.doubleToRawLongBits(values[i]), "index " + i);
+        }
+    }
+
+    // Every store operation applied to both, through several native reallocations
+    @Test
+    void editsMatchTheHeapColumn() {
+        SplittableRandom random = new SplittableRandom(19);
+        DoubleColumn expected = new DoubleColumn();
+        try (OffHeapColumn actual = new OffHeapColumn()) {
+            int modCount = actual.modCount();
+            for (int step = 0; step < 30_000; step++) {
+                int op = random.nextInt(20);
+                double value = random.nextInt(8) == 0 ? -0.0 : random.nextGaussian();
+                if (expected.size() == 0 || op < 8) {
+                    expected.append(value);
+                    actual.append(value);
+                } else if (op < 10) {
+                    double[] source = new double[random.nextInt(1, 700)];
+                    for (int i = 0; i < source.length; i++) source[i] = random.nextDouble();
+                    int from = random.nextInt(source.length);
+                    int to = random.nextInt(from, source.length + 1);
+                    expected.appendAll(source, from, to);
+                    actual.appendAll(source, from, to);
+                } else if (op < 14) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.set(index, value), actual.set(index, value));
+                } else if (op < 19) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(expected.removeAt(index), actual.removeAt(index));
+                } else {
+                    int from = random.nextInt(expected.size());
+                    int length = random.nextInt(expected.size() - from + 1);
+                    double[] a = new double[length + 3];
+                    double[] b = new double[length + 3];
+                    expected.copyTo(from, a, 3, length);
+                    actual.copyTo(from, b, 3, length);
+                    assertArrayEquals(a, b);
+                }
+                assertTrue(actual.modCount() != modCount || op == 19);
+                modCount = actual.modCount();
+                if (step % 1000 == 0) assertSameValues(expected, actual);
+            }
+            assertSameValues(expected, actual);
+            assertTrue(actual.reservedBytes() >= (long) actual.size() * Double.BYTES);
+        }
+    }
+
+    @Test
+    void boundsAreChecked() {
+        try (OffHeapColumn column = new OffHeapColumn()) {
+            column.append(1);
+            assertThrows(IndexOutOfBoundsException.class, () -> column.get(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> column.set(-1, 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> column.removeAt(1));
+            assertThrows(IndexOutOfBoundsException.class, () -> column.copyTo(0, new double[2], 0, 2));
+            assertThrows(IndexOutOfBoundsException.class, () -> column.appendAll(new double[2], 1, 3));
+            column.clear();
+            assertEquals(0, column.size());
+            assertTrue(column.isOpen());
+        }
+    }
+
+    @Test
+    void closeReleasesTheMemory() {
+        OffHeapColumn column = new OffHeapColumn(5000);
+        for (int i = 0; i < 100; i++) column.append(i);
+        assertEquals(5000L * Double.BYTES, column.reservedBytes());
+
+        column.close();
+        assertFalse(column.isOpen());
+        assertEquals(0, column.size());
+        assertEquals(0, column.reservedBytes());
+        assertThrows(IllegalStateException.class, () -> column.append(1));
+        column.close();
+    }
+
+    @Test
+    void datasetOverTheColumnAgreesWithTheDefault() {
+        SplittableRandom random = new SplittableRandom(29);
+        try (Dataset offHeap = new Dataset(new OffHeapColumn(), true)) {
+            Dataset onHeap = new Dataset();
+            for (int i = 0; i < 5000; i++) {
+                double value = Math.rint(random.nextGaussian() * 100);
+                offHeap.add(value);
+                onHeap.add(value);
+            }
+            assertEquals(onHeap.getStats().state(), offHeap.getStats().state());
+            assertEquals(onHeap.median(), offHeap.median());
+            assertEquals(onHeap.mode(), offHeap.mode());
+            assertEquals(onHeap.min(), offHeap.min());
+            assertEquals(onHeap.max(), offHeap.max());
+        }
+    }
+}
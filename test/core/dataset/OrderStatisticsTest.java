@@ -0,0 +1,173 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class OrderStatisticsTest {
+    private static final double[] SPECIALS = {Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    private static double randomValue(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> SPECIALS[random.nextInt(SPECIALS.length)];
+            case 1 -> random.nextInt(10);
+            default -> random.nextGaussian();
+        };
+    }
+
+    private static void assertSameBits(double expected, double actual, String message) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), message + ": " + expected + " vs " + actual);
+    }
+
+    private static void assertMatches(List<Double> sorted, OrderStatistics order) {
+        int n = sorted.size();
+        assertEquals(n, order.size());
+        for (int k = 0; k < n; k++) assertSameBits(sorted.get(k), order.select(k), "select " + k);
+        assertThrows(IndexOutOfBoundsException.class, () -> order.select(n));
+        assertThrows(IndexOutOfBoundsException.class, () -> order.select(-1));
+        if (n == 0) {
+            assertSameBits(Double.NaN, order.min(), "min");
+            assertSameBits(Double.NaN, order.max(), "max");
+            assertEquals(0, order.median());
+            assertEquals(0, order.quantile(0.25));
+            return;
+        }
+        assertSameBits(sorted.get(0), order.min(), "min");
+        assertSameBits(sorted.get(n - 1), order.max(), "max");
+        double median = (n & 1) == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+        assertSameBits(median, order.median(), "median");
+        for (double p : new double[] {0, 0.1, 0.25, 0.5, 0.75, 0.9, 1}) {
+            double index = p * (n - 1);
+            int lower = (int) Math.floor(index);
+            int upper = (int) Math.ceil(index);
+            double low = sorted.get(lower);
+            double expected = lower == upper ? low : low + (index - lower) * (sorted.get(upper) - low);
+            assertSameBits(expected, order.quantile(p), "quantile " + p);
+        }
+        for (double probe : SPECIALS) {
+            int index = Collections.binarySearch(sorted, probe);
+            int expected = index < 0 ? -index - 1 : firstIndexOf(sorted, probe);
+            assertEquals(expected, order.rank(probe), "rank " + probe);
+        }
+    }
+
+    private static int firstIndexOf(List<Double> sorted, double value) {
+        int i = 0;
+        while (Double.compare(sorted.get(i), value) < 0) i++;
+        return i;
+    }
+
+    private static void insertSorted(List<Double> sorted, double value) {
+        int index = Collections.binarySearch(sorted, value);
+        sorted.add(index < 0 ? -index - 1 : index, value);
+    }
+
+    @Test
+    void emptyIndex() {
+        OrderStatistics order = new OrderStatistics();
+        assertMatches(new ArrayList<>(), order);
+        assertThrows(IllegalStateException.class, () -> order.remove(1));
+    }
+
+    @Test
+    void randomEditsMatchASortedList() {
+        SplittableRandom random = new SplittableRandom(16);
+        for (int round = 0; round < 20; round++) {
+            OrderStatistics order = new OrderStatistics();
+            List<Double> values = new ArrayList<>();
+            List<Double> sorted = new ArrayList<>();
+            for (int step = 0; step < 2000; step++) {
+                int op = values.isEmpty() ? 0 : random.nextInt(3);
+                if (op == 0) {
+                    double value = randomValue(random);
+                    values.add(value);
+                    insertSorted(sorted, value);
+                    order.add(value);
+                } else if (op == 1) {
+                    double value = values.remove(random.nextInt(values.size()));
+                    sorted.remove(Collections.binarySearch(sorted, value));
+                    order.remove(value);
+                } else {
+                    int index = random.nextInt(values.size());
+                    double value = randomValue(random);
+                    double old = values.set(index, value);
+                    sorted.remove(Collections.binarySearch(sorted, old));
+                    insertSorted(sorted, value);
+                    order.replace(old, value);
+                }
+                if (step % 97 == 0) assertMatches(sorted, order);
+            }
+            assertMatches(sorted, order);
+
+            // Emptied node by node, then reused from the free list
+            while (!values.isEmpty()) {
+                double value = values.remove(values.size() - 1);
+                sorted.remove(Collections.binarySearch(sorted, value));
+                order.remove(value);
+            }
+            assertMatches(sorted, order);
+            for (int i = 0; i < 100; i++) {
+                double value = randomValue(random);
+                insertSorted(sorted, value);
+                order.add(value);
+            }
+            assertMatches(sorted, order);
+        }
+    }
+
+    @Test
+    void signedZerosAndNaNAreDistinctKeys() {
+        OrderStatistics order = new OrderStatistics();
+        order.add(0.0);
+        order.add(Double.NaN);
+        order.add(-0.0);
+        assertSameBits(-0.0, order.select(0), "first");
+        assertSameBits(0.0, order.select(1), "second");
+        assertSameBits(Double.NaN, order.select(2), "last");
+        assertThrows(IllegalStateException.class, () -> order.remove(1.0));
+        order.remove(-0.0);
+        assertThrows(IllegalStateException.class, () -> order.remove(-0.0));
+        assertEquals(2, order.size());
+        assertSameBits(0.0, order.min(), "min");
+    }
+
+    @Test
+    void clearEmptiesTheIndex() {
+        OrderStatistics order = new OrderStatistics();
+        for (int i = 0; i < 1000; i++) order.add(i % 7);
+        order.clear();
+        assertMatches(new ArrayList<>(), order);
+        order.add(3);
+        assertEquals(3, order.median());
+    }
+
+    // Built in one pass from the sorted prefix, then edited like an index built by inserts
+    @Test
+    void fromSortedMatchesASortedList() {
+        SplittableRandom random = new SplittableRandom(18);
+        for (int n : new int[] {0, 1, 2, 3, 17, 5000}) {
+            double[] values = new double[n + 4];
+            for (int i = 0; i < values.length; i++) values[i] = randomValue(random);
+            Arrays.sort(values, 0, n);
+            List<Double> sorted = new ArrayList<>();
+            for (int i = 0; i < n; i++) sorted.add(values[i]);
+
+            OrderStatistics order = OrderStatistics.fromSorted(values, n);
+            assertMatches(sorted, order);
+            for (int step = 0; step < 500; step++) {
+                double value = randomValue(random);
+                insertSorted(sorted, value);
+                order.add(value);
+                double removed = sorted.remove(random.nextInt(sorted.size()));
+                order.remove(removed);
+            }
+            assertMatches(sorted, order);
+        }
+    }
+}
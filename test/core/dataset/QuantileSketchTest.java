@@ -0,0 +1,217 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+    private static final double[] PROBES = {0.001, 0.01, 0.05, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999};
+
+    private static double[] data(String shape, int n, SplittableRandom random) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = switch (shape) {
+                case "uniform" -> random.nextDouble();
+                case "gaussian" -> random.nextGaussian();
+                case "ascending" -> i;
+                case "descending" -> n - i;
+                case "duplicates" -> random.nextInt(7);
+                default -> Math.exp(random.nextGaussian() * 4);
+            };
+        }
+        return values;
+    }
+
+    // The estimate's distance from rank p * (n - 1), in ranks: zero if any copy of it stands there
+    private static long rankError(double[] sorted, double p, double estimate) {
+        long target = Math.round(p * (sorted.length - 1));
+        int below = lowerBound(sorted, estimate);
+        int upTo = upperBound(sorted, estimate);
+        if (target < below) return below - target;
+        if (target >= upTo) return target - upTo + 1;
+        return 0;
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(sorted[mid], value) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int upperBound(double[] sorted, double value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Double.compare(sorted[mid], value) <= 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // 1.7 / k of n from the class comment, with headroom
+    private static void assertWithinBound(QuantileSketch sketch, double[] values, String label) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        long allowed = (long) Math.ceil(2.5 / sketch.k() * sorted.length) + 1;
+        for (double p : PROBES) {
+            long error = rankError(sorted, p, sketch.quantile(p));
+            assertTrue(error <= allowed, label + " p=" + p + ": rank error " + error + " > " + allowed);
+        }
+        assertEquals(sorted[0], sketch.min());
+        assertEquals(sorted[sorted.length - 1], sketch.max());
+    }
+
+    @Test
+    void rankErrorStaysWithinTheBound() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (String shape : new String[] {"uniform", "gaussian", "ascending", "descending", "duplicates", "skewed"}) {
+            for (int k : new int[] {50, 200}) {
+                double[] values = data(shape, 200_000, random);
+                QuantileSketch sketch = new QuantileSketch(k);
+                for (double value : values) sketch.add(value);
+                assertEquals(values.length, sketch.size());
+                assertWithinBound(sketch, values, shape + " k=" + k);
+                assertTrue(sketch.retained() < 4 * k, "retained " + sketch.retained());
+            }
+        }
+    }
+
+    @Test
+    void smallInputsAreExact() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int n = 1; n < 150; n++) {
+            double[] values = data("gaussian", n, random);
+            QuantileSketch sketch = new QuantileSketch(200);
+            for (double value : values) sketch.add(value);
+            double[] exact = Selection.quantiles(values.clone(), n, PROBES);
+            for (int i = 0; i < PROBES.length; i++) assertEquals(exact[i], sketch.quantile(PROBES[i]), "n=" + n);
+            assertEquals(Selection.median(values.clone(), n), sketch.median());
+        }
+    }
+
+    @Test
+    void compactionConservesWeight() {
+        SplittableRandom random = new SplittableRandom(9);
+        QuantileSketch sketch = new QuantileSketch(8);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(random.nextGaussian());
+            assertEquals(sketch.size(), sketch.totalWeight());
+        }
+        QuantileSketch wide = new QuantileSketch(400);
+        for (int i = 0; i < 300_000; i++) wide.add(random.nextDouble());
+        assertEquals(wide.size(), wide.totalWeight());
+        wide.merge(sketch);
+        assertEquals(400_000, wide.size());
+        assertEquals(wide.size(), wide.totalWeight());
+    }
+
+    @Test
+    void mergedSketchesCoverEveryPart() {
+        SplittableRandom random = new SplittableRandom(13);
+        List<double[]> parts = new ArrayList<>();
+        QuantileSketch merged = new QuantileSketch(200);
+        int total = 0;
+        for (int part = 0; part < 8; part++) {
+            double[] values = data(part % 2 == 0 ? "gaussian" : "skewed", 10_000 + random.nextInt(40_000), random);
+            QuantileSketch sketch = new QuantileSketch(200);
+            for (double value : values) sketch.add(value);
+            long size = sketch.size();
+            double median = sketch.median();
+
+            merged.merge(sketch);
+            assertEquals(size, sketch.size());
+            assertEquals(median, sketch.median());
+            parts.add(values);
+            total += values.length;
+        }
+        merged.merge(new QuantileSketch(200));
+
+        double[] all = new double[total];
+        int at = 0;
+        for (double[] values : parts) {
+            System.arraycopy(values, 0, all, at, values.length);
+            at += values.length;
+        }
+        assertEquals(total, merged.size());
+        assertEquals(merged.size(), merged.totalWeight());
+        assertWithinBound(merged, all, "merged");
+    }
+
+    @Test
+    void emptyAndSpecialValues() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertEquals(Double.NaN, sketch.min());
+        assertEquals(Double.NaN, sketch.max());
+        assertEquals(0, sketch.median());
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(1));
+
+        sketch.add(Double.NaN);
+        sketch.add(-0.0);
+        sketch.add(0.0);
+        sketch.add(Double.NEGATIVE_INFINITY);
+        sketch.add(Double.POSITIVE_INFINITY);
+        assertEquals(Double.NEGATIVE_INFINITY, sketch.min());
+        assertEquals(Double.NaN, sketch.max());
+        assertEquals(0.0, sketch.median());
+        assertEquals(Double.NaN, sketch.quantile(1));
+
+        sketch.clear();
+        assertEquals(0, sketch.size());
+        assertEquals(0, sketch.totalWeight());
+        sketch.add(3);
+        assertEquals(3, sketch.median());
+    }
+
+    @Test
+    void datasetRebuildsItsSketchAfterEdits() {
+        Dataset dataset = new Dataset(new DoubleColumn(), false);
+        dataset.enableSketch(200);
+        for (int i = 0; i < 10_000; i++) dataset.add(i);
+        assertEquals(4999.5, dataset.median(), 100);
+        for (int i = 0; i < 5000; i++) dataset.removeLast();
+        assertEquals(2499.5, dataset.median(), 50);
+        dataset.set(0, 1e9);
+        assertEquals(1e9, dataset.quantile(1));
+        dataset.clear();
+        assertEquals(0, dataset.median());
+    }
+
+    // Every reader after an edit races to rebuild the sketch; the lock makes them take turns
+    @Test
+    void concurrentReadersOfAStaleSketchAgree() throws Exception {
+        Dataset dataset = new Dataset(new DoubleColumn(), false);
+        dataset.enableSketch(200);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) dataset.add(random.nextGaussian());
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20; round++) {
+                dataset.set(round, round);
+                List<Callable<double[]>> readers = new ArrayList<>();
+                for (int i = 0; i < 8; i++) readers.add(() -> dataset.quantiles(0.1, 0.5, 0.9));
+                double[] first = null;
+                for (Future<double[]> result : pool.invokeAll(readers)) {
+                    if (first == null) first = result.get();
+                    assertEquals(Arrays.toString(first), Arrays.toString(result.get()));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
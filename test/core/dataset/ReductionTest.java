@@ -0,0 +1,119 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ReductionTest {
+    private final SplittableRandom random = new SplittableRandom(41);
+
+    private double[] randomValues(int n, boolean nonFinite) {
+        double[] values = new double[n];
+        double offset = random.nextBoolean() ? 0 : 1e8;
+        for (int i = 0; i < n; i++) {
+            int pick = random.nextInt(200);
+            if (nonFinite && pick == 0) values[i] = Double.NaN;
+            else if (nonFinite && pick == 1) values[i] = Double.POSITIVE_INFINITY;
+            else if (nonFinite && pick == 2) values[i] = Double.NEGATIVE_INFINITY;
+            else if (pick < 10) values[i] = random.nextBoolean() ? 0.0 : -0.0;
+            else values[i] = offset + random.nextGaussian() * Math.scalb(1.0, random.nextInt(-20, 20));
+        }
+        return values;
+    }
+
+    // The blocks and their combining order depend only on the size, so any pool gives the same bits
+    @Test
+    void resultIsTheSameOnEveryPool() {
+        ForkJoinPool[] pools = {new ForkJoinPool(1), new ForkJoinPool(3), new ForkJoinPool(8)};
+        try {
+            for (int n : new int[] {0, 1, Reduction.BLOCK, Reduction.BLOCK + 1, 3 * Reduction.BLOCK + 17, 250_000}) {
+                DoubleColumn column = DoubleColumn.of(randomValues(n, n % 2 == 1));
+                Reduction.Moments expected = Reduction.reduce(column, pools[0]);
+                for (ForkJoinPool pool : pools) assertEquals(expected, Reduction.reduce(column, pool), "size " + n);
+                assertEquals(expected, Reduction.reduce(column), "size " + n);
+            }
+        } finally {
+            for (ForkJoinPool pool : pools) pool.shutdown();
+        }
+    }
+
+    @Test
+    void momentsMatchExactArithmetic() {
+        for (int trial = 0; trial < 40; trial++) {
+            int n = random.nextInt(1, 5 * Reduction.BLOCK);
+            double[] values = randomValues(n, false);
+            Reduction.Moments moments = Reduction.reduce(DoubleColumn.of(values));
+
+            BigDecimal sum = BigDecimal.ZERO;
+            for (double value : values) sum = sum.add(new BigDecimal(value));
+            BigDecimal mean = sum.divide(BigDecimal.valueOf(n), MathContext.DECIMAL128);
+            BigDecimal m2 = BigDecimal.ZERO;
+            for (double value : values) {
+                BigDecimal deviation = new BigDecimal(value).subtract(mean);
+                m2 = m2.add(deviation.multiply(deviation));
+            }
+
+            assertEquals(n, moments.count());
+            // Compensated, so the sum is the exact sum correctly rounded give or take an ulp
+            assertEquals(sum.doubleValue(), moments.sum(), Math.ulp(sum.doubleValue()));
+            assertEquals(mean.doubleValue(), moments.mean(), Math.ulp(mean.doubleValue()) * 2);
+            assertEquals(m2.doubleValue(), moments.m2(), m2.doubleValue() * 1e-12);
+        }
+    }
+
+    // min and max order values as Double.compare does, and the non-finite values are only counted
+    @Test
+    void extremesAndNonFiniteCounts() {
+        for (int trial = 0; trial < 40; trial++) {
+            int n = random.nextInt(1, 3 * Reduction.BLOCK);
+            double[] values = randomValues(n, true);
+            Reduction.Moments moments = Reduction.reduce(DoubleColumn.of(values));
+
+            double min = values[0];
+            double max = values[0];
+            int nan = 0;
+            int positive = 0;
+            int negative = 0;
+            int finite = 0;
+            for (double value : values) {
+                if (Double.compare(value, min) < 0) min = value;
+                if (Double.compare(value, max) > 0) max = value;
+                if (Double.isNaN(value)) nan++;
+                else if (value == Double.POSITIVE_INFINITY) positive++;
+                else if (value == Double.NEGATIVE_INFINITY) negative++;
+                else finite++;
+            }
+            assertEquals(Double.doubleToRawLongBits(min), Double.doubleToRawLongBits(moments.min()));
+            assertEquals(Double.doubleToRawLongBits(max), Double.doubleToRawLongBits(moments.max()));
+            assertEquals(nan, moments.nanCount());
+            assertEquals(positive, moments.positiveInfinities());
+            assertEquals(negative, moments.negativeInfinities());
+            assertEquals(finite, moments.count());
+            assertEquals(n, moments.size());
+        }
+    }
+
+    @Test
+    void edgeCases() {
+        Reduction.Moments empty = Reduction.reduce(new DoubleColumn());
+        assertEquals(0, empty.size());
+        assertEquals(Double.NaN, empty.min());
+        assertEquals(Double.NaN, empty.max());
+        assertEquals(0.0, empty.mean());
+
+        Reduction.Moments nanOnly = Reduction.reduce(DoubleColumn.of(Double.NaN, Double.NaN));
+        assertEquals(Double.NaN, nanOnly.min());
+        assertEquals(2, nanOnly.nanCount());
+
+        Reduction.Moments zeros = Reduction.reduce(DoubleColumn.of(0.0, -0.0, 0.0));
+        assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(zeros.min()));
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(zeros.max()));
+
+        Reduction.Moments cancelling = Reduction.reduce(DoubleColumn.of(1e100, 1.0, -1e100));
+        assertEquals(1.0, cancelling.sum());
+    }
+}
@@ -0,0 +1,162 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class RunningStatsTest {
+    private final SplittableRandom random = new SplittableRandom(13);
+
+    // Offset well away from zero, so a naive sum of squares would cancel badly
+    private double nextValue(int nonFinitePercent) {
+        if (random.nextInt(100) >= nonFinitePercent) return 1e6 + random.nextGaussian() * 10;
+        return switch (random.nextInt(3)) {
+            case 0 -> Double.NaN;
+            case 1 -> Double.POSITIVE_INFINITY;
+            default -> Double.NEGATIVE_INFINITY;
+        };
+    }
+
+    // The exact figures for the column, computed in BigDecimal over the finite values
+    private static void assertMatches(DoubleColumn column, RunningStats stats) {
+        BigDecimal sum = BigDecimal.ZERO;
+        int finite = 0;
+        int nan = 0;
+        int positive = 0;
+        int negative = 0;
+        for (int i = 0; i < column.size(); i++) {
+            double value = column.get(i);
+            if (Double.isNaN(value)) nan++;
+            else if (value == Double.POSITIVE_INFINITY) positive++;
+            else if (value == Double.NEGATIVE_INFINITY) negative++;
+            else {
+                sum = sum.add(new BigDecimal(value));
+                finite++;
+            }
+        }
+        assertEquals(column.size(), stats.size());
+        if (nan > 0 || (positive > 0 && negative > 0)) {
+            assertEquals(Double.NaN, stats.mean());
+            assertEquals(Double.NaN, stats.sum());
+            return;
+        }
+        if (positive > 0 || negative > 0) {
+            double infinity = positive > 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+            assertEquals(infinity, stats.mean());
+            assertEquals(infinity, stats.sum());
+            assertEquals(Double.NaN, stats.populationVariance());
+            return;
+        }
+        if (finite == 0) return;
+
+        BigDecimal mean = sum.divide(BigDecimal.valueOf(finite), MathContext.DECIMAL128);
+        BigDecimal squares = BigDecimal.ZERO;
+        for (int i = 0; i < column.size(); i++) {
+            BigDecimal deviation = new BigDecimal(column.get(i)).subtract(mean);
+            squares = squares.add(deviation.multiply(deviation));
+        }
+        double variance = squares.divide(BigDecimal.valueOf(finite), MathContext.DECIMAL128).doubleValue();
+
+        assertEquals(sum.doubleValue(), stats.sum(), Math.abs(sum.doubleValue()) * 1e-14);
+        assertEquals(mean.doubleValue(), stats.mean(), Math.abs(mean.doubleValue()) * 1e-14);
+        assertEquals(variance, stats.populationVariance(), variance * 1e-6 + 1e-12);
+    }
+
+    // Adds, removals and in-place edits in random order; the owner rebuilds whenever the stats say
+    // they are stale, as Dataset does
+    private void runEdits(int steps, int maxSize, int nonFinitePercent) {
+        DoubleColumn column = new DoubleColumn();
+        RunningStats stats = new RunningStats();
+        int rebuilds = 0;
+        for (int step = 0; step < steps; step++) {
+            int op = random.nextInt(10);
+            if (column.size() == 0 || (op < 5 && column.size() < maxSize)) {
+                double value = nextValue(nonFinitePercent);
+                column.append(value);
+                stats.add(value);
+            } else if (op < 7) {
+                stats.remove(column.removeAt(random.nextInt(column.size())));
+            } else {
+                double value = nextValue(nonFinitePercent);
+                int index = random.nextInt(column.size());
+                stats.replace(column.set(index, value), value);
+            }
+
+            if (stats.isStale()) {
+                stats.rebuild(column);
+                assertFalse(stats.isStale());
+                rebuilds++;
+            }
+            if (step % 97 == 0) assertMatches(column, stats);
+        }
+        assertTrue(rebuilds > 0);
+        assertMatches(column, stats);
+    }
+
+    @Test
+    void editsTrackTheExactFigures() {
+        runEdits(20_000, Integer.MAX_VALUE, 0);
+    }
+
+    // A small column, so infinities and NaN come and go and every branch of the counting is reached
+    @Test
+    void nonFiniteValuesAreCountedAside() {
+        runEdits(20_000, 40, 3);
+    }
+
+    @Test
+    void rebuildMatchesTheReduction() {
+        DoubleColumn column = new DoubleColumn();
+        RunningStats stats = new RunningStats();
+        for (int i = 0; i < 5000; i++) {
+            double value = 1e6 + random.nextGaussian();
+            column.append(value);
+            stats.add(value);
+        }
+        for (int i = 0; i < 6000; i++) {
+            double value = 1e6 + random.nextGaussian();
+            stats.replace(column.set(random.nextInt(column.size()), value), value);
+        }
+        assertTrue(stats.isStale());
+        stats.rebuild(column);
+        assertEquals(Reduction.reduce(column).state(), stats.state());
+        assertMatches(column, stats);
+    }
+
+    @Test
+    void stateRoundTrips() {
+        RunningStats stats = new RunningStats();
+        for (double value : new double[] {1, 2, 4, Double.NaN, Double.POSITIVE_INFINITY, 8}) stats.add(value);
+        RunningStats restored = new RunningStats();
+        restored.restore(stats.state());
+        assertEquals(stats.state(), restored.state());
+        assertEquals(6, restored.size());
+
+        restored.remove(Double.NaN);
+        restored.remove(Double.POSITIVE_INFINITY);
+        assertEquals(3.75, restored.mean());
+        assertEquals(15.0, restored.sum());
+        assertEquals(7.1875, restored.populationVariance(), 1e-12);
+    }
+
+    @Test
+    void emptyAndSingleValues() {
+        RunningStats stats = new RunningStats();
+        assertEquals(0.0, stats.mean());
+        assertEquals(0.0, stats.populationVariance());
+        assertEquals(0.0, stats.sampleVariance());
+
+        stats.add(5);
+        assertEquals(5.0, stats.mean());
+        assertEquals(0.0, stats.sampleVariance());
+        stats.remove(5);
+        assertEquals(0, stats.size());
+        assertEquals(0.0, stats.mean());
+        assertEquals(0.0, stats.sum());
+    }
+}
@@ -0,0 +1,106 @@
+package core.dataset;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class SelectionTest {
+    private final SplittableRandom random = new SplittableRandom(37);
+
+    // Shapes that trip up quickselect: heavy duplicates, signed zeros, NaN, presorted and organ-pipe runs
+    private double[] randomValues(int n) {
+        double[] values = new double[n];
+        int shape = random.nextInt(6);
+        for (int i = 0; i < n; i++) {
+            values[i] = switch (shape) {
+                case 0 -> random.nextGaussian();
+                case 1 -> random.nextInt(4);
+                case 2 -> switch (random.nextInt(6)) {
+                    case 0 -> -0.0;
+                    case 1 -> 0.0;
+                    case 2 -> Double.NaN;
+                    case 3 -> Double.NEGATIVE_INFINITY;
+                    default -> random.nextInt(-3, 4);
+                };
+                case 3 -> i;
+                case 4 -> n - i;
+                default -> Math.min(i, n - i);
+            };
+        }
+        return values;
+    }
+
+    private static double[] withoutZeroSigns(double[] values) {
+        double[] copy = values.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] == 0) copy[i] = 0.0;
+        }
+        return copy;
+    }
+
+    private static void assertBitsEqual(double expected, double actual, String message) {
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), message);
+    }
+
+    // The selected ranks hold exactly what a full sort would put there, signed zeros and NaN included
+    @Test
+    void selectedRanksMatchArraysSort() {
+        for (int trial = 0; trial < 3000; trial++) {
+            int n = 1 + random.nextInt(trial < 2000 ? 64 : 5000);
+            double[] values = randomValues(n);
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            int[] ranks = random.ints(1 + random.nextInt(5), 0, n).sorted().distinct().toArray();
+            double[] scratch = values.clone();
+            Selection.select(scratch, n, ranks);
+            for (int rank : ranks) assertBitsEqual(sorted[rank], scratch[rank], "rank " + rank + " of " + n);
+
+            // Only rearranged, apart from the sign a selected zero is given
+            Arrays.sort(scratch);
+            assertArrayEquals(withoutZeroSigns(sorted), withoutZeroSigns(scratch));
+        }
+    }
+
+    @Test
+    void quantilesInterpolateBetweenRanks() {
+        for (int trial = 0; trial < 1000; trial++) {
+            int n = 1 + random.nextInt(2000);
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) values[i] = random.nextGaussian();
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+
+            double[] ps = {0, 0.25, 0.5, 0.75, 1, random.nextDouble()};
+            double[] actual = Selection.quantiles(values.clone(), n, ps);
+            for (int i = 0; i < ps.length; i++) {
+                double index = ps[i] * (n - 1);
+                int lower = (int) Math.floor(index);
+                int upper = (int) Math.ceil(index);
+                double expected = sorted[lower] + (index - lower) * (sorted[upper] - sorted[lower]);
+                assertBitsEqual(expected, actual[i], "p = " + ps[i] + " of " + n);
+            }
+        }
+    }
+
+    @Test
+    void medianOfSmallInputs() {
+        assertEquals(0.0, Selection.median(new double[0], 0));
+        assertEquals(7.0, Selection.median(new double[] {7}, 1));
+        assertEquals(2.5, Selection.median(new double[] {4, 1, 3, 2}, 4));
+        assertBitsEqual(-0.0, Selection.median(new double[] {0.0, -0.0, -0.0}, 3), "signed zero");
+        // Only the first n values take part
+        assertEquals(2.0, Selection.median(new double[] {3, 1, 2, 100, 100}, 3));
+    }
+
+    // Equal keys everywhere would send a two-way partition quadratic; this must finish quickly
+    @Test
+    void manyDuplicatesStayLinear() {
+        double[] values = new double[2_000_000];
+        for (int i = 0; i < values.length; i++) values[i] = i % 3;
+        assertEquals(1.0, Selection.median(values, values.length));
+    }
+}
@@ -0,0 +1,63 @@
+package core.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import core.compiler.RandomExpressions;
+import core.dataset.Dataset;
+import core.evaluator.Evaluator;
+import core.lexer.Lexer;
+import core.parser.Parser;
+import core.token.Token;
+import core.token.TokenType;
+
+class OptimizerTest {
+    private static List<Token> postfix(String expression) {
+        return new Parser(new Lexer(expression).tokenize()).infixToPostfix();
+    }
+
+    private static String types(List<Token> tokens) {
+        StringBuilder sb = new StringBuilder();
+        for (Token token : tokens) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(token.getType() == TokenType.NUMBER ? Double.toString(token.getNumber()) : token.getType().name());
+        }
+        return sb.toString();
+    }
+
+    // Folding and the identities may only change the sign of a zero, which compares equal
+    @Test
+    void optimizedPostfixEvaluatesTheSame() {
+        Dataset table = new Dataset();
+        for (double value : new double[] {1, 4, 4, 9}) table.add(value);
+        RandomExpressions random = new RandomExpressions(4);
+        for (int i = 0; i < 10_000; i++) {
+            String expression = random.next();
+            List<Token> original = postfix(expression);
+            List<Token> optimized = new Optimizer(original).optimize();
+
+            Map<String, Double> variables = new HashMap<>();
+            for (String name : RandomExpressions.VARIABLES) variables.put(name, random.nextValue());
+            double expected = Evaluator.evaluate(original, variables, table);
+            double actual = Evaluator.evaluate(optimized, variables, table);
+            assertTrue(expected == actual || Double.compare(expected, actual) == 0,
+                expression + " with " + variables + ": " + expected + " vs " + actual);
+        }
+    }
+
+    @Test
+    void constantsFoldAndIdentitiesDisappear() {
+        assertEquals("14.0", types(new Optimizer(postfix("2 + 3 * 4")).optimize()));
+        assertEquals("IDENTIFIER", types(new Optimizer(postfix("x * 1 + 0")).optimize()));
+        assertEquals("IDENTIFIER", types(new Optimizer(postfix("--x")).optimize()));
+        assertEquals("IDENTIFIER 6.0 MULTIPLY", types(new Optimizer(postfix("x * (2 * 3)")).optimize()));
+        assertEquals("IDENTIFIER SQUARE", types(new Optimizer(postfix("x^2")).optimize()));
+        assertEquals("IDENTIFIER RECIPROCAL", types(new Optimizer(postfix("x^(-1)")).optimize()));
+        assertEquals("MEAN 1.0 PLUS", types(new Optimizer(postfix("mean + 1")).optimize()));
+        assertEquals("", types(new Optimizer(postfix("")).optimize()));
+    }
+}
@@ -0,0 +1,103 @@
+package core.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class DoubleFormatterTest {
+    private static final SplittableRandom RANDOM = new SplittableRandom(7);
+
+    // Money-like values with ties at the rounding digit, wide exponents, raw bit patterns and plain noise
+    private static double randomDouble() {
+        return switch (RANDOM.nextInt(5)) {
+            case 0 -> RANDOM.nextInt(-2000, 2000) / 8.0 + RANDOM.nextInt(-3, 3) * 0.005;
+            case 1 -> Math.scalb(RANDOM.nextDouble(-1, 1), RANDOM.nextInt(-40, 40));
+            case 2 -> Double.longBitsToDouble(RANDOM.nextLong());
+            case 3 -> RANDOM.nextInt(-100000, 100000) / 1000.0;
+            default -> RANDOM.nextGaussian() * 1e6;
+        };
+    }
+
+    private static String withoutTrailingZeros(String fixed) {
+        if (fixed.indexOf('.') < 0) return fixed;
+        int end = fixed.length();
+        while (fixed.charAt(end - 1) == '0') end--;
+        if (fixed.charAt(end - 1) == '.') end--;
+        return fixed.substring(0, end);
+    }
+
+    @Test
+    void fixedMatchesStringFormat() {
+        DoubleFormatter[] formatters = new DoubleFormatter[10];
+        for (int n = 0; n < formatters.length; n++) formatters[n] = DoubleFormatter.fixed(n);
+        for (int i = 0; i < 200_000; i++) {
+            double value = randomDouble();
+            int n = RANDOM.nextInt(formatters.length);
+            assertEquals(String.format(Locale.ROOT, "%." + n + "f", value), formatters[n].format(value), value + " to " + n);
+        }
+        for (double value : new double[] {0.0, -0.0, 0.5, -0.5, 1.5, 2.5, 9.995, 0.0049, -0.004, 1e22, 4.9e-324}) {
+            for (int n = 0; n < 4; n++) {
+                assertEquals(String.format(Locale.ROOT, "%." + n + "f", value), DoubleFormatter.fixed(n).format(value), value + " to " + n);
+            }
+        }
+    }
+
+    @Test
+    void upToIsFixedWithoutTrailingZeros() {
+        for (int i = 0; i < 100_000; i++) {
+            double value = randomDouble();
+            int n = RANDOM.nextInt(10);
+            assertEquals(withoutTrailingZeros(String.format(Locale.ROOT, "%." + n + "f", value)),
+                DoubleFormatter.upTo(n).format(value), value + " to " + n);
+        }
+        assertEquals("3.14", DoubleFormatter.upTo(2).format(3.14159));
+        assertEquals("2.5", DoubleFormatter.upTo(6).format(2.5));
+        assertEquals("100", DoubleFormatter.upTo(6).format(100.0));
+        assertEquals("1", DoubleFormatter.upTo(2).format(0.999));
+    }
+
+    @Test
+    void significantAndShortestMatchDoubleToString() {
+        DoubleFormatter significant = DoubleFormatter.significant(17);
+        DoubleFormatter shortest = DoubleFormatter.shortest();
+        for (int i = 0; i < 200_000; i++) {
+            double value = randomDouble();
+            assertEquals(Double.toString(value), significant.format(value));
+            assertEquals(Double.toString(value), shortest.format(value));
+        }
+        for (double value : new double[] {0.0, -0.0, 1e-3, 9.999e-4, 1e7, 9999999.0, Double.MIN_VALUE, Double.MAX_VALUE}) {
+            assertEquals(Double.toString(value), significant.format(value));
+        }
+    }
+
+    @Test
+    void significantRoundsHalfUp() {
+        DoubleFormatter three = DoubleFormatter.significant(3);
+        assertEquals("3.14", three.format(Math.PI));
+        assertEquals("1.0E10", three.format(9.996e9));
+        assertEquals("0.00123", three.format(0.0012345));
+        assertEquals("1.24E-4", three.format(0.00012351));
+        assertEquals("-1000.0", three.format(-999.7));
+    }
+
+    @Test
+    void specialValuesAndAppending() {
+        for (DoubleFormatter formatter : new DoubleFormatter[] {
+                DoubleFormatter.fixed(2), DoubleFormatter.upTo(2), DoubleFormatter.significant(4), DoubleFormatter.shortest()}) {
+            assertEquals("NaN", formatter.format(Double.NaN));
+            assertEquals("Infinity", formatter.format(Double.POSITIVE_INFINITY));
+            assertEquals("-Infinity", formatter.format(Double.NEGATIVE_INFINITY));
+            assertEquals("x=" + formatter.format(-12.345), formatter.appendTo(new StringBuilder("x="), -12.345).toString());
+        }
+    }
+
+    @Test
+    void rejectsBadPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> DoubleFormatter.fixed(-1));
+        assertThrows(IllegalArgumentException.class, () -> DoubleFormatter.upTo(-1));
+        assertThrows(IllegalArgumentException.class, () -> DoubleFormatter.significant(0));
+    }
+}
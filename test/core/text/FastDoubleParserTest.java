@@ -0,0 +1,136 @@
+package core.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class FastDoubleParserTest {
+    private static final SplittableRandom RANDOM = new SplittableRandom(42);
+
+    // Both overloads, with the text embedded in a larger buffer, against the JDK bit for bit
+    private static void assertParsesLike(String text) {
+        double expected = Double.parseDouble(text);
+        String message = "parsing \"" + text + "\"";
+        assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(FastDoubleParser.parseDouble(text)), message);
+
+        String padded = "x," + text + ",y";
+        int to = padded.length() - 2;
+        assertEquals(Double.doubleToRawLongBits(expected),
+            Double.doubleToRawLongBits(FastDoubleParser.parseDouble(padded, 2, to)), message);
+        byte[] bytes = padded.getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(Double.doubleToRawLongBits(expected),
+            Double.doubleToRawLongBits(FastDoubleParser.parseDouble(bytes, 2, to)), message);
+    }
+
+    private static void assertRejected(String text) {
+        assertThrows(NumberFormatException.class, () -> Double.parseDouble(text));
+        assertThrows(NumberFormatException.class, () -> FastDoubleParser.parseDouble(text), text);
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        assertThrows(NumberFormatException.class, () -> FastDoubleParser.parseDouble(bytes, 0, bytes.length), text);
+    }
+
+    private static double randomDouble() {
+        double value;
+        do {
+            value = Double.longBitsToDouble(RANDOM.nextLong());
+        } while (!Double.isFinite(value));
+        return value;
+    }
+
+    @Test
+    void shortestRepresentationsRoundTrip() {
+        for (int i = 0; i < 100_000; i++) {
+            double value = randomDouble();
+            assertParsesLike(Double.toString(value));
+            assertParsesLike(new BigDecimal(value).round(MathContext.DECIMAL64).toString());
+        }
+    }
+
+    @Test
+    void everyNumberOfDigitsAndExponent() {
+        for (int i = 0; i < 100_000; i++) {
+            int digits = 1 + RANDOM.nextInt(19);
+            long mantissa = RANDOM.nextLong(1, (long) Math.pow(10, Math.min(digits, 18)) + 1);
+            int exponent = RANDOM.nextInt(-360, 330);
+            assertParsesLike(mantissa + "e" + exponent);
+            assertParsesLike("-" + mantissa + "E+" + Math.abs(exponent));
+        }
+        for (String text : new String[] {"0", "-0", "0.0", "-0.0e10", "+1", "1.", ".5", "00012.5000", "1e0", "1e-0",
+            "123456789012345678", "9007199254740992", "4503599627370496.5", "1e22", "1e23", "8.41e21", "1e-22"}) {
+            assertParsesLike(text);
+        }
+    }
+
+    // Exactly halfway between two doubles, and the nearest 19-digit neighbours on either side
+    @Test
+    void halfwayCasesRoundToEven() {
+        for (String text : new String[] {"9007199254740993", "9007199254740995", "9007199254740993.0000000000001",
+            "1.00000000000000011102230246251565404236316680908203125", "2.2250738585072011e-308", "2.2250738585072012e-308"}) {
+            assertParsesLike(text);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            double value = Math.abs(randomDouble());
+            if (value == Double.MAX_VALUE) continue;
+            BigDecimal halfway = new BigDecimal(value).add(new BigDecimal(Math.nextUp(value))).divide(BigDecimal.valueOf(2));
+            assertParsesLike(halfway.toString());
+            assertParsesLike(halfway.round(new MathContext(19, RoundingMode.DOWN)).toString());
+            assertParsesLike(halfway.round(new MathContext(19, RoundingMode.UP)).toString());
+            assertParsesLike(halfway.round(new MathContext(17, RoundingMode.HALF_EVEN)).toString());
+        }
+    }
+
+    @Test
+    void subnormalsAndTheEdgesOfTheRange() {
+        for (int i = 0; i < 50_000; i++) {
+            double subnormal = Double.longBitsToDouble(RANDOM.nextLong() & 0x000F_FFFF_FFFF_FFFFL);
+            assertParsesLike(Double.toString(subnormal));
+            assertParsesLike(new BigDecimal(subnormal).round(new MathContext(19)).toString());
+        }
+        for (double value : new double[] {Double.MIN_VALUE, Double.MIN_NORMAL, Math.nextDown(Double.MIN_NORMAL), Double.MAX_VALUE}) {
+            assertParsesLike(Double.toString(value));
+            assertParsesLike(Double.toString(-value));
+        }
+        for (String text : new String[] {"4.9e-324", "2.4703282292062327e-324", "2.4703282292062328e-324", "1e-324",
+            "1e-400", "1.7976931348623157e308", "1.7976931348623158e308", "1.7976931348623159e308", "1e309", "-1e400",
+            "1e99999999999", "1e-99999999999"}) {
+            assertParsesLike(text);
+        }
+    }
+
+    // Past 19 significant digits the mantissa is cut short, so inexact tails go to the JDK
+    @Test
+    void mantissasOfNineteenDigitsAndMore() {
+        for (String text : new String[] {"1234567890123456789", "9999999999999999999", "18446744073709551615",
+            "18446744073709551616", "12345678901234567890", "1234567890123456789000000", "1234567890123456789.000",
+            "0.00000000000000000000001234567890123456789", "3.14159265358979323846264338327950288",
+            "9007199254740992.000000000000000000001", "1.0000000000000000000000000000000000000001"}) {
+            assertParsesLike(text);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int digits = 19 + RANDOM.nextInt(30);
+            for (int d = 0; d < digits; d++) text.append((char) ('0' + RANDOM.nextInt(10)));
+            text.insert(RANDOM.nextInt(digits + 1), '.');
+            text.append('e').append(RANDOM.nextInt(-330, 310));
+            assertParsesLike(text.toString());
+        }
+    }
+
+    @Test
+    void textOutsidePlainDecimalsFallsBack() {
+        for (String text : new String[] {"NaN", "-NaN", "Infinity", "-Infinity", "+Infinity", "0x1p3", "-0x1.8p-2",
+            " 1.5", "2.5 ", "\t3", "1d", "1f", "1.5D", "1e5f"}) {
+            assertParsesLike(text);
+        }
+        for (String text : new String[] {"", "-", "+", ".", "e5", "1e", "1e+", "1..2", "1.2.3", "abc", "1,5", "--1",
+            "1e5.5", "0x", "Inf", "nan"}) {
+            assertRejected(text);
+        }
+    }
+}
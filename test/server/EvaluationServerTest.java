@@ -0,0 +1,61 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EvaluationServerTest {
+    private EvaluationServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new EvaluationServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    private HttpResponse<String> post(String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + "/evaluate"))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void dataIsLoadedIntoTheSessionTable() throws Exception {
+        HttpResponse<String> response = post("{\"expressions\": [\"mean\", \"median\", \"mode\"], \"data\": [4, 1, 1, 6, \"8\"]}");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("{\"results\":[4.0,4.0,1.0],"), response.body());
+    }
+
+    @Test
+    void badDataIsABadRequest() throws Exception {
+        HttpResponse<String> response = post("{\"expression\": \"mean\", \"data\": [1, true]}");
+        assertEquals(400, response.statusCode());
+        assertEquals("{\"error\":\"Expected a number, got true\"}", response.body());
+    }
+
+    @Test
+    void deeplyNestedJsonIsABadRequest() throws Exception {
+        HttpResponse<String> response = post("{\"data\":" + "[".repeat(100_000) + "]".repeat(100_000) + "}");
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Nesting deeper than"), response.body());
+
+        assertEquals(200, post("{\"expression\": \"1+1\"}").statusCode());
+    }
+}
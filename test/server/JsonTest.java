@@ -0,0 +1,48 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonTest {
+    private static String nested(int depth) {
+        return "[".repeat(depth) + "1" + "]".repeat(depth);
+    }
+
+    @Test
+    void parsesTheSupportedTypes() {
+        Object value = Json.parse(" {\"a\": [1, -2.5e3, \"x\\n\\u0041\"], \"b\": {\"c\": true, \"d\": null}, \"e\": false} ");
+        Map<String, Object> inner = new HashMap<>();
+        inner.put("c", true);
+        inner.put("d", null);
+        assertEquals(Map.of("a", List.of(1.0, -2500.0, "x\nA"), "b", inner, "e", false), value);
+    }
+
+    @Test
+    void nestingUpToTheLimitIsAccepted() {
+        Object value = Json.parse(nested(Json.MAX_DEPTH));
+        for (int i = 1; i < Json.MAX_DEPTH; i++) value = ((List<?>) value).get(0);
+        assertEquals(List.of(1.0), value);
+        assertEquals(Map.of("a", List.of()), Json.parse("{\"a\":[]}"));
+    }
+
+    // Without the cap this nesting overflows the stack, which the service does not turn into a 400
+    @Test
+    void deeperNestingIsRejected() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Json.parse(nested(Json.MAX_DEPTH + 1)));
+        assertEquals("Nesting deeper than " + Json.MAX_DEPTH + " at position " + Json.MAX_DEPTH, e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("{\"a\":".repeat(1_000_000)));
+        assertThrows(IllegalArgumentException.class, () -> Json.parse("[".repeat(1_000_000)));
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        for (String text : new String[] {"", "[1,", "{\"a\" 1}", "[1] 2", "tru", "\"abc", "{1: 2}", "[-]"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(text), text);
+        }
+    }
+}